@@ -0,0 +1,45 @@
+package com.coding.challenge.booking.mapper;
+
+import com.coding.challenge.booking.entity.BookingEntity;
+import com.coding.challenge.booking.input.BookingInput;
+import com.coding.challenge.booking.output.BookingOutput;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookingMapperBenchmark {
+
+    private BookingInput input;
+    private BookingEntity entity;
+
+    @Setup
+    public void setUp() {
+        input = new BookingInput();
+        input.setFirstName("Test");
+        input.setLastName("User");
+        input.setEmail("test@email.com");
+        input.setArrivalDate(LocalDate.now().plusDays(1));
+        input.setDepartureDate(LocalDate.now().plusDays(3));
+
+        entity = BookingMapper.INSTANCE.mapInputToEntity(input);
+        entity.setId(1L);
+        entity.setVersion(1L);
+    }
+
+    @Benchmark
+    public BookingEntity mapInputToEntity() {
+        return BookingMapper.INSTANCE.mapInputToEntity(input);
+    }
+
+    @Benchmark
+    public BookingOutput mapEntityToOutput() {
+        return BookingMapper.INSTANCE.mapEntityToOutput(entity);
+    }
+}
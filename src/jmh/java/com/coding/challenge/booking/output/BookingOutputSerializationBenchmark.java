@@ -0,0 +1,50 @@
+package com.coding.challenge.booking.output;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookingOutputSerializationBenchmark {
+
+    @Param({"10", "1000"})
+    private int size;
+
+    private ObjectWriter writer;
+    private List<BookingOutput> outputs;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper jsonMapper = Jackson2ObjectMapperBuilder.json().build();
+        writer = jsonMapper.writerFor(jsonMapper.getTypeFactory().constructCollectionType(List.class, BookingOutput.class));
+
+        outputs = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            BookingOutput output = new BookingOutput();
+            output.setBookingId(String.valueOf(i));
+            output.setFirstName("Test");
+            output.setLastName("User");
+            output.setEmail("test@email.com");
+            output.setArrivalDate(LocalDate.now().plusDays(1));
+            output.setDepartureDate(LocalDate.now().plusDays(3));
+            outputs.add(output);
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeBookingOutputs() throws JsonProcessingException {
+        return writer.writeValueAsBytes(outputs);
+    }
+}
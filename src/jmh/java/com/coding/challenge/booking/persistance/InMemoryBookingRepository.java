@@ -0,0 +1,58 @@
+package com.coding.challenge.booking.persistance;
+
+import com.coding.challenge.booking.occupancy.DateRange;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public final class InMemoryBookingRepository {
+
+    private InMemoryBookingRepository() {
+    }
+
+    public static BookingRepository of(List<BookedDates> bookings) {
+        return (BookingRepository) Proxy.newProxyInstance(BookingRepository.class.getClassLoader(), new Class<?>[]{BookingRepository.class}, (proxy, method, args) -> {
+            if (method.getName().equals("getAllBookedDatesBetween")) {
+                LocalDate startDate = (LocalDate) args[0];
+                LocalDate endDate = (LocalDate) args[1];
+                return bookings.stream()
+                        .filter(booking -> booking.getArrivalDate().isBefore(endDate) && booking.getDepartureDate().isAfter(startDate))
+                        .collect(Collectors.toCollection(ArrayList::new));
+            }
+            if (method.getDeclaringClass() == Object.class) {
+                return method.getName().equals("toString") ? "InMemoryBookingRepository" : method.invoke(bookings, args);
+            }
+            throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    public static List<BookedDates> consecutiveBookings(LocalDate firstArrival, int count, int nights, int gapNights) {
+        List<BookedDates> bookings = new ArrayList<>(count);
+        LocalDate arrival = firstArrival;
+        for (int i = 0; i < count; i++) {
+            LocalDate arrivalDate = arrival;
+            LocalDate departureDate = arrival.plusDays(nights);
+            bookings.add(new BookedDates() {
+                @Override
+                public Long getResourceId() {
+                    return DateRange.DEFAULT_RESOURCE_ID;
+                }
+
+                @Override
+                public LocalDate getArrivalDate() {
+                    return arrivalDate;
+                }
+
+                @Override
+                public LocalDate getDepartureDate() {
+                    return departureDate;
+                }
+            });
+            arrival = departureDate.plusDays(gapNights);
+        }
+        return bookings;
+    }
+}
@@ -0,0 +1,61 @@
+package com.coding.challenge.booking.service;
+
+import com.coding.challenge.booking.metrics.BookingMetrics;
+import com.coding.challenge.booking.occupancy.AvailabilityCache;
+import com.coding.challenge.booking.occupancy.DateRange;
+import com.coding.challenge.booking.occupancy.OccupancyIndex;
+import com.coding.challenge.booking.persistance.InMemoryBookingRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookingServiceBenchmark {
+
+    @Param({"1000", "100000"})
+    private int bookings;
+
+    @Param({"31", "365"})
+    private int windowDays;
+
+    private BookingService bookingService;
+    private OccupancyIndex occupancyIndex;
+    private LocalDate startDate;
+    private LocalDate endDate;
+
+    @Setup
+    public void setUp() {
+        startDate = LocalDate.now();
+        endDate = startDate.plusDays(windowDays);
+
+        occupancyIndex = new OccupancyIndex();
+        ReflectionTestUtils.setField(occupancyIndex, "bookingRepository",
+                InMemoryBookingRepository.of(InMemoryBookingRepository.consecutiveBookings(startDate, bookings, 2, 1)));
+        ReflectionTestUtils.setField(occupancyIndex, "bookingMetrics", BookingMetrics.noop());
+        occupancyIndex.load();
+
+        bookingService = new BookingService();
+        ReflectionTestUtils.setField(bookingService, "occupancyIndex", occupancyIndex);
+        ReflectionTestUtils.setField(bookingService, "bookingMetrics", BookingMetrics.noop());
+        ReflectionTestUtils.setField(bookingService, "availabilityCache", new AvailabilityCache(new SimpleMeterRegistry(), 1000, 60));
+    }
+
+    @Benchmark
+    public List<LocalDate> getAvailableDates() {
+        return bookingService.getAvailableDates(DateRange.DEFAULT_RESOURCE_ID, startDate, endDate);
+    }
+
+    @Benchmark
+    public List<LocalDate> getAvailableDatesUncached() {
+        return occupancyIndex.getAvailableDates(DateRange.DEFAULT_RESOURCE_ID, startDate, endDate);
+    }
+}
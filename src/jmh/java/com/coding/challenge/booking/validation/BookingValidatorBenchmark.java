@@ -0,0 +1,58 @@
+package com.coding.challenge.booking.validation;
+
+import com.coding.challenge.booking.error.exception.BookingValidationException;
+import com.coding.challenge.booking.input.BookingInput;
+import com.coding.challenge.booking.metrics.BookingMetrics;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookingValidatorBenchmark {
+
+    private final BookingValidator bookingValidator = new BookingValidator(BookingMetrics.noop(), new DailyClock(Clock.systemDefaultZone()), ValidationMode.COLLECT_ALL, 1, 3, 1, 3660, 1);
+    private BookingInput validInput;
+    private BookingInput invalidInput;
+
+    @Setup
+    public void setUp() {
+        validInput = getBookingInput();
+        invalidInput = getBookingInput();
+        invalidInput.setFirstName(null);
+        invalidInput.setEmail("invalid");
+    }
+
+    @Benchmark
+    public BookingInput validateValidInput() throws BookingValidationException {
+        bookingValidator.validateInput(validInput);
+        return validInput;
+    }
+
+    @Benchmark
+    public List<String> validateInvalidInput() {
+        try {
+            bookingValidator.validateInput(invalidInput);
+            return null;
+        } catch (BookingValidationException e) {
+            return e.getErrors();
+        }
+    }
+
+    private BookingInput getBookingInput() {
+        BookingInput input = new BookingInput();
+        input.setFirstName("Test");
+        input.setLastName("User");
+        input.setEmail("test@email.com");
+        input.setArrivalDate(LocalDate.now().plusDays(1));
+        input.setDepartureDate(LocalDate.now().plusDays(3));
+        return input;
+    }
+}
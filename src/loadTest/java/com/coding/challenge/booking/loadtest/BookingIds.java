@@ -0,0 +1,34 @@
+package com.coding.challenge.booking.loadtest;
+
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Ids of bookings created during the run, so updates, reads and deletes mostly target existing bookings.
+ */
+public class BookingIds {
+
+    private static final Pattern BOOKING_ID = Pattern.compile("\"bookingId\":\"(\\d+)\"");
+    private static final long MISSING_ID = Long.MAX_VALUE;
+
+    private final ConcurrentLinkedDeque<Long> ids = new ConcurrentLinkedDeque<>();
+
+    public void recordCreated(String responseBody) {
+        Matcher matcher = BOOKING_ID.matcher(responseBody);
+        if (matcher.find()) {
+            ids.addLast(Long.parseLong(matcher.group(1)));
+        }
+    }
+
+    public long any() {
+        Long id = ThreadLocalRandom.current().nextBoolean() ? ids.peekLast() : ids.peekFirst();
+        return id == null ? MISSING_ID : id;
+    }
+
+    public long take() {
+        Long id = ids.pollFirst();
+        return id == null ? MISSING_ID : id;
+    }
+}
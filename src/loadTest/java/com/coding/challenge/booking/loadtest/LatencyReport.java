@@ -0,0 +1,82 @@
+package com.coding.challenge.booking.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public class LatencyReport {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    private final Map<Operation, Histogram> responseTimes = new EnumMap<>(Operation.class);
+    private final Map<Operation, Histogram> serviceTimes = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> failures = new EnumMap<>(Operation.class);
+    private volatile long recordFromNanos = Long.MAX_VALUE;
+
+    public LatencyReport() {
+        for (Operation operation : Operation.values()) {
+            responseTimes.put(operation, new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3));
+            serviceTimes.put(operation, new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3));
+            failures.put(operation, new LongAdder());
+        }
+    }
+
+    public void recordFrom(long intendedStartNanos) {
+        recordFromNanos = intendedStartNanos;
+    }
+
+    /**
+     * Response time is measured from the intended start, service time from the actual send. In the closed model
+     * both are the same; in the open model the gap between them is the queueing hidden by coordinated omission.
+     */
+    public void record(Operation operation, long intendedStartNanos, long sentNanos, long completedNanos, int status) {
+        if (intendedStartNanos - recordFromNanos < 0) {
+            return;
+        }
+
+        responseTimes.get(operation).recordValue(toMicros(completedNanos - intendedStartNanos));
+        serviceTimes.get(operation).recordValue(toMicros(completedNanos - sentNanos));
+        if (status >= 500 || status < 0) {
+            failures.get(operation).increment();
+        }
+    }
+
+    public void print(LoadTestConfig config, long elapsedNanos) {
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        Histogram totalResponse = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+        Histogram totalService = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+        long totalFailures = 0;
+
+        System.out.printf("%nModel: %s, %s threads, measured for %.1f s%n", config.getModel(), config.isVirtualThreads() ? "virtual" : "platform", seconds);
+        System.out.printf("%-16s %10s %10s %8s %28s %28s%n", "operation", "requests", "req/s", "errors", "response p50/p99/p999 ms", "service p50/p99/p999 ms");
+        for (Operation operation : Operation.values()) {
+            Histogram response = responseTimes.get(operation);
+            if (response.getTotalCount() == 0) {
+                continue;
+            }
+            printRow(operation.getMixName(), response, serviceTimes.get(operation), failures.get(operation).sum(), seconds);
+            totalResponse.add(response);
+            totalService.add(serviceTimes.get(operation));
+            totalFailures += failures.get(operation).sum();
+        }
+        printRow("total", totalResponse, totalService, totalFailures, seconds);
+    }
+
+    private static void printRow(String name, Histogram response, Histogram service, long failures, double seconds) {
+        System.out.printf("%-16s %10d %10.1f %8d %28s %28s%n", name, response.getTotalCount(), response.getTotalCount() / seconds, failures,
+                percentiles(response), percentiles(service));
+    }
+
+    private static String percentiles(Histogram histogram) {
+        return String.format("%.2f / %.2f / %.2f", histogram.getValueAtPercentile(50) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0, histogram.getValueAtPercentile(99.9) / 1000.0);
+    }
+
+    private static long toMicros(long nanos) {
+        return Math.min(HIGHEST_TRACKABLE_MICROS, Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos)));
+    }
+}
@@ -0,0 +1,184 @@
+package com.coding.challenge.booking.loadtest;
+
+import com.coding.challenge.booking.BookingApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * HTTP load generator for the booking endpoints. Boots the service against an in-memory H2 database unless
+ * loadtest.target points at a running instance. Supports a closed model (loadtest.users concurrent users, each
+ * waiting for its response) and an open model (loadtest.rate requests per second regardless of responses).
+ */
+public class LoadTest {
+
+    private static final long DRAIN_TIMEOUT_SECONDS = 30;
+
+    private final LoadTestConfig config;
+    private final String baseUrl;
+    private final HttpClient httpClient;
+    private final BookingIds bookingIds = new BookingIds();
+    private final LatencyReport report = new LatencyReport();
+    private final Operation[] weightedOperations;
+    private final Phaser inFlight = new Phaser(1);
+
+    public LoadTest(LoadTestConfig config, String baseUrl, HttpClient httpClient) {
+        this.config = config;
+        this.baseUrl = baseUrl;
+        this.httpClient = httpClient;
+        this.weightedOperations = weightedOperations(config.getMix());
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+        ConfigurableApplicationContext context = null;
+        String baseUrl = config.getTargetUrl();
+
+        if (baseUrl == null) {
+            context = SpringApplication.run(BookingApplication.class,
+                    "--server.port=0",
+                    "--spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+                    "--spring.datasource.username=sa",
+                    "--spring.datasource.password=",
+                    "--spring.datasource.driver-class-name=org.h2.Driver",
+                    "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                    "--spring.jpa.hibernate.ddl-auto=create-drop",
+                    "--logging.level.root=WARN",
+                    "--booking.threads.virtual=" + config.isVirtualThreads());
+            baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(config.getUsers(), Runtime.getRuntime().availableProcessors()));
+        HttpClient httpClient = HttpClient.newBuilder().executor(executor).connectTimeout(Duration.ofSeconds(5)).build();
+
+        try {
+            new LoadTest(config, baseUrl + "/v1/booking", httpClient).run();
+        } finally {
+            executor.shutdownNow();
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    public void run() throws InterruptedException {
+        long warmupEnd = System.nanoTime() + config.getWarmup().toNanos();
+        long end = warmupEnd + config.getDuration().toNanos();
+        report.recordFrom(warmupEnd);
+
+        if (config.getModel() == LoadTestConfig.Model.CLOSED) {
+            runClosed(end);
+        } else {
+            runOpen(end);
+        }
+
+        report.print(config, config.getDuration().toNanos());
+    }
+
+    private void runClosed(long end) throws InterruptedException {
+        List<Thread> users = new ArrayList<>(config.getUsers());
+        for (int i = 0; i < config.getUsers(); i++) {
+            Thread user = new Thread(() -> {
+                while (System.nanoTime() < end) {
+                    long start = System.nanoTime();
+                    Operation operation = nextOperation();
+                    int status = send(operation);
+                    report.record(operation, start, start, System.nanoTime(), status);
+                }
+            }, "load-user-" + i);
+            users.add(user);
+            user.start();
+        }
+
+        for (Thread user : users) {
+            user.join();
+        }
+    }
+
+    private void runOpen(long end) {
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / config.getRatePerSecond());
+        long intendedStart = System.nanoTime();
+
+        while (intendedStart < end) {
+            waitUntil(intendedStart);
+
+            long scheduled = intendedStart;
+            Operation operation = nextOperation();
+            long sent = System.nanoTime();
+            inFlight.register();
+            httpClient.sendAsync(operation.request(baseUrl, bookingIds), HttpResponse.BodyHandlers.ofString())
+                    .whenComplete((response, error) -> {
+                        int status = error == null ? response.statusCode() : -1;
+                        if (error == null && operation == Operation.CREATE) {
+                            bookingIds.recordCreated(response.body());
+                        }
+                        report.record(operation, scheduled, sent, System.nanoTime(), status);
+                        inFlight.arriveAndDeregister();
+                    });
+            intendedStart += intervalNanos;
+        }
+
+        try {
+            inFlight.awaitAdvanceInterruptibly(inFlight.arrive(), DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (TimeoutException e) {
+            System.out.printf("%d requests still in flight after %d s are not reported%n", inFlight.getUnarrivedParties() - 1, DRAIN_TIMEOUT_SECONDS);
+        }
+    }
+
+    private int send(Operation operation) {
+        try {
+            HttpRequest request = operation.request(baseUrl, bookingIds);
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (operation == Operation.CREATE) {
+                bookingIds.recordCreated(response.body());
+            }
+            return response.statusCode();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private Operation nextOperation() {
+        return weightedOperations[ThreadLocalRandom.current().nextInt(weightedOperations.length)];
+    }
+
+    private static Operation[] weightedOperations(Map<Operation, Integer> mix) {
+        List<Operation> operations = new ArrayList<>();
+        mix.forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                operations.add(operation);
+            }
+        });
+        if (operations.isEmpty()) {
+            throw new IllegalArgumentException("loadtest.mix must give at least one operation a positive weight");
+        }
+        return operations.toArray(new Operation[0]);
+    }
+
+    private static void waitUntil(long deadlineNanos) {
+        long remaining;
+        while ((remaining = deadlineNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.coding.challenge.booking.loadtest;
+
+import lombok.Value;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+@Value
+public class LoadTestConfig {
+
+    public enum Model { CLOSED, OPEN }
+
+    Model model;
+    int users;
+    double ratePerSecond;
+    Duration warmup;
+    Duration duration;
+    Map<Operation, Integer> mix;
+    String targetUrl;
+    boolean virtualThreads;
+
+    public static LoadTestConfig fromSystemProperties() {
+        return new LoadTestConfig(
+                Model.valueOf(System.getProperty("loadtest.model", "closed").toUpperCase()),
+                Integer.getInteger("loadtest.users", 20),
+                Double.parseDouble(System.getProperty("loadtest.rate", "200")),
+                Duration.ofSeconds(Long.getLong("loadtest.warmup", 10L)),
+                Duration.ofSeconds(Long.getLong("loadtest.duration", 60L)),
+                parseMix(System.getProperty("loadtest.mix", "availabilities=60,get=15,getAll=5,create=10,update=5,delete=5")),
+                System.getProperty("loadtest.target"),
+                Boolean.getBoolean("loadtest.virtualThreads"));
+    }
+
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            weights.put(Operation.fromName(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,80 @@
+package com.coding.challenge.booking.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+
+public enum Operation {
+
+    CREATE("create") {
+        @Override
+        HttpRequest request(String baseUrl, BookingIds ids) {
+            return json(URI.create(baseUrl)).POST(HttpRequest.BodyPublishers.ofString(randomBooking())).build();
+        }
+    },
+    GET_ALL("getAll") {
+        @Override
+        HttpRequest request(String baseUrl, BookingIds ids) {
+            return HttpRequest.newBuilder(URI.create(baseUrl)).GET().build();
+        }
+    },
+    UPDATE("update") {
+        @Override
+        HttpRequest request(String baseUrl, BookingIds ids) {
+            return json(URI.create(baseUrl + "/" + ids.any())).PUT(HttpRequest.BodyPublishers.ofString(randomBooking())).build();
+        }
+    },
+    GET("get") {
+        @Override
+        HttpRequest request(String baseUrl, BookingIds ids) {
+            return HttpRequest.newBuilder(URI.create(baseUrl + "/" + ids.any())).GET().build();
+        }
+    },
+    DELETE("delete") {
+        @Override
+        HttpRequest request(String baseUrl, BookingIds ids) {
+            return HttpRequest.newBuilder(URI.create(baseUrl + "/" + ids.take())).DELETE().build();
+        }
+    },
+    AVAILABILITIES("availabilities") {
+        @Override
+        HttpRequest request(String baseUrl, BookingIds ids) {
+            LocalDate today = LocalDate.now();
+            return HttpRequest.newBuilder(URI.create(baseUrl + "/availabilities?startDate=" + today + "&endDate=" + today.plusMonths(1))).GET().build();
+        }
+    };
+
+    private final String mixName;
+
+    Operation(String mixName) {
+        this.mixName = mixName;
+    }
+
+    abstract HttpRequest request(String baseUrl, BookingIds ids);
+
+    public String getMixName() {
+        return mixName;
+    }
+
+    static Operation fromName(String name) {
+        for (Operation operation : values()) {
+            if (operation.mixName.equals(name)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation in loadtest.mix: " + name);
+    }
+
+    private static HttpRequest.Builder json(URI uri) {
+        return HttpRequest.newBuilder(uri).header("Content-Type", "application/json");
+    }
+
+    private static String randomBooking() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LocalDate arrivalDate = LocalDate.now().plusDays(1 + random.nextInt(27));
+        LocalDate departureDate = arrivalDate.plusDays(1 + random.nextInt(3));
+        return "{\"firstName\":\"Load\",\"lastName\":\"Test\",\"email\":\"load" + random.nextInt(100_000) + "@test.com\","
+                + "\"arrivalDate\":\"" + arrivalDate + "\",\"departureDate\":\"" + departureDate + "\"}";
+    }
+}
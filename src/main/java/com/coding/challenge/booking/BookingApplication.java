@@ -2,6 +2,9 @@ package com.coding.challenge.booking;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Bean;
+
+import java.time.Clock;
 
 @SpringBootApplication
 public class BookingApplication {
@@ -10,4 +13,9 @@ public class BookingApplication {
 		SpringApplication.run(BookingApplication.class, args);
 	}
 
+	@Bean
+	public Clock clock() {
+		return Clock.systemDefaultZone();
+	}
+
 }
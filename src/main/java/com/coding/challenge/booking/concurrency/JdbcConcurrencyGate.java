@@ -0,0 +1,106 @@
+package com.coding.challenge.booking.concurrency;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Limits how many threads hold a JDBC connection at once. With virtual threads there is no request thread pool
+ * to bound concurrency, so thousands of requests could otherwise pile into the connection pool's wait queue;
+ * here they park cheaply on a fair semaphore instead and give up after the configured timeout.
+ */
+public class JdbcConcurrencyGate extends DelegatingDataSource implements MeterBinder {
+
+    private final String name;
+    private final Semaphore permits;
+    private final long timeoutMillis;
+
+    public JdbcConcurrencyGate(DataSource dataSource, String name, int maxConcurrency, long timeoutMillis) {
+        super(dataSource);
+        this.name = name;
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        Gauge.builder("booking.jdbc.gate.waiting", permits, Semaphore::getQueueLength)
+                .description("Threads waiting for a JDBC concurrency permit")
+                .tag("name", name)
+                .register(meterRegistry);
+        Gauge.builder("booking.jdbc.gate.available", permits, Semaphore::availablePermits)
+                .description("JDBC concurrency permits not in use")
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return releasingOnClose(super.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return releasingOnClose(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void acquire() throws SQLException {
+        try {
+            if (!permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException("No JDBC concurrency permit available within " + timeoutMillis + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a JDBC concurrency permit", e);
+        }
+    }
+
+    private Connection releasingOnClose(Connection connection) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+            if ("close".equals(method.getName()) && released.compareAndSet(false, true)) {
+                try {
+                    connection.close();
+                } finally {
+                    permits.release();
+                }
+                return null;
+            }
+
+            if ("unwrap".equals(method.getName()) || "isWrapperFor".equals(method.getName())) {
+                if (((Class<?>) args[0]).isInstance(proxy)) {
+                    return "unwrap".equals(method.getName()) ? proxy : true;
+                }
+            }
+
+            try {
+                return method.invoke(connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        });
+    }
+}
@@ -0,0 +1,79 @@
+package com.coding.challenge.booking.concurrency;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Opt-in mode (booking.threads.virtual=true) that runs Tomcat request handling and async MVC work on virtual
+ * threads. Requires a JDK 21+ runtime; the executor is looked up reflectively because the code base still
+ * targets Java 11. The application's DataSource is wrapped in a {@link JdbcConcurrencyGate} so the unbounded
+ * number of request threads cannot overrun the connection pool. Only that bean is gated: pools it routes to, such
+ * as the primary and replica pools, would otherwise take a second permit per connection and share one budget.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "booking.threads.virtual", havingValue = "true")
+public class VirtualThreadConfiguration {
+
+    private static final String GATED_DATA_SOURCE = "dataSource";
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("booking.threads.virtual requires a JDK 21+ runtime, running on " + Runtime.version(), e);
+        }
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(ExecutorService virtualThreadExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+    }
+
+    @Bean
+    public WebMvcConfigurer virtualThreadAsyncSupport(ExecutorService virtualThreadExecutor) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+                configurer.setTaskExecutor(new TaskExecutorAdapter(virtualThreadExecutor));
+            }
+        };
+    }
+
+    @Bean
+    public static BeanPostProcessor jdbcConcurrencyGatePostProcessor(Environment environment) {
+        int maxConcurrency = environment.getProperty("booking.jdbc.max-concurrency", Integer.class,
+                environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10));
+        long timeoutMillis = environment.getProperty("booking.jdbc.acquire-timeout-ms", Long.class, 5000L);
+
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (GATED_DATA_SOURCE.equals(beanName) && bean instanceof DataSource && !(bean instanceof JdbcConcurrencyGate)) {
+                    return new JdbcConcurrencyGate((DataSource) bean, beanName, maxConcurrency, timeoutMillis);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder jdbcConcurrencyGateMetrics(ObjectProvider<DataSource> dataSources) {
+        return meterRegistry -> dataSources.orderedStream()
+                .filter(JdbcConcurrencyGate.class::isInstance)
+                .forEach(gate -> ((JdbcConcurrencyGate) gate).bindTo(meterRegistry));
+    }
+}
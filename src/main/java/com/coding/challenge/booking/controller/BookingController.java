@@ -1,20 +1,52 @@
 package com.coding.challenge.booking.controller;
 
+import com.coding.challenge.booking.error.exception.BookingNotFoundException;
+import com.coding.challenge.booking.error.exception.BookingQueueFullException;
 import com.coding.challenge.booking.error.exception.BookingValidationException;
+import com.coding.challenge.booking.etag.BookingVersionCache;
+import com.coding.challenge.booking.etag.ETags;
+import com.coding.challenge.booking.hold.HoldService;
+import com.coding.challenge.booking.input.AvailabilityFormat;
 import com.coding.challenge.booking.input.BookingInput;
+import com.coding.challenge.booking.lock.ReservationLock;
+import com.coding.challenge.booking.metrics.BookingMetrics;
+import com.coding.challenge.booking.output.BookingBatchResultOutput;
+import com.coding.challenge.booking.output.BookingHandleOutput;
 import com.coding.challenge.booking.output.BookingOutput;
+import com.coding.challenge.booking.output.BookingPageOutput;
+import com.coding.challenge.booking.output.HoldOutput;
+import com.coding.challenge.booking.sequencer.BookingSequencer;
+import com.coding.challenge.booking.service.BookingBatchService;
 import com.coding.challenge.booking.service.BookingService;
+import com.coding.challenge.booking.service.ConflictRetryPolicy;
 import com.coding.challenge.booking.validation.BookingValidator;
+import com.coding.challenge.booking.writebehind.WriteBehindBookingPipeline;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @RestController
 @RequestMapping("/v1/booking")
@@ -23,13 +55,87 @@ public class BookingController {
     @Autowired
     private BookingService bookingService;
 
+    @Autowired
+    private BookingBatchService bookingBatchService;
+
+    @Autowired
+    private HoldService holdService;
+
     @Autowired
     private BookingValidator bookingValidator;
 
+    @Autowired
+    private ConflictRetryPolicy conflictRetryPolicy;
+
+    @Autowired
+    private BookingVersionCache bookingVersionCache;
+
+    @Autowired
+    private ReservationLock reservationLock;
+
+    @Autowired
+    private ObjectMapper jsonMapper;
+
+    @Autowired(required = false)
+    private WriteBehindBookingPipeline writeBehindPipeline;
+
+    @Value("${booking.availability.stream-threshold-days:366}")
+    private int streamThresholdDays;
+
+    @Autowired(required = false)
+    private BookingSequencer bookingSequencer;
+
+    @Value("${booking.sequencer.await-timeout-ms:10000}")
+    private long sequencerAwaitTimeoutMillis;
+
     @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<BookingOutput> createBooking(@Valid @RequestBody BookingInput input) throws Exception {
+    public ResponseEntity<?> createBooking(@Valid @RequestBody BookingInput input) throws Exception {
+        bookingValidator.validateInput(input);
+        if (writeBehindPipeline != null) {
+            BookingHandleOutput handle = writeBehindPipeline.submit(input);
+            return ResponseEntity.accepted().location(URI.create("/v1/booking/handles/" + handle.getHandle())).body(handle);
+        }
+        if (bookingSequencer != null) {
+            return new ResponseEntity<>(await(bookingSequencer.create(input)), HttpStatus.CREATED);
+        }
+        return new ResponseEntity<>(conflictRetryPolicy.execute(BookingMetrics.OPERATION_CREATE, () -> bookingService.createBooking(input)), HttpStatus.CREATED);
+    }
+
+    @GetMapping(path = "/handles/{handle}")
+    public ResponseEntity<BookingHandleOutput> getBookingHandle(@PathVariable String handle) throws Exception {
+        if (writeBehindPipeline == null) {
+            throw new BookingNotFoundException();
+        }
+        return new ResponseEntity<>(writeBehindPipeline.getStatus(handle), HttpStatus.OK);
+    }
+
+    @PostMapping(path = "/holds", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<HoldOutput> createHold(@Valid @RequestBody BookingInput input) throws Exception {
         bookingValidator.validateInput(input);
-        return new ResponseEntity<>(bookingService.createBooking(input), HttpStatus.CREATED);
+        HoldOutput hold = holdService.createHold(input);
+        return ResponseEntity.created(URI.create("/v1/booking/holds/" + hold.getHoldId())).body(hold);
+    }
+
+    @GetMapping(path = "/holds/{holdId}")
+    public ResponseEntity<HoldOutput> getHold(@PathVariable String holdId) throws Exception {
+        return new ResponseEntity<>(holdService.getHold(holdId), HttpStatus.OK);
+    }
+
+    @PostMapping(path = "/holds/{holdId}/confirm", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BookingOutput> confirmHold(@PathVariable String holdId) throws Exception {
+        return new ResponseEntity<>(holdService.confirmHold(holdId), HttpStatus.CREATED);
+    }
+
+    @DeleteMapping(path = "/holds/{holdId}")
+    public ResponseEntity<Void> releaseHold(@PathVariable String holdId) throws Exception {
+        holdService.releaseHold(holdId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping(path = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<BookingBatchResultOutput>> createBookings(@RequestBody List<BookingInput> inputs) throws Exception {
+        bookingValidator.validateBatch(inputs);
+        return new ResponseEntity<>(bookingBatchService.createBookings(inputs), HttpStatus.OK);
     }
 
     @GetMapping
@@ -37,27 +143,73 @@ public class BookingController {
         return new ResponseEntity<>(bookingService.getAllBookings(), HttpStatus.OK);
     }
 
+    @GetMapping(params = "limit")
+    public ResponseEntity<BookingPageOutput> getBookingsPage(@RequestParam(value = "limit") int limit,
+                                                             @RequestParam(value = "cursor", required = false) String cursor) throws Exception {
+        bookingValidator.validatePageRequest(limit);
+        return new ResponseEntity<>(bookingService.getBookingsPage(cursor, limit), HttpStatus.OK);
+    }
+
+    @GetMapping(path = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllBookings() {
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = jsonMapper.getFactory().createGenerator(outputStream)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+                bookingService.streamAllBookings(output -> writeLine(generator, output));
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
     @PutMapping(path = "/{id}")
     public ResponseEntity<BookingOutput> updateBooking(@PathVariable long id, @Valid @RequestBody BookingInput input) throws Exception {
         bookingValidator.validateInput(input);
-        return new ResponseEntity<>(bookingService.updateBooking(id, input), HttpStatus.OK);
+        if (bookingSequencer != null) {
+            return new ResponseEntity<>(await(bookingSequencer.update(id, input)), HttpStatus.OK);
+        }
+        return new ResponseEntity<>(conflictRetryPolicy.execute(BookingMetrics.OPERATION_UPDATE, () -> bookingService.updateBooking(id, input)), HttpStatus.OK);
     }
 
     @GetMapping(path = "/{id}")
-    public ResponseEntity<BookingOutput> getBooking(@PathVariable long id) throws Exception {
-        return new ResponseEntity<>(bookingService.getBooking(id), HttpStatus.OK);
+    public ResponseEntity<BookingOutput> getBooking(@PathVariable long id,
+                                                    @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) throws Exception {
+        Long knownVersion = bookingVersionCache.get(id);
+        if (knownVersion != null && ETags.matches(ifNoneMatch, ETags.ofBooking(id, knownVersion))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(ETags.ofBooking(id, knownVersion)).build();
+        }
+
+        BookingOutput booking = bookingService.getBooking(id);
+        bookingVersionCache.observe(id, booking.getVersion());
+        return ResponseEntity.ok().eTag(ETags.ofBooking(id, booking.getVersion())).body(booking);
     }
 
     @DeleteMapping(path = "/{id}")
     public ResponseEntity<Void> deleteBooking(@PathVariable long id) throws Exception {
-        bookingService.deleteBooking(id);
+        if (bookingSequencer != null) {
+            await(bookingSequencer.delete(id));
+        } else {
+            conflictRetryPolicy.execute(BookingMetrics.OPERATION_DELETE, () -> {
+                bookingService.deleteBooking(id);
+                return null;
+            });
+        }
         return ResponseEntity.noContent().build();
     }
 
 
+    /**
+     * Answers for one resource in the requested format: one date per free night, free ranges, or a bitmap of free
+     * nights. Windows wider than {@code booking.availability.stream-threshold-days} in the dates format are written
+     * out in chunks of that size instead of being built in memory. No ETag is given when the reservation lock is
+     * distributed, since the occupancy version only counts this instance's changes.
+     */
     @GetMapping(path = "/availabilities")
-    public ResponseEntity<List<LocalDate>> getAvailableDates(@RequestParam(value = "startDate") @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate startDate,
-                                                             @RequestParam(value = "endDate") @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endDate) throws Exception {
+    public ResponseEntity<?> getAvailableDates(@RequestParam(value = "startDate") @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate startDate,
+                                               @RequestParam(value = "endDate") @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endDate,
+                                               @RequestParam(value = "resourceId", defaultValue = "1") long resourceId,
+                                               @RequestParam(value = "format", defaultValue = "dates") String format,
+                                               @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) throws Exception {
         if (startDate == null) {
             startDate = LocalDate.now();
         }
@@ -67,6 +219,95 @@ public class BookingController {
         }
 
         bookingValidator.validateAvailabilitiesDate(startDate, endDate);
-        return new ResponseEntity<>(bookingService.getAvailableDates(startDate, endDate), HttpStatus.OK);
+        bookingValidator.validateResource(resourceId);
+        AvailabilityFormat availabilityFormat = AvailabilityFormat.of(format);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (!reservationLock.isDistributed()) {
+            String etag = ETags.ofOccupancy(bookingService.getOccupancyVersion(resourceId));
+            if (ETags.matches(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+            response.eTag(etag);
+        }
+        switch (availabilityFormat) {
+            case RANGES:
+                return response.body(bookingService.getAvailableRanges(resourceId, startDate, endDate));
+            case BITMAP:
+                return response.body(bookingService.getAvailabilityBitmap(resourceId, startDate, endDate));
+            default:
+                if (ChronoUnit.DAYS.between(startDate, endDate) <= streamThresholdDays) {
+                    return response.body(bookingService.getAvailableDates(resourceId, startDate, endDate));
+                }
+                return response.body(streamAvailableDates(resourceId, startDate, endDate));
+        }
+    }
+
+    /**
+     * Resources that are free for every night from the start date up to the end date.
+     */
+    @GetMapping(path = "/availabilities/resources")
+    public ResponseEntity<List<Long>> getAvailableResources(@RequestParam(value = "startDate") @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate startDate,
+                                                            @RequestParam(value = "endDate") @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endDate) throws Exception {
+        bookingValidator.validateAvailabilitiesDate(startDate, endDate);
+        return new ResponseEntity<>(bookingService.getAvailableResources(startDate, endDate), HttpStatus.OK);
+    }
+
+    /**
+     * Body that Jackson writes straight to the response, pulling one chunk of dates at a time.
+     */
+    private JsonSerializable streamAvailableDates(long resourceId, LocalDate startDate, LocalDate endDate) {
+        return new JsonSerializable.Base() {
+            @Override
+            public void serialize(JsonGenerator generator, SerializerProvider serializers) throws IOException {
+                generator.writeStartArray();
+                bookingService.streamAvailableDates(resourceId, startDate, endDate, streamThresholdDays, date -> writeDate(generator, date));
+                generator.writeEndArray();
+            }
+
+            @Override
+            public void serializeWithType(JsonGenerator generator, SerializerProvider serializers, TypeSerializer typeSerializer) throws IOException {
+                serialize(generator, serializers);
+            }
+        };
+    }
+
+    /**
+     * Waits for a sequenced mutation. One still queued after {@code booking.sequencer.await-timeout-ms} is cancelled,
+     * so the 503 means it was never applied and may be retried. One the writer has already taken may be committing,
+     * so its outcome is waited for instead.
+     */
+    private <T> T await(CompletableFuture<T> result) throws Exception {
+        try {
+            try {
+                return result.get(sequencerAwaitTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (result.cancel(false)) {
+                    throw new BookingQueueFullException();
+                }
+                return result.get();
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static void writeDate(JsonGenerator generator, LocalDate date) {
+        try {
+            generator.writeString(date.toString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeLine(JsonGenerator generator, BookingOutput output) {
+        try {
+            jsonMapper.writeValue(generator, output);
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 }
@@ -1,19 +1,41 @@
 package com.coding.challenge.booking.entity;
 
+import com.coding.challenge.booking.occupancy.DateRange;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 
 @Entity(name = "booking")
+@Table(indexes = @Index(name = "idx_booking_arrival_departure", columnList = "arrival_date, departure_date"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "booking")
 @Data
 public class BookingEntity {
 
     @Column
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "hibernate_sequence")
+    @GenericGenerator(name = "hibernate_sequence", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator", parameters = {
+            @Parameter(name = "sequence_name", value = "hibernate_sequence"),
+            @Parameter(name = "increment_size", value = "50"),
+            @Parameter(name = "optimizer", value = "pooled-lo")
+    })
     private Long id;
 
+    @Column(name = "resource_id", nullable = false)
+    @ColumnDefault("1")
+    private Long resourceId = DateRange.DEFAULT_RESOURCE_ID;
+
     @Column
     private String email;
 
@@ -31,4 +53,12 @@ public class BookingEntity {
 
     @Version
     private Long version;
+
+    @Column(unique = true)
+    private String handle;
+
+    @OneToMany(mappedBy = "booking", cascade = CascadeType.ALL, orphanRemoval = true)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private List<BookingNightEntity> nights = new ArrayList<>();
 }
@@ -0,0 +1,52 @@
+package com.coding.challenge.booking.entity;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+
+@Entity(name = "booking_night")
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_booking_night_resource_night", columnNames = {"resource_id", "night"}))
+@Data
+@NoArgsConstructor
+public class BookingNightEntity {
+
+    @Column
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "hibernate_sequence")
+    @GenericGenerator(name = "hibernate_sequence", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator", parameters = {
+            @Parameter(name = "sequence_name", value = "hibernate_sequence"),
+            @Parameter(name = "increment_size", value = "50"),
+            @Parameter(name = "optimizer", value = "pooled-lo")
+    })
+    private Long id;
+
+    @Column(name = "resource_id", nullable = false)
+    @ColumnDefault("1")
+    private Long resourceId;
+
+    @Column(nullable = false)
+    private LocalDate night;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "booking_id", nullable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private BookingEntity booking;
+
+    public BookingNightEntity(BookingEntity booking, LocalDate night) {
+        this(booking, booking.getResourceId(), night);
+    }
+
+    public BookingNightEntity(BookingEntity booking, long resourceId, LocalDate night) {
+        this.booking = booking;
+        this.resourceId = resourceId;
+        this.night = night;
+    }
+}
@@ -0,0 +1,40 @@
+package com.coding.challenge.booking.entity;
+
+import lombok.Data;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * One row per resource night currently locked by {@link com.coding.challenge.booking.lock.JdbcReservationLock}. Only
+ * mapped so the schema is generated alongside the booking tables; the lock reads and writes it through plain JDBC.
+ */
+@Entity(name = "reservation_lease")
+@Table(indexes = @Index(name = "idx_reservation_lease_holder", columnList = "holder"))
+@IdClass(ReservationLeaseEntity.Key.class)
+@Data
+public class ReservationLeaseEntity {
+
+    @Column(name = "resource_id")
+    @Id
+    private Long resourceId;
+
+    @Column
+    @Id
+    private LocalDate night;
+
+    @Column(nullable = false, length = 64)
+    private String holder;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    @Data
+    public static class Key implements Serializable {
+
+        private Long resourceId;
+        private LocalDate night;
+    }
+}
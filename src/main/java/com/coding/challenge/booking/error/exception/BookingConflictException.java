@@ -0,0 +1,8 @@
+package com.coding.challenge.booking.error.exception;
+
+public class BookingConflictException extends Exception {
+
+    public BookingConflictException() {
+        super("Booking was modified by another request. Please try again.", null, false, false);
+    }
+}
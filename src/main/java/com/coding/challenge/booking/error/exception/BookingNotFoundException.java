@@ -3,6 +3,6 @@ package com.coding.challenge.booking.error.exception;
 public class BookingNotFoundException extends Exception {
 
     public BookingNotFoundException() {
-        super("Booking not found");
+        super("Booking not found", null, false, false);
     }
 }
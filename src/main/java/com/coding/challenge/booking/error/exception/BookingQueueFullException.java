@@ -0,0 +1,8 @@
+package com.coding.challenge.booking.error.exception;
+
+public class BookingQueueFullException extends Exception {
+
+    public BookingQueueFullException() {
+        super("Too many bookings are waiting to be saved. Please try again later.", null, false, false);
+    }
+}
@@ -12,6 +12,7 @@ public class BookingValidationException extends Exception {
     private List<String> errors;
 
     public BookingValidationException(List<String> errors) {
+        super(null, null, false, false);
         this.errors = errors;
     }
 }
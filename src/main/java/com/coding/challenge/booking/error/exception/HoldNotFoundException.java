@@ -0,0 +1,8 @@
+package com.coding.challenge.booking.error.exception;
+
+public class HoldNotFoundException extends Exception {
+
+    public HoldNotFoundException() {
+        super("Hold not found or expired", null, false, false);
+    }
+}
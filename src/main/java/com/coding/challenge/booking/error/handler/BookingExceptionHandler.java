@@ -1,29 +1,70 @@
 package com.coding.challenge.booking.error.handler;
 
+import com.coding.challenge.booking.error.exception.BookingConflictException;
 import com.coding.challenge.booking.error.exception.BookingNotFoundException;
+import com.coding.challenge.booking.error.exception.BookingQueueFullException;
 import com.coding.challenge.booking.error.exception.BookingSavingException;
 import com.coding.challenge.booking.error.exception.BookingValidationException;
+import com.coding.challenge.booking.error.exception.HoldNotFoundException;
 import com.coding.challenge.booking.output.ErrorOutput;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
-import java.util.Objects;
+import javax.persistence.OptimisticLockException;
+import java.time.LocalDate;
+import java.util.List;
 
+/**
+ * Errors with a fixed message are answered with bodies encoded once at startup, so rejecting a request does
+ * not pay for serialization.
+ */
 @RestControllerAdvice
 public class BookingExceptionHandler {
 
+    private static final ObjectMapper ERROR_MAPPER = new ObjectMapper();
+
+    private static final byte[] BOOKING_NOT_FOUND = encode(new BookingNotFoundException().getMessage());
+    private static final byte[] HOLD_NOT_FOUND = encode(new HoldNotFoundException().getMessage());
+    private static final byte[] BOOKING_CONFLICT = encode(new BookingConflictException().getMessage());
+    private static final byte[] BOOKING_QUEUE_FULL = encode(new BookingQueueFullException().getMessage());
+    private static final byte[] BOOKING_SAVING_FAILED = encode(new BookingSavingException().getMessage());
+    private static final byte[] INVALID_ARRIVAL_DATE = encode("Arrival date must be in yyyy-mm-dd format");
+    private static final byte[] INVALID_DEPARTURE_DATE = encode("Departure date must be in yyyy-mm-dd format");
+    private static final byte[] INVALID_START_OR_END_DATE = encode("Start date and end date must be in yyyy-mm-dd format");
+    private static final byte[] UNABLE_TO_PROCESS = encode("Unable to process booking request");
+
     @ExceptionHandler(BookingNotFoundException.class)
-    public ResponseEntity<ErrorOutput> handleBookingNotFoundException(BookingNotFoundException e) {
-        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ErrorOutput(e.getMessage(), null));
+    public ResponseEntity<byte[]> handleBookingNotFoundException(BookingNotFoundException e) {
+        return respond(HttpStatus.NOT_FOUND, BOOKING_NOT_FOUND);
+    }
+
+    @ExceptionHandler(HoldNotFoundException.class)
+    public ResponseEntity<byte[]> handleHoldNotFoundException(HoldNotFoundException e) {
+        return respond(HttpStatus.NOT_FOUND, HOLD_NOT_FOUND);
+    }
+
+    @ExceptionHandler({BookingConflictException.class, OptimisticLockingFailureException.class, OptimisticLockException.class})
+    public ResponseEntity<byte[]> handleBookingConflictException(Exception e) {
+        return respond(HttpStatus.CONFLICT, BOOKING_CONFLICT);
+    }
+
+    @ExceptionHandler(BookingQueueFullException.class)
+    public ResponseEntity<byte[]> handleBookingQueueFullException(BookingQueueFullException e) {
+        return respond(HttpStatus.SERVICE_UNAVAILABLE, BOOKING_QUEUE_FULL);
     }
 
     @ExceptionHandler(BookingSavingException.class)
-    public ResponseEntity<ErrorOutput> handleBookingSavingException(BookingSavingException e) {
-        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new ErrorOutput(e.getMessage(), null));
+    public ResponseEntity<byte[]> handleBookingSavingException(BookingSavingException e) {
+        return respond(HttpStatus.INTERNAL_SERVER_ERROR, BOOKING_SAVING_FAILED);
     }
 
     @ExceptionHandler(BookingValidationException.class)
@@ -32,29 +73,46 @@ public class BookingExceptionHandler {
     }
 
     @ExceptionHandler(HttpMessageNotReadableException.class)
-    public ResponseEntity<ErrorOutput> handleHttpMessageNotReadableException(HttpMessageNotReadableException e) {
-        if (Objects.requireNonNull(e.getMessage()).contains("arrivalDate")) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorOutput("Arrival date must be in yyyy-mm-dd format", null));
-        }
+    public ResponseEntity<byte[]> handleHttpMessageNotReadableException(HttpMessageNotReadableException e) {
+        if (e.getCause() instanceof JsonMappingException) {
+            List<JsonMappingException.Reference> path = ((JsonMappingException) e.getCause()).getPath();
+            String field = path.isEmpty() ? null : path.get(path.size() - 1).getFieldName();
+
+            if ("arrivalDate".equals(field)) {
+                return respond(HttpStatus.BAD_REQUEST, INVALID_ARRIVAL_DATE);
+            }
 
-        if (Objects.requireNonNull(e.getMessage()).contains("departureDate")) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorOutput("Departure date must be in yyyy-mm-dd format", null));
+            if ("departureDate".equals(field)) {
+                return respond(HttpStatus.BAD_REQUEST, INVALID_DEPARTURE_DATE);
+            }
         }
 
         return handleGenericException(e);
     }
 
     @ExceptionHandler(MethodArgumentTypeMismatchException.class)
-    public ResponseEntity<ErrorOutput> handleMethodArgumentTypeMismatchException(MethodArgumentTypeMismatchException e) {
-        if (Objects.requireNonNull(e.getMessage()).contains("Failed to convert value of type 'java.lang.String' to required type 'java.time.LocalDate")) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorOutput("Start date and end date must be in yyyy-mm-dd format", null));
+    public ResponseEntity<byte[]> handleMethodArgumentTypeMismatchException(MethodArgumentTypeMismatchException e) {
+        if (LocalDate.class.equals(e.getRequiredType())) {
+            return respond(HttpStatus.BAD_REQUEST, INVALID_START_OR_END_DATE);
         }
 
         return handleGenericException(e);
     }
 
     @ExceptionHandler(Exception.class)
-    public ResponseEntity<ErrorOutput> handleGenericException(Exception e) {
-        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new ErrorOutput("Unable to process booking request", null));
+    public ResponseEntity<byte[]> handleGenericException(Exception e) {
+        return respond(HttpStatus.INTERNAL_SERVER_ERROR, UNABLE_TO_PROCESS);
+    }
+
+    private static ResponseEntity<byte[]> respond(HttpStatus status, byte[] body) {
+        return ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    private static byte[] encode(String errorMessage) {
+        try {
+            return ERROR_MAPPER.writeValueAsBytes(new ErrorOutput(errorMessage, null));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
     }
 }
@@ -0,0 +1,19 @@
+package com.coding.challenge.booking.etag;
+
+import lombok.Value;
+
+@Value
+public class BookingChangedEvent {
+
+    long bookingId;
+    /** Version after the change, or null once the booking is deleted. */
+    Long version;
+
+    public static BookingChangedEvent updated(long bookingId, long version) {
+        return new BookingChangedEvent(bookingId, version);
+    }
+
+    public static BookingChangedEvent deleted(long bookingId) {
+        return new BookingChangedEvent(bookingId, null);
+    }
+}
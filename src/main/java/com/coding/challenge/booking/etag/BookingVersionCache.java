@@ -0,0 +1,50 @@
+package com.coding.challenge.booking.etag;
+
+import com.coding.challenge.booking.lock.ReservationLock;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Last known version of recently read bookings, so a conditional GET can be answered without the database.
+ * Versions only ever move forward, and a deleted booking keeps a tombstone, so a read that raced a committed
+ * change cannot put an older version back. Bookings written by other instances are not seen here, so nothing
+ * is answered from memory when the reservation lock is distributed.
+ */
+@Component
+public class BookingVersionCache {
+
+    private static final long DELETED = Long.MAX_VALUE;
+
+    private final Cache<Long, Long> versions;
+
+    @Autowired
+    private ReservationLock reservationLock;
+
+    public BookingVersionCache(@Value("${booking.etag.maximum-size:100000}") long maximumSize) {
+        this.versions = Caffeine.newBuilder().maximumSize(maximumSize).build();
+    }
+
+    /**
+     * @return the current version of the booking, or null when it is unknown or the booking was deleted
+     */
+    public Long get(long bookingId) {
+        if (reservationLock.isDistributed()) {
+            return null;
+        }
+        Long version = versions.getIfPresent(bookingId);
+        return version == null || version == DELETED ? null : version;
+    }
+
+    public void observe(long bookingId, long version) {
+        versions.asMap().merge(bookingId, version, Math::max);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        observe(event.getBookingId(), event.getVersion() == null ? DELETED : event.getVersion());
+    }
+}
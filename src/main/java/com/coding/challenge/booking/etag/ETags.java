@@ -0,0 +1,40 @@
+package com.coding.challenge.booking.etag;
+
+/**
+ * Entity tags for booking and availability responses. Booking tags come from the row's id and version, so they
+ * stay valid across restarts; occupancy versions restart at zero, so their tags also carry a token of this run.
+ */
+public final class ETags {
+
+    private static final String RUN = Long.toString(System.currentTimeMillis(), 36);
+
+    private ETags() {
+    }
+
+    public static String ofBooking(long id, long version) {
+        return "\"" + id + "-" + version + "\"";
+    }
+
+    public static String ofOccupancy(long version) {
+        return "\"" + RUN + "-" + version + "\"";
+    }
+
+    /**
+     * Weak comparison of an {@code If-None-Match} header against a tag, as RFC 7232 prescribes for that header.
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
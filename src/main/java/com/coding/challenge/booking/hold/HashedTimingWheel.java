@@ -0,0 +1,104 @@
+package com.coding.challenge.booking.hold;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hashed timing wheel: a timeout due at tick {@code d} is linked into bucket {@code d & mask}, so scheduling and
+ * cancelling are O(1) and each tick only walks the one bucket that can contain due timeouts. Timeouts more than one
+ * revolution away share that bucket and are skipped until their tick comes round.
+ */
+final class HashedTimingWheel<T> {
+
+    private final Timeout<T>[] buckets;
+    private final int mask;
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    HashedTimingWheel(int wheelSize) {
+        if (Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("booking.holds.wheel-size must be a power of two");
+        }
+
+        this.buckets = (Timeout<T>[]) new Timeout<?>[wheelSize];
+        this.mask = wheelSize - 1;
+    }
+
+    synchronized Timeout<T> schedule(T element, long delayTicks) {
+        Timeout<T> timeout = new Timeout<>(element, currentTick + Math.max(1, delayTicks));
+        int bucket = (int) (timeout.deadline & mask);
+        timeout.next = buckets[bucket];
+        if (timeout.next != null) {
+            timeout.next.previous = timeout;
+        }
+        buckets[bucket] = timeout;
+        timeout.scheduled = true;
+        size++;
+        return timeout;
+    }
+
+    /**
+     * @return whether the timeout was still pending, i.e. it had neither expired nor been cancelled before
+     */
+    synchronized boolean cancel(Timeout<T> timeout) {
+        if (!timeout.scheduled) {
+            return false;
+        }
+        unlink(timeout);
+        return true;
+    }
+
+    /**
+     * Advances the wheel by one tick.
+     *
+     * @return the elements whose timeouts came due, in no particular order
+     */
+    synchronized List<T> tick() {
+        currentTick++;
+        List<T> expired = new ArrayList<>();
+        Timeout<T> timeout = buckets[(int) (currentTick & mask)];
+        while (timeout != null) {
+            Timeout<T> next = timeout.next;
+            if (timeout.deadline <= currentTick) {
+                unlink(timeout);
+                expired.add(timeout.element);
+            }
+            timeout = next;
+        }
+        return expired;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    private void unlink(Timeout<T> timeout) {
+        if (timeout.previous != null) {
+            timeout.previous.next = timeout.next;
+        } else {
+            buckets[(int) (timeout.deadline & mask)] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.previous = timeout.previous;
+        }
+        timeout.previous = null;
+        timeout.next = null;
+        timeout.scheduled = false;
+        size--;
+    }
+
+    static final class Timeout<T> {
+
+        private final T element;
+        private final long deadline;
+        private Timeout<T> previous;
+        private Timeout<T> next;
+        private boolean scheduled;
+
+        private Timeout(T element, long deadline) {
+            this.element = element;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.coding.challenge.booking.hold;
+
+import com.coding.challenge.booking.entity.BookingEntity;
+import com.coding.challenge.booking.error.exception.BookingConflictException;
+import com.coding.challenge.booking.error.exception.BookingSavingException;
+import com.coding.challenge.booking.error.exception.BookingValidationException;
+import com.coding.challenge.booking.error.exception.HoldNotFoundException;
+import com.coding.challenge.booking.input.BookingInput;
+import com.coding.challenge.booking.lock.ReservationLock;
+import com.coding.challenge.booking.mapper.BookingMapper;
+import com.coding.challenge.booking.metrics.BookingMetrics;
+import com.coding.challenge.booking.occupancy.AvailabilityCache;
+import com.coding.challenge.booking.occupancy.DateRange;
+import com.coding.challenge.booking.occupancy.OccupancyIndex;
+import com.coding.challenge.booking.output.BookingOutput;
+import com.coding.challenge.booking.output.HoldOutput;
+import com.coding.challenge.booking.persistance.BookingNightConstraint;
+import com.coding.challenge.booking.persistance.BookingNightRepository;
+import com.coding.challenge.booking.service.BookingService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds block the nights of a booking request for {@code booking.holds.ttl-seconds} until they are confirmed into a
+ * booking, released, or expire. Held nights are reserved in the {@link OccupancyIndex}, so every availability and
+ * conflict check already treats them as occupied. Expiry runs on a {@link HashedTimingWheel} advanced every
+ * {@code booking.holds.tick-ms}, so a hold expires at most one tick late and tracking it costs O(1) however many
+ * holds are open. When the reservation lock is distributed, the index does not know bookings of other instances,
+ * so {@code booking_night} is checked as well while the lease is held.
+ */
+@Service
+public class HoldService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HoldService.class);
+
+    private static final List<String> DATES_NOT_AVAILABLE = List.of("Booking dates not available");
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private OccupancyIndex occupancyIndex;
+
+    @Autowired
+    private AvailabilityCache availabilityCache;
+
+    @Autowired
+    private ReservationLock reservationLock;
+
+    @Autowired
+    private BookingNightRepository bookingNightRepository;
+
+    @Autowired
+    private BookingMetrics bookingMetrics;
+
+    @Autowired
+    private Clock clock;
+
+    private final Map<String, Hold> holds = new ConcurrentHashMap<>();
+    private final HashedTimingWheel<Hold> wheel;
+    private final Duration ttl;
+    private final long tickMillis;
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "booking-hold-expiry");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Counter confirmedCounter;
+    private final Counter releasedCounter;
+    private final Counter expiredCounter;
+
+    public HoldService(MeterRegistry meterRegistry,
+                       @Value("${booking.holds.ttl-seconds:300}") long ttlSeconds,
+                       @Value("${booking.holds.tick-ms:100}") long tickMillis,
+                       @Value("${booking.holds.wheel-size:4096}") int wheelSize) {
+        if (tickMillis < 1) {
+            throw new IllegalArgumentException("booking.holds.tick-ms must be at least 1");
+        }
+
+        this.wheel = new HashedTimingWheel<>(wheelSize);
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+        this.tickMillis = tickMillis;
+        Gauge.builder("booking.holds.active", holds, Map::size).description("Holds waiting to be confirmed or to expire").register(meterRegistry);
+        this.confirmedCounter = holdCounter(meterRegistry, "confirmed");
+        this.releasedCounter = holdCounter(meterRegistry, "released");
+        this.expiredCounter = holdCounter(meterRegistry, "expired");
+    }
+
+    @PostConstruct
+    public void start() {
+        ticker.scheduleAtFixedRate(this::expireDueHolds, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        ticker.shutdownNow();
+    }
+
+    public HoldOutput createHold(BookingInput input) throws BookingValidationException, BookingConflictException, BookingSavingException {
+        DateRange dates = BookingMapper.INSTANCE.mapInputToDateRange(input);
+        ReservationLock.Lease lease = reservationLock.lock(dates);
+        try {
+            if (isBookedElsewhere(dates) || !occupancyIndex.tryReserve(dates)) {
+                bookingMetrics.recordConflict(BookingMetrics.OPERATION_HOLD, BookingMetrics.REASON_DATES_UNAVAILABLE);
+                throw new BookingValidationException(DATES_NOT_AVAILABLE);
+            }
+        } finally {
+            lease.close();
+        }
+        availabilityCache.invalidate(dates);
+
+        Hold hold = new Hold(UUID.randomUUID().toString(), input, dates, clock.instant().plus(ttl));
+        schedule(hold, ttl.toMillis());
+        return hold.toOutput();
+    }
+
+    private boolean isBookedElsewhere(DateRange dates) {
+        return reservationLock.isDistributed()
+                && bookingNightRepository.countNightsBetween(dates.getResourceId(), dates.getArrivalDate(), dates.getDepartureDate()) > 0;
+    }
+
+    public HoldOutput getHold(String holdId) throws HoldNotFoundException {
+        Hold hold = holds.get(holdId);
+        if (hold == null) {
+            throw new HoldNotFoundException();
+        }
+        return hold.toOutput();
+    }
+
+    /**
+     * Books the held nights. A hold that cannot be saved for a reason other than its nights being taken is put
+     * back until it expires, so the client can confirm it again.
+     */
+    public BookingOutput confirmHold(String holdId) throws HoldNotFoundException, BookingValidationException {
+        Hold hold = take(holdId);
+        boolean settled = true;
+        try {
+            BookingEntity entity = BookingMapper.INSTANCE.mapInputToEntity(hold.input);
+            BookingOutput output = bookingService.saveReservedBookings(List.of(entity)).get(0);
+            confirmedCounter.increment();
+            return output;
+        } catch (RuntimeException e) {
+            if (e instanceof DataIntegrityViolationException && BookingNightConstraint.isViolatedBy(e)) {
+                bookingMetrics.recordConflict(BookingMetrics.OPERATION_HOLD, BookingMetrics.REASON_DATES_UNAVAILABLE);
+                throw new BookingValidationException(DATES_NOT_AVAILABLE);
+            }
+            long remainingMillis = Duration.between(clock.instant(), hold.expiresAt).toMillis();
+            if (remainingMillis > 0) {
+                settled = false;
+                schedule(hold, remainingMillis);
+            }
+            throw e;
+        } finally {
+            if (settled) {
+                release(hold.dates);
+            }
+        }
+    }
+
+    public void releaseHold(String holdId) throws HoldNotFoundException {
+        Hold hold = take(holdId);
+        release(hold.dates);
+        releasedCounter.increment();
+    }
+
+    private void schedule(Hold hold, long delayMillis) {
+        // registered before it is scheduled, so expiry always finds it; a confirm racing the scheduling
+        // simply leaves a stale timeout behind that expires to nothing
+        holds.put(hold.id, hold);
+        hold.timeout = wheel.schedule(hold, (delayMillis + tickMillis - 1) / tickMillis);
+    }
+
+    private Hold take(String holdId) throws HoldNotFoundException {
+        Hold hold = holds.remove(holdId);
+        if (hold == null) {
+            throw new HoldNotFoundException();
+        }
+        HashedTimingWheel.Timeout<Hold> timeout = hold.timeout;
+        if (timeout != null) {
+            wheel.cancel(timeout);
+        }
+        return hold;
+    }
+
+    private void expireDueHolds() {
+        try {
+            for (Hold hold : wheel.tick()) {
+                if (holds.remove(hold.id, hold)) {
+                    release(hold.dates);
+                    expiredCounter.increment();
+                }
+            }
+        } catch (RuntimeException e) {
+            LOGGER.error("Hold expiry tick failed", e);
+        }
+    }
+
+    private void release(DateRange dates) {
+        occupancyIndex.releaseReservation(dates);
+        availabilityCache.invalidate(dates);
+    }
+
+    private static Counter holdCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("booking.holds").description("Holds settled, by outcome").tag("outcome", outcome).register(meterRegistry);
+    }
+
+    private static final class Hold {
+
+        private final String id;
+        private final BookingInput input;
+        private final DateRange dates;
+        private final Instant expiresAt;
+        private volatile HashedTimingWheel.Timeout<Hold> timeout;
+
+        private Hold(String id, BookingInput input, DateRange dates, Instant expiresAt) {
+            this.id = id;
+            this.input = input;
+            this.dates = dates;
+            this.expiresAt = expiresAt;
+        }
+
+        private HoldOutput toOutput() {
+            return new HoldOutput(id, dates.getResourceId(), dates.getArrivalDate(), dates.getDepartureDate(), expiresAt);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.coding.challenge.booking.input;
+
+import com.coding.challenge.booking.error.exception.BookingValidationException;
+
+import java.util.List;
+
+public enum AvailabilityFormat {
+
+    DATES, RANGES, BITMAP;
+
+    public static AvailabilityFormat of(String format) throws BookingValidationException {
+        for (AvailabilityFormat value : values()) {
+            if (value.name().equalsIgnoreCase(format)) {
+                return value;
+            }
+        }
+        throw new BookingValidationException(List.of("Format must be one of dates, ranges or bitmap"));
+    }
+}
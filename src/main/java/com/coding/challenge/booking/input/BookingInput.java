@@ -10,6 +10,12 @@ import java.time.LocalDate;
 @Data
 public class BookingInput {
 
+    /**
+     * Resource (site) the booking is for. Left out, a new booking goes to the default resource and an updated one
+     * stays where it is.
+     */
+    private Long resourceId;
+
     private String email;
     private String firstName;
     private String lastName;
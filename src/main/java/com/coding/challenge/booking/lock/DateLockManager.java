@@ -0,0 +1,122 @@
+package com.coding.challenge.booking.lock;
+
+import com.coding.challenge.booking.error.exception.BookingConflictException;
+import com.coding.challenge.booking.occupancy.DateRange;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Locks striped by resource and epoch day. A booking locks only the stripes covering its nights, always in
+ * ascending stripe order, so requests for disjoint date ranges never contend and overlapping ones cannot deadlock.
+ * Each resource starts its nights at a different stripe, so the same dates on different resources rarely share one.
+ * The locks live in this JVM only; see {@link JdbcReservationLock} for running several instances.
+ */
+@Component
+@ConditionalOnProperty(name = "booking.lock.provider", havingValue = "local", matchIfMissing = true)
+public class DateLockManager implements ReservationLock {
+
+    private final ReentrantLock[] stripes;
+    private final long timeoutMillis;
+    private final Timer waitTimer;
+    private final Timer holdTimer;
+
+    public DateLockManager(MeterRegistry meterRegistry,
+                           @Value("${booking.lock.stripes:1024}") int stripeCount,
+                           @Value("${booking.lock.timeout-ms:5000}") long timeoutMillis) {
+        if (Integer.bitCount(stripeCount) != 1) {
+            throw new IllegalArgumentException("booking.lock.stripes must be a power of two");
+        }
+
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.timeoutMillis = timeoutMillis;
+        this.waitTimer = Timer.builder("booking.date.lock.wait").description("Time spent waiting for date stripe locks").register(meterRegistry);
+        this.holdTimer = Timer.builder("booking.date.lock.hold").description("Time date stripe locks were held").register(meterRegistry);
+    }
+
+    @Override
+    public Lease lock(DateRange... ranges) throws BookingConflictException {
+        int[] stripeIndexes = stripeIndexesOf(ranges);
+        long waitStart = System.nanoTime();
+        int acquired = 0;
+
+        try {
+            for (; acquired < stripeIndexes.length; acquired++) {
+                if (!stripes[stripeIndexes[acquired]].tryLock(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        long lockedAt = System.nanoTime();
+        waitTimer.record(lockedAt - waitStart, TimeUnit.NANOSECONDS);
+
+        if (acquired < stripeIndexes.length) {
+            unlock(stripeIndexes, acquired);
+            throw new BookingConflictException();
+        }
+
+        return new StripeLease(stripeIndexes, lockedAt);
+    }
+
+    @Override
+    public boolean isDistributed() {
+        return false;
+    }
+
+    private int[] stripeIndexesOf(DateRange... ranges) {
+        BitSet indexes = new BitSet(stripes.length);
+        int mask = stripes.length - 1;
+        for (DateRange range : ranges) {
+            int nights = Math.min(range.getLastNightExclusive() - range.getFirstNight(), stripes.length);
+            int firstStripe = range.getFirstNight() + resourceOffset(range.getResourceId());
+            for (int i = 0; i < nights; i++) {
+                indexes.set((firstStripe + i) & mask);
+            }
+        }
+        return indexes.stream().toArray();
+    }
+
+    private static int resourceOffset(long resourceId) {
+        return (int) ((resourceId * 0x9E3779B97F4A7C15L) >>> 32);
+    }
+
+    private void unlock(int[] stripeIndexes, int count) {
+        for (int i = count - 1; i >= 0; i--) {
+            stripes[stripeIndexes[i]].unlock();
+        }
+    }
+
+    private class StripeLease implements Lease {
+
+        private final int[] stripeIndexes;
+        private final long lockedAt;
+        private boolean released;
+
+        private StripeLease(int[] stripeIndexes, long lockedAt) {
+            this.stripeIndexes = stripeIndexes;
+            this.lockedAt = lockedAt;
+        }
+
+        @Override
+        public void close() {
+            if (released) {
+                return;
+            }
+            released = true;
+            holdTimer.record(System.nanoTime() - lockedAt, TimeUnit.NANOSECONDS);
+            unlock(stripeIndexes, stripeIndexes.length);
+        }
+    }
+}
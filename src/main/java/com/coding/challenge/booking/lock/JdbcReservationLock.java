@@ -0,0 +1,194 @@
+package com.coding.challenge.booking.lock;
+
+import com.coding.challenge.booking.error.exception.BookingConflictException;
+import com.coding.challenge.booking.error.exception.BookingSavingException;
+import com.coding.challenge.booking.occupancy.DateRange;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Locks shared by every instance pointing at the same database, backed by the {@code reservation_lease} table: a
+ * lease owns one row per resource night and is taken with a single multi-row insert, so it either gets all of its nights or
+ * none and contenders simply back off and retry instead of deadlocking. Rows carry an expiry so a crashed instance
+ * cannot keep nights locked for longer than {@code booking.lock.jdbc.lease-ms}. Expiries are computed from the
+ * database clock, the only clock every instance shares. A lease held until its transaction completes is renewed
+ * just before the commit, and the commit fails if the lease has already expired, since its nights may have been
+ * taken over by then.
+ * <p>
+ * The table is written through a small pool of its own: taking a lease while the booking transaction already holds
+ * a connection from the main pool would otherwise let a burst of requests exhaust it waiting on each other.
+ */
+@Component
+@ConditionalOnProperty(name = "booking.lock.provider", havingValue = "jdbc")
+public class JdbcReservationLock implements ReservationLock {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JdbcReservationLock.class);
+
+    private static final long MAX_BACKOFF_MILLIS = 50;
+    private static final String EXPIRES_AT = "timestampadd(microsecond, ?, current_timestamp)";
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private final AtomicLong leaseSequence = new AtomicLong();
+    private final HikariDataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final long timeoutMillis;
+    private final long leaseMillis;
+    private final Timer waitTimer;
+    private final Timer holdTimer;
+
+    public JdbcReservationLock(DataSourceProperties dataSourceProperties, MeterRegistry meterRegistry,
+                               @Value("${booking.lock.timeout-ms:5000}") long timeoutMillis,
+                               @Value("${booking.lock.jdbc.lease-ms:30000}") long leaseMillis,
+                               @Value("${booking.lock.jdbc.pool-size:4}") int poolSize) {
+        this.dataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        this.dataSource.setPoolName("reservation-lock");
+        this.dataSource.setMaximumPoolSize(poolSize);
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.timeoutMillis = timeoutMillis;
+        this.leaseMillis = leaseMillis;
+        this.waitTimer = Timer.builder("booking.date.lock.wait").description("Time spent waiting for date locks").register(meterRegistry);
+        this.holdTimer = Timer.builder("booking.date.lock.hold").description("Time date locks were held").register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void close() {
+        dataSource.close();
+    }
+
+    @Override
+    public Lease lock(DateRange... ranges) throws BookingConflictException, BookingSavingException {
+        Map<Long, SortedSet<LocalDate>> nights = nightsOf(ranges);
+        String holder = instanceId + ":" + leaseSequence.incrementAndGet();
+        if (nights.isEmpty()) {
+            return new RowLease(holder, 0, System.nanoTime());
+        }
+        long waitStart = System.nanoTime();
+        long deadline = waitStart + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        long backoffMillis = 1;
+
+        try {
+            while (!tryInsert(holder, nights)) {
+                if (System.nanoTime() >= deadline) {
+                    throw new BookingConflictException();
+                }
+                Thread.sleep(ThreadLocalRandom.current().nextLong(backoffMillis + 1));
+                backoffMillis = Math.min(backoffMillis * 2, MAX_BACKOFF_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BookingConflictException();
+        } catch (DataAccessException e) {
+            LOGGER.warn("Could not take reservation lease", e);
+            throw new BookingSavingException();
+        } finally {
+            waitTimer.record(System.nanoTime() - waitStart, TimeUnit.NANOSECONDS);
+        }
+
+        return new RowLease(holder, nights.values().stream().mapToInt(SortedSet::size).sum(), System.nanoTime());
+    }
+
+    @Override
+    public boolean isDistributed() {
+        return true;
+    }
+
+    private boolean tryInsert(String holder, Map<Long, SortedSet<LocalDate>> nights) {
+        StringBuilder sql = new StringBuilder("insert into reservation_lease (resource_id, night, holder, expires_at) values ");
+        List<Object> args = new ArrayList<>();
+        for (Map.Entry<Long, SortedSet<LocalDate>> resourceNights : nights.entrySet()) {
+            jdbcTemplate.update("delete from reservation_lease where resource_id = ? and night >= ? and night <= ? and expires_at < current_timestamp",
+                    resourceNights.getKey(), Date.valueOf(resourceNights.getValue().first()), Date.valueOf(resourceNights.getValue().last()));
+            for (LocalDate night : resourceNights.getValue()) {
+                sql.append(args.isEmpty() ? "" : ", ").append("(?, ?, ?, ").append(EXPIRES_AT).append(")");
+                args.add(resourceNights.getKey());
+                args.add(Date.valueOf(night));
+                args.add(holder);
+                args.add(TimeUnit.MILLISECONDS.toMicros(leaseMillis));
+            }
+        }
+
+        try {
+            jdbcTemplate.update(sql.toString(), args.toArray());
+            return true;
+        } catch (DuplicateKeyException | ConcurrencyFailureException e) {
+            return false;
+        }
+    }
+
+    private static Map<Long, SortedSet<LocalDate>> nightsOf(DateRange... ranges) {
+        Map<Long, SortedSet<LocalDate>> nights = new TreeMap<>();
+        for (DateRange range : ranges) {
+            if (range.getArrivalDate().isBefore(range.getDepartureDate())) {
+                range.getArrivalDate().datesUntil(range.getDepartureDate())
+                        .forEach(nights.computeIfAbsent(range.getResourceId(), id -> new TreeSet<>())::add);
+            }
+        }
+        return nights;
+    }
+
+    private class RowLease implements Lease {
+
+        private final String holder;
+        private final int nights;
+        private final long lockedAt;
+        private boolean released;
+
+        private RowLease(String holder, int nights, long lockedAt) {
+            this.holder = holder;
+            this.nights = nights;
+            this.lockedAt = lockedAt;
+        }
+
+        @Override
+        public void renew() {
+            if (nights == 0) {
+                return;
+            }
+            int renewed = jdbcTemplate.update("update reservation_lease set expires_at = " + EXPIRES_AT + " where holder = ? and expires_at >= current_timestamp",
+                    TimeUnit.MILLISECONDS.toMicros(leaseMillis), holder);
+            if (renewed < nights) {
+                throw new OptimisticLockingFailureException("Reservation lease " + holder + " expired before its transaction committed");
+            }
+        }
+
+        @Override
+        public void close() {
+            if (released) {
+                return;
+            }
+            released = true;
+            holdTimer.record(System.nanoTime() - lockedAt, TimeUnit.NANOSECONDS);
+            try {
+                jdbcTemplate.update("delete from reservation_lease where holder = ?", holder);
+            } catch (DataAccessException e) {
+                LOGGER.warn("Could not release reservation lease {}, it will expire on its own", holder, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.coding.challenge.booking.lock;
+
+import com.coding.challenge.booking.error.exception.BookingConflictException;
+import com.coding.challenge.booking.error.exception.BookingSavingException;
+import com.coding.challenge.booking.occupancy.DateRange;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Mutual exclusion over the nights of one or more date ranges, selected with {@code booking.lock.provider}.
+ * Leases over disjoint ranges never contend; a lease that cannot be taken within the configured timeout fails
+ * with {@link BookingConflictException}, which callers may retry like any other lost race. A lock that cannot be
+ * taken at all fails with {@link BookingSavingException}.
+ */
+public interface ReservationLock {
+
+    Lease lock(DateRange... ranges) throws BookingConflictException, BookingSavingException;
+
+    /**
+     * Whether leases also exclude other application instances. When they do, the node-local occupancy index may
+     * be stale and availability has to be checked against the database while the lease is held.
+     */
+    boolean isDistributed();
+
+    default void lockUntilTransactionCompletes(DateRange... ranges) throws BookingConflictException, BookingSavingException {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalTransactionStateException("Date locks must be taken inside a transaction");
+        }
+
+        Lease lease = lock(ranges);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                lease.renew();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                lease.close();
+            }
+        });
+    }
+
+    interface Lease extends AutoCloseable {
+
+        /**
+         * Makes sure the lease is still held and extends it where leases expire, failing with an
+         * {@link org.springframework.dao.OptimisticLockingFailureException} once it has been lost.
+         */
+        default void renew() {
+        }
+
+        @Override
+        void close();
+    }
+}
@@ -2,6 +2,7 @@ package com.coding.challenge.booking.mapper;
 
 import com.coding.challenge.booking.entity.BookingEntity;
 import com.coding.challenge.booking.input.BookingInput;
+import com.coding.challenge.booking.occupancy.DateRange;
 import com.coding.challenge.booking.output.BookingOutput;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
@@ -13,9 +14,20 @@ public abstract class BookingMapper {
     public static final BookingMapper INSTANCE = Mappers.getMapper(BookingMapper.class);
 
     @Mapping(target = "id", ignore = true)
+    @Mapping(target = "resourceId", expression = "java(resourceIdOf(input))")
     @Mapping(target = "version", ignore = true)
+    @Mapping(target = "nights", ignore = true)
+    @Mapping(target = "handle", ignore = true)
     public abstract BookingEntity mapInputToEntity(BookingInput input);
 
     @Mapping(source = "id", target = "bookingId")
     public abstract BookingOutput mapEntityToOutput(BookingEntity entity);
+
+    public DateRange mapInputToDateRange(BookingInput input) {
+        return DateRange.of(resourceIdOf(input), input.getArrivalDate(), input.getDepartureDate());
+    }
+
+    protected long resourceIdOf(BookingInput input) {
+        return input.getResourceId() != null ? input.getResourceId() : DateRange.DEFAULT_RESOURCE_ID;
+    }
 }
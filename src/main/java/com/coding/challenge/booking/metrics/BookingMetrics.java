@@ -0,0 +1,85 @@
+package com.coding.challenge.booking.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class BookingMetrics {
+
+    public static final String OPERATION_CREATE = "create";
+    public static final String OPERATION_UPDATE = "update";
+    public static final String OPERATION_DELETE = "delete";
+    public static final String OPERATION_BATCH = "batch";
+    public static final String OPERATION_HOLD = "hold";
+
+    public static final String REASON_DATES_UNAVAILABLE = "dates_unavailable";
+    public static final String REASON_OPTIMISTIC_LOCK = "optimistic_lock";
+
+    private final MeterRegistry meterRegistry;
+    private final Timer availabilityLookupTimer;
+    private final DistributionSummary availabilityDatesSummary;
+    private final Map<String, Timer> validTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> invalidTimers = new ConcurrentHashMap<>();
+
+    public BookingMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.availabilityLookupTimer = Timer.builder("booking.availability.lookup")
+                .description("Time spent computing available dates from the occupancy index")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.availabilityDatesSummary = DistributionSummary.builder("booking.availability.dates")
+                .description("Available dates returned per availability lookup")
+                .baseUnit("dates")
+                .register(meterRegistry);
+    }
+
+    public static BookingMetrics noop() {
+        return new BookingMetrics(new CompositeMeterRegistry());
+    }
+
+    public void recordValidation(String input, long durationNanos, int errors) {
+        Map<String, Timer> timers = errors == 0 ? validTimers : invalidTimers;
+        Timer timer = timers.get(input);
+        if (timer == null) {
+            timer = timers.computeIfAbsent(input, key -> Timer.builder("booking.validation")
+                    .description("Time spent validating booking requests")
+                    .tag("input", key)
+                    .tag("result", errors == 0 ? "valid" : "invalid")
+                    .register(meterRegistry));
+        }
+        timer.record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordAvailabilityLookup(long durationNanos, int availableDates) {
+        availabilityLookupTimer.record(durationNanos, TimeUnit.NANOSECONDS);
+        availabilityDatesSummary.record(availableDates);
+    }
+
+    public void recordRowsLoaded(String query, int rows) {
+        DistributionSummary.builder("booking.repository.rows")
+                .description("Rows loaded per repository query")
+                .baseUnit("rows")
+                .tag("query", query)
+                .register(meterRegistry)
+                .record(rows);
+    }
+
+    public void recordConflict(String operation, String reason) {
+        meterRegistry.counter("booking.conflicts", "operation", operation, "reason", reason).increment();
+    }
+
+    public void recordRetry(String operation) {
+        meterRegistry.counter("booking.retries", "operation", operation).increment();
+    }
+
+    public void recordRetriesExhausted(String operation) {
+        meterRegistry.counter("booking.retries.exhausted", "operation", operation).increment();
+    }
+}
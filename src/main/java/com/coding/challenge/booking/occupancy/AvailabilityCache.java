@@ -0,0 +1,70 @@
+package com.coding.challenge.booking.occupancy;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+/**
+ * Bounded cache of availability windows keyed by (resourceId, startDate, endDate). Committed occupancy changes
+ * evict only the windows of the same resource they overlap. A load that races with a change is returned but not kept in the cache.
+ */
+@Component
+public class AvailabilityCache {
+
+    private final Cache<DateRange, List<LocalDate>> cache;
+    private final AtomicLong generation = new AtomicLong();
+
+    public AvailabilityCache(MeterRegistry meterRegistry,
+                             @Value("${booking.availability-cache.maximum-size:1000}") long maximumSize,
+                             @Value("${booking.availability-cache.expire-after-write-seconds:60}") long expireAfterWriteSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(expireAfterWriteSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "booking.availability");
+    }
+
+    public List<LocalDate> get(long resourceId, LocalDate startDate, LocalDate endDate, BiFunction<LocalDate, LocalDate, List<LocalDate>> loader) {
+        DateRange window = DateRange.of(resourceId, startDate, endDate);
+        List<LocalDate> availableDates = cache.getIfPresent(window);
+        if (availableDates != null) {
+            return availableDates;
+        }
+
+        long loadedGeneration = generation.get();
+        availableDates = List.copyOf(loader.apply(startDate, endDate));
+        if (generation.get() == loadedGeneration) {
+            cache.put(window, availableDates);
+            if (generation.get() != loadedGeneration) {
+                cache.invalidate(window);
+            }
+        }
+        return availableDates;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOccupancyChanged(OccupancyChangedEvent event) {
+        generation.incrementAndGet();
+        cache.asMap().keySet().removeIf(window -> overlaps(window, event.getReleased()) || overlaps(window, event.getOccupied()));
+    }
+
+    public void invalidate(DateRange changed) {
+        generation.incrementAndGet();
+        cache.asMap().keySet().removeIf(window -> overlaps(window, changed));
+    }
+
+    private static boolean overlaps(DateRange window, DateRange changed) {
+        return changed != null && changed.overlaps(window);
+    }
+}
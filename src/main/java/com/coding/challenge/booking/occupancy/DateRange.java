@@ -0,0 +1,38 @@
+package com.coding.challenge.booking.occupancy;
+
+import lombok.Value;
+
+import java.time.LocalDate;
+
+/**
+ * Nights of one bookable resource. Ranges of different resources never overlap.
+ */
+@Value(staticConstructor = "of")
+public class DateRange {
+
+    public static final long DEFAULT_RESOURCE_ID = 1;
+
+    long resourceId;
+    LocalDate arrivalDate;
+    LocalDate departureDate;
+
+    public static DateRange of(LocalDate arrivalDate, LocalDate departureDate) {
+        return of(DEFAULT_RESOURCE_ID, arrivalDate, departureDate);
+    }
+
+    public int getFirstNight() {
+        return (int) arrivalDate.toEpochDay();
+    }
+
+    public int getLastNightExclusive() {
+        return (int) departureDate.toEpochDay();
+    }
+
+    public boolean overlaps(LocalDate startDate, LocalDate endDate) {
+        return arrivalDate.isBefore(endDate) && departureDate.isAfter(startDate);
+    }
+
+    public boolean overlaps(DateRange other) {
+        return resourceId == other.resourceId && overlaps(other.arrivalDate, other.departureDate);
+    }
+}
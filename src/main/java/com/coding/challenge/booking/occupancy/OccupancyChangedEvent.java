@@ -0,0 +1,22 @@
+package com.coding.challenge.booking.occupancy;
+
+import lombok.Value;
+
+@Value
+public class OccupancyChangedEvent {
+
+    DateRange released;
+    DateRange occupied;
+
+    public static OccupancyChangedEvent occupied(DateRange range) {
+        return new OccupancyChangedEvent(null, range);
+    }
+
+    public static OccupancyChangedEvent released(DateRange range) {
+        return new OccupancyChangedEvent(range, null);
+    }
+
+    public static OccupancyChangedEvent moved(DateRange from, DateRange to) {
+        return new OccupancyChangedEvent(from, to);
+    }
+}
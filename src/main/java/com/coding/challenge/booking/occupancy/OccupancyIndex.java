@@ -0,0 +1,322 @@
+package com.coding.challenge.booking.occupancy;
+
+import com.coding.challenge.booking.metrics.BookingMetrics;
+import com.coding.challenge.booking.persistance.BookedDates;
+import com.coding.challenge.booking.persistance.BookingRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bitmaps of occupied nights keyed by epoch day, one per resource. A set bit means the night starting on that day is
+ * booked. Built from the repository at startup and kept in sync with committed booking changes. Nights can also be
+ * reserved ahead of their commit; reserved nights are unavailable but are tracked apart from committed ones,
+ * so dropping a reservation never frees a booked night. Every change bumps the version of its resource.
+ * <p>
+ * Each resource has its own lock, so traffic on one resource never waits on another. A resource without any
+ * booking or reservation has no bitmap at all and is simply free.
+ */
+@Component
+public class OccupancyIndex {
+
+    private static final LocalDate LAST_SUPPORTED_DATE = LocalDate.of(9999, 12, 31);
+
+    private final Map<Long, Occupancy> occupancies = new ConcurrentHashMap<>();
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BookingMetrics bookingMetrics;
+
+    @PostConstruct
+    public void load() {
+        List<BookedDates> bookings = bookingRepository.getAllBookedDatesBetween(LocalDate.now(), LAST_SUPPORTED_DATE);
+        bookingMetrics.recordRowsLoaded("getAllBookedDatesBetween", bookings.size());
+
+        Map<Long, List<DateRange>> rangesByResource = new HashMap<>();
+        for (BookedDates booking : bookings) {
+            if (booking.getResourceId() != null && booking.getArrivalDate() != null && booking.getDepartureDate() != null) {
+                rangesByResource.computeIfAbsent(booking.getResourceId(), id -> new ArrayList<>())
+                        .add(DateRange.of(booking.getResourceId(), booking.getArrivalDate(), booking.getDepartureDate()));
+            }
+        }
+
+        Set<Long> resourceIds = new HashSet<>(occupancies.keySet());
+        resourceIds.addAll(rangesByResource.keySet());
+        for (Long resourceId : resourceIds) {
+            Occupancy occupancy = occupancyOf(resourceId);
+            occupancy.lock.writeLock().lock();
+            try {
+                occupancy.occupiedNights.clear();
+                occupancy.version++;
+                for (DateRange range : rangesByResource.getOrDefault(resourceId, List.of())) {
+                    occupancy.update(range, true);
+                }
+            } finally {
+                occupancy.lock.writeLock().unlock();
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onOccupancyChanged(OccupancyChangedEvent event) {
+        if (event.getReleased() != null) {
+            update(event.getReleased(), false);
+        }
+        if (event.getOccupied() != null) {
+            update(event.getOccupied(), true);
+        }
+    }
+
+    public boolean isAvailable(DateRange range) {
+        return isAvailable(range, null);
+    }
+
+    /**
+     * @param ignored nights treated as free, typically those of the booking being moved; ignored unless they belong
+     *                to the same resource as the range
+     */
+    public boolean isAvailable(DateRange range, DateRange ignored) {
+        Occupancy occupancy = occupancies.get(range.getResourceId());
+        if (occupancy == null) {
+            return true;
+        }
+        occupancy.lock.readLock().lock();
+        try {
+            return occupancy.isFree(range, ignored != null && ignored.getResourceId() == range.getResourceId() ? ignored : null);
+        } finally {
+            occupancy.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Whether none of the nights of the range is reserved, whatever the bookings. Reservations exist only in this
+     * index, while bookings of other instances may be missing from it.
+     */
+    public boolean isFreeOfReservations(DateRange range) {
+        Occupancy occupancy = occupancies.get(range.getResourceId());
+        if (occupancy == null) {
+            return true;
+        }
+        occupancy.lock.readLock().lock();
+        try {
+            return Occupancy.isFree(occupancy.reservedNights, toIndex(range.getFirstNight()), toIndex(range.getLastNightExclusive()), null);
+        } finally {
+            occupancy.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reserves the nights of the range if none of them is booked or reserved.
+     *
+     * @return whether the reservation was taken
+     */
+    public boolean tryReserve(DateRange range) {
+        Occupancy occupancy = occupancyOf(range.getResourceId());
+        occupancy.lock.writeLock().lock();
+        try {
+            if (!occupancy.isFree(range, null)) {
+                return false;
+            }
+            occupancy.reservedNights.set(toIndex(range.getFirstNight()), toIndex(range.getLastNightExclusive()));
+            occupancy.version++;
+            return true;
+        } finally {
+            occupancy.lock.writeLock().unlock();
+        }
+    }
+
+    public void releaseReservation(DateRange range) {
+        Occupancy occupancy = occupancyOf(range.getResourceId());
+        occupancy.lock.writeLock().lock();
+        try {
+            int from = toIndex(range.getFirstNight());
+            int to = toIndex(range.getLastNightExclusive());
+            if (from < to) {
+                occupancy.reservedNights.clear(from, to);
+                occupancy.version++;
+            }
+        } finally {
+            occupancy.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Counter increased by every booking, release or reservation change on the resource. Read it before computing
+     * availabilities from the index, so the result is never older than the version it is tagged with.
+     */
+    public long getVersion(long resourceId) {
+        Occupancy occupancy = occupancies.get(resourceId);
+        return occupancy == null ? 0 : occupancy.version;
+    }
+
+    public List<LocalDate> getAvailableDates(long resourceId, LocalDate startDate, LocalDate endDate) {
+        int from = toIndex((int) startDate.toEpochDay());
+        int to = toIndex((int) endDate.toEpochDay());
+        List<LocalDate> availableDates = new ArrayList<>(Math.max(0, to - from));
+
+        Occupancy occupancy = occupancies.get(resourceId);
+        if (occupancy == null) {
+            for (int night = from; night < to; night++) {
+                availableDates.add(LocalDate.ofEpochDay(night));
+            }
+            return availableDates;
+        }
+
+        occupancy.lock.readLock().lock();
+        try {
+            int night = occupancy.occupiedNights.nextClearBit(from);
+            while (night < to) {
+                if (!occupancy.reservedNights.get(night)) {
+                    availableDates.add(LocalDate.ofEpochDay(night));
+                }
+                night = occupancy.occupiedNights.nextClearBit(night + 1);
+            }
+        } finally {
+            occupancy.lock.readLock().unlock();
+        }
+
+        return availableDates;
+    }
+
+    /**
+     * Free nights of the window as a bitmap relative to its start: bit {@code i} is set when the night starting
+     * {@code startDate + i} is neither booked nor reserved.
+     */
+    public BitSet getFreeNights(long resourceId, LocalDate startDate, LocalDate endDate) {
+        return getFreeNights(resourceId, startDate, endDate, true);
+    }
+
+    /**
+     * Like {@link #getFreeNights}, but only reserved nights are cleared, for callers that take booked nights from
+     * elsewhere.
+     */
+    public BitSet getUnreservedNights(long resourceId, LocalDate startDate, LocalDate endDate) {
+        return getFreeNights(resourceId, startDate, endDate, false);
+    }
+
+    /**
+     * Maximal runs of free nights in the window, each as the range a booking covering it would have.
+     */
+    public List<DateRange> getFreeRanges(long resourceId, LocalDate startDate, LocalDate endDate) {
+        return toRanges(resourceId, startDate, getFreeNights(resourceId, startDate, endDate));
+    }
+
+    /**
+     * Maximal runs of set bits of a bitmap relative to the start date, as date ranges.
+     */
+    public static List<DateRange> toRanges(long resourceId, LocalDate startDate, BitSet nights) {
+        List<DateRange> ranges = new ArrayList<>();
+        int first = nights.nextSetBit(0);
+        while (first >= 0) {
+            int lastExclusive = nights.nextClearBit(first);
+            ranges.add(DateRange.of(resourceId, startDate.plusDays(first), startDate.plusDays(lastExclusive)));
+            first = nights.nextSetBit(lastExclusive);
+        }
+        return ranges;
+    }
+
+    private BitSet getFreeNights(long resourceId, LocalDate startDate, LocalDate endDate, boolean includeBooked) {
+        int from = toIndex((int) startDate.toEpochDay());
+        int to = Math.max(from, toIndex((int) endDate.toEpochDay()));
+
+        BitSet freeNights = new BitSet(to - from);
+        Occupancy occupancy = occupancies.get(resourceId);
+        if (occupancy != null) {
+            occupancy.lock.readLock().lock();
+            try {
+                if (includeBooked) {
+                    freeNights.or(occupancy.occupiedNights.get(from, to));
+                }
+                freeNights.or(occupancy.reservedNights.get(from, to));
+            } finally {
+                occupancy.lock.readLock().unlock();
+            }
+        }
+        freeNights.flip(0, to - from);
+        return freeNights;
+    }
+
+    /**
+     * Resources among {@code 1..resourceCount} with every night of the range free. Each resource is checked under
+     * its own read lock, one at a time, so the scan never holds up writers for longer than a single check.
+     */
+    public List<Long> getAvailableResources(long resourceCount, LocalDate arrivalDate, LocalDate departureDate) {
+        List<Long> resourceIds = new ArrayList<>();
+        for (long resourceId = 1; resourceId <= resourceCount; resourceId++) {
+            if (isAvailable(DateRange.of(resourceId, arrivalDate, departureDate))) {
+                resourceIds.add(resourceId);
+            }
+        }
+        return resourceIds;
+    }
+
+    private void update(DateRange range, boolean occupied) {
+        Occupancy occupancy = occupancyOf(range.getResourceId());
+        occupancy.lock.writeLock().lock();
+        try {
+            occupancy.version++;
+            occupancy.update(range, occupied);
+        } finally {
+            occupancy.lock.writeLock().unlock();
+        }
+    }
+
+    private Occupancy occupancyOf(long resourceId) {
+        return occupancies.computeIfAbsent(resourceId, id -> new Occupancy());
+    }
+
+    private static int toIndex(int epochDay) {
+        return Math.max(0, epochDay);
+    }
+
+    private static final class Occupancy {
+
+        private final BitSet occupiedNights = new BitSet();
+        private final BitSet reservedNights = new BitSet();
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private volatile long version;
+
+        private boolean isFree(DateRange range, DateRange ignored) {
+            int from = toIndex(range.getFirstNight());
+            int to = toIndex(range.getLastNightExclusive());
+            return isFree(occupiedNights, from, to, ignored) && isFree(reservedNights, from, to, ignored);
+        }
+
+        private static boolean isFree(BitSet nights, int from, int to, DateRange ignored) {
+            int night = nights.nextSetBit(from);
+            while (night >= 0 && night < to) {
+                if (ignored == null || night < ignored.getFirstNight() || night >= ignored.getLastNightExclusive()) {
+                    return false;
+                }
+                night = nights.nextSetBit(night + 1);
+            }
+            return true;
+        }
+
+        private void update(DateRange range, boolean occupied) {
+            int from = toIndex(range.getFirstNight());
+            int to = toIndex(range.getLastNightExclusive());
+            if (from < to) {
+                occupiedNights.set(from, to, occupied);
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.coding.challenge.booking.output;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Free nights as base64-encoded bits: bit {@code i}, counted from the least significant bit of the first byte,
+ * is set when the night starting {@code startDate + i} is free. Bits from {@code nights} onwards are padding.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class AvailabilityBitmapOutput {
+
+    private LocalDate startDate;
+    private int nights;
+    private String bitmap;
+}
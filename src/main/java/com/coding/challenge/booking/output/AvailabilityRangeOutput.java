@@ -0,0 +1,19 @@
+package com.coding.challenge.booking.output;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * A run of free nights from {@code startDate} up to, but excluding, {@code endDate}.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class AvailabilityRangeOutput {
+
+    private LocalDate startDate;
+    private LocalDate endDate;
+}
@@ -0,0 +1,20 @@
+package com.coding.challenge.booking.output;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BookingBatchResultOutput {
+
+    private Integer index;
+    private Integer status;
+    private BookingOutput booking;
+    private List<String> errorMessages;
+}
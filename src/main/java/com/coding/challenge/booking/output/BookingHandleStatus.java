@@ -0,0 +1,7 @@
+package com.coding.challenge.booking.output;
+
+public enum BookingHandleStatus {
+    PENDING,
+    CONFIRMED,
+    REJECTED
+}
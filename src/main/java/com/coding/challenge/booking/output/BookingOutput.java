@@ -1,5 +1,6 @@
 package com.coding.challenge.booking.output;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 
@@ -10,9 +11,13 @@ import java.time.LocalDate;
 public class BookingOutput {
 
     private String bookingId;
+    private Long resourceId;
     private String email;
     private String firstName;
     private String lastName;
     private LocalDate arrivalDate;
     private LocalDate departureDate;
+
+    @JsonIgnore
+    private Long version;
 }
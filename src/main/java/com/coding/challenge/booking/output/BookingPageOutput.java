@@ -0,0 +1,18 @@
+package com.coding.challenge.booking.output;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BookingPageOutput {
+
+    private List<BookingOutput> bookings;
+    private String nextCursor;
+}
@@ -0,0 +1,20 @@
+package com.coding.challenge.booking.output;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class HoldOutput {
+
+    private String holdId;
+    private Long resourceId;
+    private LocalDate arrivalDate;
+    private LocalDate departureDate;
+    private Instant expiresAt;
+}
@@ -0,0 +1,12 @@
+package com.coding.challenge.booking.persistance;
+
+import java.time.LocalDate;
+
+public interface BookedDates {
+
+    Long getResourceId();
+
+    LocalDate getArrivalDate();
+
+    LocalDate getDepartureDate();
+}
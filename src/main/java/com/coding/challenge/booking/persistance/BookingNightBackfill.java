@@ -0,0 +1,80 @@
+package com.coding.challenge.booking.persistance;
+
+import com.coding.challenge.booking.entity.BookingEntity;
+import com.coding.challenge.booking.entity.BookingNightEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Writes the {@code booking_night} rows of bookings saved before that table existed, before the application serves
+ * requests. Without them the unique key on the nights would not protect those bookings, and instances that read
+ * booked nights from the table would not see them at all. Bookings that already overlap on a resource cannot be
+ * given their nights, so startup fails instead.
+ */
+@Component
+public class BookingNightBackfill {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BookingNightBackfill.class);
+    private static final int PAGE_SIZE = 500;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BookingNightRepository bookingNightRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PostConstruct
+    public void backfill() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        long lastId = 0;
+        long nights = 0;
+        List<BookingEntity> bookings;
+        do {
+            long afterId = lastId;
+            bookings = bookingRepository.findWithoutNightsAfter(afterId, PageRequest.of(0, PAGE_SIZE));
+            if (!bookings.isEmpty()) {
+                List<BookingNightEntity> page = nightsOf(bookings);
+                transactionTemplate.executeWithoutResult(status -> save(page));
+                lastId = bookings.get(bookings.size() - 1).getId();
+                nights += page.size();
+            }
+        } while (bookings.size() == PAGE_SIZE);
+
+        if (nights > 0) {
+            LOGGER.info("Wrote {} booking nights of bookings that had none", nights);
+        }
+    }
+
+    private void save(List<BookingNightEntity> nights) {
+        try {
+            bookingNightRepository.saveAllAndFlush(nights);
+        } catch (DataIntegrityViolationException e) {
+            if (BookingNightConstraint.isViolatedBy(e)) {
+                throw new IllegalStateException("Existing bookings share nights on the same resource, remove the overlap before starting", e);
+            }
+            throw e;
+        }
+    }
+
+    private static List<BookingNightEntity> nightsOf(List<BookingEntity> bookings) {
+        return bookings.stream()
+                .filter(booking -> booking.getArrivalDate() != null && booking.getDepartureDate() != null
+                        && booking.getArrivalDate().isBefore(booking.getDepartureDate()))
+                .flatMap(booking -> booking.getArrivalDate().datesUntil(booking.getDepartureDate())
+                        .map(night -> new BookingNightEntity(booking, night)))
+                .collect(Collectors.toList());
+    }
+}
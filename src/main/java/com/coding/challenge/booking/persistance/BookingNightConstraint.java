@@ -0,0 +1,33 @@
+package com.coding.challenge.booking.persistance;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * The unique key on (resource_id, night) of {@code booking_night}, which is what finally rejects a second booking of
+ * the same night. Only its violations mean the requested dates are taken; other integrity errors are bugs or bad
+ * data and must not be reported as unavailable dates.
+ */
+public final class BookingNightConstraint {
+
+    public static final String NAME = "uk_booking_night_resource_night";
+
+    private BookingNightConstraint() {
+    }
+
+    /**
+     * Whether the failure, or one of its causes, is a violation of this constraint. Looks for the constraint name in
+     * the error messages, which JPA and R2DBC drivers alike carry through from the database.
+     */
+    public static boolean isViolatedBy(Throwable failure) {
+        Set<Throwable> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Throwable cause = failure; cause != null && seen.add(cause); cause = cause.getCause()) {
+            if (cause.getMessage() != null && cause.getMessage().toLowerCase(Locale.ROOT).contains(NAME)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
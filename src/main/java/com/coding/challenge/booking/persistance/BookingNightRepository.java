@@ -0,0 +1,34 @@
+package com.coding.challenge.booking.persistance;
+
+import com.coding.challenge.booking.entity.BookingNightEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface BookingNightRepository extends JpaRepository<BookingNightEntity, Long> {
+
+    @Query("select count(n) from booking_night n where n.resourceId = ?1 and n.night >= ?2 and n.night < ?3")
+    long countNightsBetween(long resourceId, LocalDate arrivalDate, LocalDate departureDate);
+
+    @Query("select count(n) from booking_night n where n.booking.id <> ?1 and n.resourceId = ?2 and n.night >= ?3 and n.night < ?4")
+    long countNightsOfOtherBookingsBetween(long bookingId, long resourceId, LocalDate arrivalDate, LocalDate departureDate);
+
+    @Query("select n.night from booking_night n where n.resourceId = ?1 and n.night >= ?2 and n.night < ?3")
+    List<LocalDate> findNightsBetween(long resourceId, LocalDate startDate, LocalDate endDate);
+
+    @Query("select distinct n.resourceId from booking_night n where n.night >= ?1 and n.night < ?2")
+    List<Long> findResourceIdsWithNightsBetween(LocalDate startDate, LocalDate endDate);
+
+    @Modifying
+    @Query("delete from booking_night n where n.booking.id = ?1 and (n.night < ?2 or n.night >= ?3)")
+    int deleteNightsOutside(long bookingId, LocalDate arrivalDate, LocalDate departureDate);
+
+    @Modifying
+    @Query("delete from booking_night n where n.booking.id = ?1")
+    int deleteNightsOf(long bookingId);
+}
@@ -1,16 +1,49 @@
 package com.coding.challenge.booking.persistance;
 
 import com.coding.challenge.booking.entity.BookingEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
 public interface BookingRepository extends JpaRepository<BookingEntity, Long> {
 
-    @Query("select b from booking b where b.arrivalDate >= ?1 or b.departureDate <= ?2")
-    List<BookingEntity> getAllBookedDatesBetween(LocalDate startDate, LocalDate endDate);
+    @Query("select b.resourceId as resourceId, b.arrivalDate as arrivalDate, b.departureDate as departureDate from booking b where b.arrivalDate < ?2 and b.departureDate > ?1")
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<BookedDates> getAllBookedDatesBetween(LocalDate startDate, LocalDate endDate);
+
+    @Query("select b.resourceId as resourceId, b.arrivalDate as arrivalDate, b.departureDate as departureDate, b.version as version from booking b where b.id = ?1")
+    Optional<VersionedBookedDates> findBookedDatesById(long id);
+
+    @Modifying
+    @Query("update booking b set b.resourceId = ?2, b.email = ?3, b.firstName = ?4, b.lastName = ?5, b.arrivalDate = ?6, b.departureDate = ?7, b.version = b.version + 1 where b.id = ?1 and b.version = ?8")
+    int updateIfVersionMatches(long id, long resourceId, String email, String firstName, String lastName, LocalDate arrivalDate, LocalDate departureDate, long version);
+
+    @Modifying
+    @Query("delete from booking b where b.id = ?1 and b.version = ?2")
+    int deleteIfVersionMatches(long id, long version);
+
+    Optional<BookingEntity> findByHandle(String handle);
+
+    @Query("select b from booking b where b.id > ?1 and not exists (select n.id from booking_night n where n.booking = b) order by b.id")
+    List<BookingEntity> findWithoutNightsAfter(long id, Pageable pageable);
+
+    List<BookingEntity> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    @Query("select b from booking b order by b.id")
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    Stream<BookingEntity> streamAllOrderById();
 }
@@ -0,0 +1,58 @@
+package com.coding.challenge.booking.persistance;
+
+import com.coding.challenge.booking.entity.BookingEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+/**
+ * Version-checked updates and deletes of bookings, to be called inside a transaction. By default each is a single
+ * bulk statement. Hibernate evicts the whole booking region of the second-level cache on any bulk statement, so
+ * with the cache enabled the managed entity is changed instead, which replaces or evicts only its own entry.
+ */
+@Component
+public class BookingWriter {
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Value("${booking.second-level-cache.enabled:false}")
+    private boolean secondLevelCacheEnabled;
+
+    /**
+     * @return 1 if the booking was updated, 0 if it does not exist or its version has moved on
+     */
+    public int updateIfVersionMatches(long id, long resourceId, String email, String firstName, String lastName,
+                                      LocalDate arrivalDate, LocalDate departureDate, long version) {
+        if (!secondLevelCacheEnabled) {
+            return bookingRepository.updateIfVersionMatches(id, resourceId, email, firstName, lastName, arrivalDate, departureDate, version);
+        }
+
+        Optional<BookingEntity> booking = bookingRepository.findById(id).filter(entity -> entity.getVersion() == version);
+        booking.ifPresent(entity -> {
+            entity.setResourceId(resourceId);
+            entity.setEmail(email);
+            entity.setFirstName(firstName);
+            entity.setLastName(lastName);
+            entity.setArrivalDate(arrivalDate);
+            entity.setDepartureDate(departureDate);
+        });
+        return booking.isPresent() ? 1 : 0;
+    }
+
+    /**
+     * @return 1 if the booking was deleted, 0 if it does not exist or its version has moved on
+     */
+    public int deleteIfVersionMatches(long id, long version) {
+        if (!secondLevelCacheEnabled) {
+            return bookingRepository.deleteIfVersionMatches(id, version);
+        }
+
+        Optional<BookingEntity> booking = bookingRepository.findById(id).filter(entity -> entity.getVersion() == version);
+        booking.ifPresent(bookingRepository::delete);
+        return booking.isPresent() ? 1 : 0;
+    }
+}
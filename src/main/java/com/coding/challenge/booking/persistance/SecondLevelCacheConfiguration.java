@@ -0,0 +1,103 @@
+package com.coding.challenge.booking.persistance;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.persistence.EntityManagerFactory;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Opt-in mode (booking.second-level-cache.enabled=true) that puts a Hibernate second-level cache in front of booking
+ * reads: a read-write region for {@code BookingEntity}, whose version guards against caching a stale row, and the
+ * query cache for queries hinted as cacheable. Regions live in a local Caffeine-backed JCache and are bounded by
+ * {@code booking.second-level-cache.maximum-size}; the update timestamps region is left unbounded as Hibernate
+ * requires. Statistics are switched on so hit ratios can be read from the metrics endpoint.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "booking.second-level-cache.enabled", havingValue = "true")
+public class SecondLevelCacheConfiguration {
+
+    public static final String BOOKING_REGION = "booking";
+
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager(@Value("${booking.second-level-cache.maximum-size:10000}") long maximumSize,
+                                                @Value("${booking.second-level-cache.expire-after-write-seconds:600}") long expireAfterWriteSeconds) {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName()).getCacheManager();
+        CaffeineConfiguration<Object, Object> bounded = new CaffeineConfiguration<>();
+        bounded.setMaximumSize(OptionalLong.of(maximumSize));
+        bounded.setExpireAfterWrite(OptionalLong.of(Duration.ofSeconds(expireAfterWriteSeconds).toNanos()));
+        createIfAbsent(cacheManager, BOOKING_REGION, bounded);
+        createIfAbsent(cacheManager, RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, bounded);
+        createIfAbsent(cacheManager, RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, new CaffeineConfiguration<>());
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheProperties(CacheManager secondLevelCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+            properties.put(AvailableSettings.GENERATE_STATISTICS, true);
+        };
+    }
+
+    /**
+     * Share of lookups answered by the cache, i.e. of database reads avoided. The session factory is resolved when
+     * the gauges are read, so binding them does not pull the persistence unit into the meter registry's creation.
+     */
+    @Bean
+    public MeterBinder secondLevelCacheMetrics(ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+        return meterRegistry -> {
+            Gauge.builder("booking.second-level-cache.hit.ratio", entityManagerFactory, statisticsRatio(statistics -> {
+                        CacheRegionStatistics region = statistics.getDomainDataRegionStatistics(BOOKING_REGION);
+                        return ratio(region.getHitCount(), region.getMissCount());
+                    }))
+                    .description("Share of booking entity lookups served by the second-level cache")
+                    .tag("region", BOOKING_REGION)
+                    .register(meterRegistry);
+            Gauge.builder("booking.second-level-cache.hit.ratio", entityManagerFactory,
+                            statisticsRatio(statistics -> ratio(statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount())))
+                    .description("Share of cacheable query executions served by the query cache")
+                    .tag("region", "query")
+                    .register(meterRegistry);
+        };
+    }
+
+    private static void createIfAbsent(CacheManager cacheManager, String name, CaffeineConfiguration<Object, Object> configuration) {
+        if (cacheManager.getCache(name) == null) {
+            cacheManager.createCache(name, configuration);
+        }
+    }
+
+    private static ToDoubleFunction<ObjectProvider<EntityManagerFactory>> statisticsRatio(ToDoubleFunction<Statistics> ratio) {
+        return entityManagerFactory -> {
+            EntityManagerFactory factory = entityManagerFactory.getIfAvailable();
+            return factory == null ? Double.NaN : ratio.applyAsDouble(factory.unwrap(SessionFactory.class).getStatistics());
+        };
+    }
+
+    private static double ratio(long hits, long misses) {
+        return hits + misses == 0 ? Double.NaN : (double) hits / (hits + misses);
+    }
+}
@@ -0,0 +1,6 @@
+package com.coding.challenge.booking.persistance;
+
+public interface VersionedBookedDates extends BookedDates {
+
+    Long getVersion();
+}
@@ -0,0 +1,61 @@
+package com.coding.challenge.booking.replica;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Pins every request of a client to the primary for a while after it wrote, so it reads its own writes while the
+ * replica catches up. Clients are told apart by the configured header, or by their address without it.
+ * <p>
+ * A writer is recorded before its request is handled: once the response is committed the client may already be
+ * reading, so recording it afterwards could miss that read. A failed write pins the client just the same.
+ */
+public class PrimaryStickinessFilter extends OncePerRequestFilter {
+
+    private final Cache<String, Boolean> recentWriters;
+    private final String clientHeader;
+
+    public PrimaryStickinessFilter(long stickyMillis, long maximumSize, String clientHeader) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(stickyMillis))
+                .maximumSize(maximumSize)
+                .build();
+        this.clientHeader = clientHeader;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String client = clientOf(request);
+        if (recentWriters.getIfPresent(client) != null) {
+            ReplicaRoutingDataSource.pinToPrimary();
+        }
+        if (isWrite(request)) {
+            recentWriters.put(client, Boolean.TRUE);
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReplicaRoutingDataSource.unpin();
+        }
+    }
+
+    private String clientOf(HttpServletRequest request) {
+        String client = request.getHeader(clientHeader);
+        return client != null ? client : request.getRemoteAddr();
+    }
+
+    private static boolean isWrite(HttpServletRequest request) {
+        HttpMethod method = HttpMethod.resolve(request.getMethod());
+        return method != HttpMethod.GET && method != HttpMethod.HEAD && method != HttpMethod.OPTIONS;
+    }
+}
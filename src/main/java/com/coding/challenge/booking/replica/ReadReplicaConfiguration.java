@@ -0,0 +1,55 @@
+package com.coding.challenge.booking.replica;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Opt-in mode (booking.replica.enabled=true) that serves read-only transactions from a replica. The primary pool is
+ * configured by the usual spring.datasource properties, the replica pool by booking.replica.datasource, each with
+ * its own Hikari settings. Clients that just wrote keep reading from the primary for booking.replica.sticky-ms.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "booking.replica.enabled", havingValue = "true")
+public class ReadReplicaConfiguration {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("booking.replica.datasource")
+    public HikariDataSource replicaDataSource() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") DataSource replicaDataSource) {
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primaryDataSource, replicaDataSource));
+    }
+
+    @Bean
+    public PrimaryStickinessFilter primaryStickinessFilter(@Value("${booking.replica.sticky-ms:5000}") long stickyMillis,
+                                                           @Value("${booking.replica.sticky-maximum-size:100000}") long maximumSize,
+                                                           @Value("${booking.replica.client-header:X-Client-Id}") String clientHeader) {
+        return new PrimaryStickinessFilter(stickyMillis, maximumSize, clientHeader);
+    }
+}
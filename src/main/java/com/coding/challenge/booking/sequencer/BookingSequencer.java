@@ -0,0 +1,401 @@
+package com.coding.challenge.booking.sequencer;
+
+import com.coding.challenge.booking.entity.BookingEntity;
+import com.coding.challenge.booking.entity.BookingNightEntity;
+import com.coding.challenge.booking.error.exception.BookingConflictException;
+import com.coding.challenge.booking.error.exception.BookingNotFoundException;
+import com.coding.challenge.booking.error.exception.BookingQueueFullException;
+import com.coding.challenge.booking.error.exception.BookingValidationException;
+import com.coding.challenge.booking.etag.BookingChangedEvent;
+import com.coding.challenge.booking.input.BookingInput;
+import com.coding.challenge.booking.mapper.BookingMapper;
+import com.coding.challenge.booking.metrics.BookingMetrics;
+import com.coding.challenge.booking.occupancy.DateRange;
+import com.coding.challenge.booking.occupancy.OccupancyChangedEvent;
+import com.coding.challenge.booking.occupancy.OccupancyIndex;
+import com.coding.challenge.booking.output.BookingOutput;
+import com.coding.challenge.booking.persistance.BookingNightConstraint;
+import com.coding.challenge.booking.persistance.BookingNightRepository;
+import com.coding.challenge.booking.persistance.BookingRepository;
+import com.coding.challenge.booking.persistance.BookingWriter;
+import com.coding.challenge.booking.persistance.VersionedBookedDates;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+/**
+ * Funnels every booking mutation through one writer thread. Mutations are published to a {@link MutationRing}
+ * and applied in order, checking availability against the {@link OccupancyIndex} plus the nights claimed and
+ * released earlier in the same batch, so no date locks are taken. Each drained batch is committed in a single
+ * transaction and callers are completed once it has committed. A batch that fails to commit is replayed one
+ * mutation per transaction, so only the offending mutation fails.
+ */
+@Component
+@ConditionalOnProperty(name = "booking.sequencer.enabled", havingValue = "true")
+public class BookingSequencer {
+
+    private static final List<String> DATES_NOT_AVAILABLE = List.of("Booking dates not available");
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BookingNightRepository bookingNightRepository;
+
+    @Autowired
+    private BookingWriter bookingWriter;
+
+    @Autowired
+    private OccupancyIndex occupancyIndex;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private BookingMetrics bookingMetrics;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final MutationRing<Mutation<?>> ring;
+    private final int batchSize;
+    private final long publishTimeoutNanos;
+    private final Thread writer = new Thread(this::drain, "booking-sequencer");
+
+    private final DistributionSummary batchSizes;
+
+    private TransactionTemplate transactionTemplate;
+    private volatile boolean running;
+
+    public BookingSequencer(MeterRegistry meterRegistry,
+                            @Value("${booking.sequencer.ring-size:1024}") int ringSize,
+                            @Value("${booking.sequencer.batch-size:256}") int batchSize,
+                            @Value("${booking.sequencer.publish-timeout-ms:1000}") long publishTimeoutMillis) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("booking.sequencer.batch-size must be at least 1");
+        }
+
+        this.ring = new MutationRing<>(ringSize);
+        this.batchSize = batchSize;
+        this.publishTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(publishTimeoutMillis);
+        Gauge.builder("booking.sequencer.backlog", ring, MutationRing::backlog)
+                .description("Mutations published to the sequencer and not yet drained")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("booking.sequencer.batch.size")
+                .description("Mutations committed per transaction")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        running = true;
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+        if (writer.isAlive()) {
+            return;
+        }
+
+        // mutations published after the writer saw the backlog empty; this thread is the only consumer now
+        List<Mutation<?>> leftovers = new ArrayList<>();
+        while (ring.drainTo(leftovers, batchSize) > 0) {
+            leftovers.forEach(mutation -> mutation.result.completeExceptionally(stopped()));
+            leftovers.clear();
+        }
+    }
+
+    public CompletableFuture<BookingOutput> create(BookingInput input) {
+        return submit(batch -> createBooking(batch, input));
+    }
+
+    public CompletableFuture<BookingOutput> update(long id, BookingInput input) {
+        return submit(batch -> updateBooking(batch, id, input));
+    }
+
+    public CompletableFuture<Void> delete(long id) {
+        return submit(batch -> deleteBooking(batch, id));
+    }
+
+    private <T> CompletableFuture<T> submit(Operation<T> operation) {
+        Mutation<T> mutation = new Mutation<>(operation);
+        if (!running) {
+            mutation.result.completeExceptionally(stopped());
+        } else if (!ring.offer(mutation, publishTimeoutNanos)) {
+            mutation.result.completeExceptionally(new BookingQueueFullException());
+        }
+        return mutation.result;
+    }
+
+    private void drain() {
+        List<Mutation<?>> batch = new ArrayList<>(batchSize);
+        int idleSpins = 0;
+        while (running || ring.backlog() > 0) {
+            if (ring.drainTo(batch, batchSize) == 0) {
+                idleSpins = idle(idleSpins);
+                continue;
+            }
+
+            idleSpins = 0;
+            batch.removeIf(mutation -> !mutation.result.claim());
+            if (batch.isEmpty()) {
+                continue;
+            }
+
+            try {
+                if (!commit(batch)) {
+                    batch.forEach(mutation -> commit(List.of(mutation)));
+                }
+            } catch (Throwable e) {
+                batch.forEach(mutation -> mutation.result.completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * @return false when a batch of several mutations could not be committed and must be replayed one by one
+     */
+    private boolean commit(List<Mutation<?>> mutations) {
+        Object[] results = new Object[mutations.size()];
+        Exception[] failures = new Exception[mutations.size()];
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Batch batch = new Batch();
+                for (int i = 0; i < mutations.size(); i++) {
+                    try {
+                        results[i] = mutations.get(i).operation.apply(batch);
+                    } catch (BookingValidationException | BookingNotFoundException | BookingConflictException e) {
+                        failures[i] = e;
+                    }
+                }
+                bookingRepository.flush();
+            });
+        } catch (RuntimeException e) {
+            if (mutations.size() > 1) {
+                return false;
+            }
+            failures[0] = translate(e);
+        }
+
+        batchSizes.record(mutations.size());
+        for (int i = 0; i < mutations.size(); i++) {
+            mutations.get(i).complete(results[i], failures[i]);
+        }
+        return true;
+    }
+
+    private BookingOutput createBooking(Batch batch, BookingInput input) throws BookingValidationException {
+        DateRange dates = BookingMapper.INSTANCE.mapInputToDateRange(input);
+        if (!batch.isFree(dates, null)) {
+            throw datesNotAvailable(BookingMetrics.OPERATION_CREATE);
+        }
+
+        BookingEntity entity = BookingMapper.INSTANCE.mapInputToEntity(input);
+        input.getArrivalDate().datesUntil(input.getDepartureDate()).forEach(night -> entity.getNights().add(new BookingNightEntity(entity, night)));
+        bookingRepository.save(entity);
+        batch.claim(dates);
+        eventPublisher.publishEvent(OccupancyChangedEvent.occupied(dates));
+        return BookingMapper.INSTANCE.mapEntityToOutput(entity);
+    }
+
+    private BookingOutput updateBooking(Batch batch, long id, BookingInput input) throws BookingValidationException, BookingNotFoundException, BookingConflictException {
+        VersionedBookedDates current = bookingRepository.findBookedDatesById(id).orElseThrow(BookingNotFoundException::new);
+        DateRange previousDates = DateRange.of(current.getResourceId(), current.getArrivalDate(), current.getDepartureDate());
+        long resourceId = input.getResourceId() != null ? input.getResourceId() : current.getResourceId();
+        DateRange dates = DateRange.of(resourceId, input.getArrivalDate(), input.getDepartureDate());
+        if (!batch.isFree(dates, previousDates)) {
+            throw datesNotAvailable(BookingMetrics.OPERATION_UPDATE);
+        }
+
+        int updated = bookingWriter.updateIfVersionMatches(id, resourceId, input.getEmail(), input.getFirstName(), input.getLastName(),
+                input.getArrivalDate(), input.getDepartureDate(), current.getVersion());
+        if (updated == 0) {
+            throw new BookingConflictException();
+        }
+
+        if (resourceId == previousDates.getResourceId()) {
+            bookingNightRepository.deleteNightsOutside(id, input.getArrivalDate(), input.getDepartureDate());
+        } else {
+            bookingNightRepository.deleteNightsOf(id);
+        }
+        BookingEntity booking = bookingRepository.getReferenceById(id);
+        bookingNightRepository.saveAll(input.getArrivalDate().datesUntil(input.getDepartureDate())
+                .filter(night -> !previousDates.overlaps(DateRange.of(resourceId, night, night.plusDays(1))))
+                .map(night -> new BookingNightEntity(booking, resourceId, night))
+                .collect(Collectors.toList()));
+        batch.release(previousDates);
+        batch.claim(dates);
+        eventPublisher.publishEvent(OccupancyChangedEvent.moved(previousDates, dates));
+        eventPublisher.publishEvent(BookingChangedEvent.updated(id, current.getVersion() + 1));
+
+        BookingEntity entity = BookingMapper.INSTANCE.mapInputToEntity(input);
+        entity.setId(id);
+        entity.setResourceId(resourceId);
+        entity.setVersion(current.getVersion() + 1);
+        return BookingMapper.INSTANCE.mapEntityToOutput(entity);
+    }
+
+    private Void deleteBooking(Batch batch, long id) throws BookingNotFoundException, BookingConflictException {
+        VersionedBookedDates current = bookingRepository.findBookedDatesById(id).orElseThrow(BookingNotFoundException::new);
+        DateRange previousDates = DateRange.of(current.getResourceId(), current.getArrivalDate(), current.getDepartureDate());
+        bookingNightRepository.deleteNightsOf(id);
+        if (bookingWriter.deleteIfVersionMatches(id, current.getVersion()) == 0) {
+            throw new BookingConflictException();
+        }
+        batch.release(previousDates);
+        eventPublisher.publishEvent(OccupancyChangedEvent.released(previousDates));
+        eventPublisher.publishEvent(BookingChangedEvent.deleted(id));
+        return null;
+    }
+
+    private Exception translate(RuntimeException e) {
+        if (e instanceof DataIntegrityViolationException && BookingNightConstraint.isViolatedBy(e)) {
+            return datesNotAvailable(BookingMetrics.OPERATION_CREATE);
+        }
+        if (e instanceof OptimisticLockingFailureException) {
+            bookingMetrics.recordConflict(BookingMetrics.OPERATION_UPDATE, BookingMetrics.REASON_OPTIMISTIC_LOCK);
+            return new BookingConflictException();
+        }
+        return e;
+    }
+
+    private BookingValidationException datesNotAvailable(String operation) {
+        bookingMetrics.recordConflict(operation, BookingMetrics.REASON_DATES_UNAVAILABLE);
+        return new BookingValidationException(DATES_NOT_AVAILABLE);
+    }
+
+    private int idle(int spins) {
+        if (spins < 100) {
+            Thread.onSpinWait();
+        } else if (spins < 200) {
+            Thread.yield();
+        } else {
+            ring.awaitPublished(IDLE_PARK_NANOS);
+        }
+        return spins + 1;
+    }
+
+    private static IllegalStateException stopped() {
+        return new IllegalStateException("Booking sequencer is stopped");
+    }
+
+    /**
+     * Nights claimed and released by the mutations of the current, not yet committed, batch, per resource. A night
+     * is taken when a mutation of the batch claimed it, or when the index has it and the batch has not released it.
+     */
+    private final class Batch {
+
+        private final Map<Long, BitSet> claimed = new HashMap<>();
+        private final Map<Long, BitSet> released = new HashMap<>();
+
+        boolean isFree(DateRange dates, DateRange own) {
+            BitSet claimedNights = nightsOf(claimed, dates.getResourceId());
+            BitSet releasedNights = nightsOf(released, dates.getResourceId());
+            boolean sameResource = own != null && own.getResourceId() == dates.getResourceId();
+            for (int night = dates.getFirstNight(); night < dates.getLastNightExclusive(); night++) {
+                if (sameResource && night >= own.getFirstNight() && night < own.getLastNightExclusive()) {
+                    continue;
+                }
+                if (claimedNights.get(night) || (!releasedNights.get(night) && !isFreeInIndex(dates.getResourceId(), night))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void claim(DateRange dates) {
+            nightsOf(claimed, dates.getResourceId()).set(dates.getFirstNight(), dates.getLastNightExclusive());
+        }
+
+        void release(DateRange dates) {
+            nightsOf(claimed, dates.getResourceId()).clear(dates.getFirstNight(), dates.getLastNightExclusive());
+            nightsOf(released, dates.getResourceId()).set(dates.getFirstNight(), dates.getLastNightExclusive());
+        }
+
+        private BitSet nightsOf(Map<Long, BitSet> nights, long resourceId) {
+            return nights.computeIfAbsent(resourceId, id -> new BitSet());
+        }
+
+        private boolean isFreeInIndex(long resourceId, int night) {
+            LocalDate date = LocalDate.ofEpochDay(night);
+            return occupancyIndex.isAvailable(DateRange.of(resourceId, date, date.plusDays(1)));
+        }
+    }
+
+    @FunctionalInterface
+    private interface Operation<T> {
+
+        T apply(Batch batch) throws BookingValidationException, BookingNotFoundException, BookingConflictException;
+    }
+
+    private static final class Mutation<T> {
+
+        private final Operation<T> operation;
+        private final MutationResult<T> result = new MutationResult<>();
+
+        private Mutation(Operation<T> operation) {
+            this.operation = operation;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void complete(Object value, Exception failure) {
+            if (failure != null) {
+                result.completeExceptionally(failure);
+            } else {
+                result.complete((T) value);
+            }
+        }
+    }
+
+    /**
+     * The outcome of a mutation, which can only be cancelled until the writer has taken it. A cancelled mutation is
+     * skipped when drained, so the caller knows it was never applied. Once taken, cancel returns false and the
+     * mutation completes normally.
+     */
+    private static final class MutationResult<T> extends CompletableFuture<T> {
+
+        private final AtomicBoolean taken = new AtomicBoolean();
+
+        private boolean claim() {
+            return taken.compareAndSet(false, true);
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return claim() && super.cancel(mayInterruptIfRunning);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.coding.challenge.booking.sequencer;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded multi-producer, single-consumer ring of preallocated slots. Producers claim a sequence number once its
+ * slot has been consumed, then publish by writing the sequence into the slot and wake the consumer if it is
+ * parked. The consumer reads slots strictly in sequence order, so mutations are applied in the order they were
+ * claimed.
+ */
+final class MutationRing<T> {
+
+    private final Object[] slots;
+    private final AtomicLongArray published;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong(-1);
+
+    private volatile long consumed = -1;
+    private volatile Thread parkedConsumer;
+
+    MutationRing(int size) {
+        if (Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("booking.sequencer.ring-size must be a power of two");
+        }
+
+        this.slots = new Object[size];
+        this.published = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            published.set(i, -1);
+        }
+    }
+
+    /**
+     * Publishes the element, waiting up to the timeout for a free slot while the ring is full.
+     *
+     * @return false if no slot was freed in time, in which case nothing was published
+     */
+    boolean offer(T element, long timeoutNanos) {
+        long deadline = System.nanoTime() + timeoutNanos;
+        long sequence;
+        while (true) {
+            long last = claimed.get();
+            sequence = last + 1;
+            if (sequence - consumed > slots.length) {
+                if (System.nanoTime() - deadline >= 0) {
+                    return false;
+                }
+                LockSupport.parkNanos(1_000);
+            } else if (claimed.compareAndSet(last, sequence)) {
+                break;
+            }
+        }
+
+        int index = (int) sequence & mask;
+        slots[index] = element;
+        published.set(index, sequence);
+        Thread consumer = parkedConsumer;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+        return true;
+    }
+
+    /**
+     * Parks the consumer until the next element is published or the timeout passes. Must only be called by the
+     * consumer thread.
+     */
+    void awaitPublished(long timeoutNanos) {
+        parkedConsumer = Thread.currentThread();
+        long next = consumed + 1;
+        if (published.get((int) next & mask) != next) {
+            LockSupport.parkNanos(this, timeoutNanos);
+        }
+        parkedConsumer = null;
+    }
+
+    /**
+     * Moves up to {@code max} published elements into {@code batch}. Must only be called by the consumer thread.
+     */
+    @SuppressWarnings("unchecked")
+    int drainTo(List<T> batch, int max) {
+        long next = consumed + 1;
+        int drained = 0;
+        while (drained < max) {
+            int index = (int) next & mask;
+            if (published.get(index) != next) {
+                break;
+            }
+            batch.add((T) slots[index]);
+            slots[index] = null;
+            next++;
+            drained++;
+        }
+
+        if (drained > 0) {
+            consumed = next - 1;
+        }
+        return drained;
+    }
+
+    long backlog() {
+        return claimed.get() - consumed;
+    }
+}
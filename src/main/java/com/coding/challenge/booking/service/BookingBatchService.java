@@ -0,0 +1,75 @@
+package com.coding.challenge.booking.service;
+
+import com.coding.challenge.booking.error.exception.BookingConflictException;
+import com.coding.challenge.booking.error.exception.BookingSavingException;
+import com.coding.challenge.booking.error.exception.BookingValidationException;
+import com.coding.challenge.booking.input.BookingInput;
+import com.coding.challenge.booking.metrics.BookingMetrics;
+import com.coding.challenge.booking.output.BookingBatchResultOutput;
+import com.coding.challenge.booking.output.BookingOutput;
+import com.coding.challenge.booking.persistance.BookingNightConstraint;
+import com.coding.challenge.booking.validation.BookingValidator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class BookingBatchService {
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingValidator bookingValidator;
+
+    @Autowired
+    private ConflictRetryPolicy conflictRetryPolicy;
+
+    public List<BookingBatchResultOutput> createBookings(List<BookingInput> inputs) throws Exception {
+        BookingBatchResultOutput[] results = new BookingBatchResultOutput[inputs.size()];
+        Map<Integer, BookingInput> validInputs = new LinkedHashMap<>();
+
+        for (int i = 0; i < inputs.size(); i++) {
+            try {
+                bookingValidator.validateInput(inputs.get(i));
+                validInputs.put(i, inputs.get(i));
+            } catch (BookingValidationException e) {
+                results[i] = new BookingBatchResultOutput(i, HttpStatus.BAD_REQUEST.value(), null, e.getErrors());
+            }
+        }
+
+        if (!validInputs.isEmpty()) {
+            try {
+                bookingService.createBookings(validInputs).forEach(result -> results[result.getIndex()] = result);
+            } catch (DataIntegrityViolationException e) {
+                if (!BookingNightConstraint.isViolatedBy(e)) {
+                    throw e;
+                }
+                // another writer took some of the nights after our checks; settle the batch one booking at a time
+                validInputs.forEach((index, input) -> results[index] = createBooking(index, input));
+            }
+        }
+
+        return List.of(results);
+    }
+
+    private BookingBatchResultOutput createBooking(int index, BookingInput input) {
+        try {
+            BookingOutput output = conflictRetryPolicy.execute(BookingMetrics.OPERATION_BATCH, () -> bookingService.createBooking(input));
+            return new BookingBatchResultOutput(index, HttpStatus.CREATED.value(), output, null);
+        } catch (BookingValidationException e) {
+            return new BookingBatchResultOutput(index, HttpStatus.BAD_REQUEST.value(), null, e.getErrors());
+        } catch (BookingConflictException e) {
+            return new BookingBatchResultOutput(index, HttpStatus.CONFLICT.value(), null, List.of(e.getMessage()));
+        } catch (BookingSavingException e) {
+            return new BookingBatchResultOutput(index, HttpStatus.INTERNAL_SERVER_ERROR.value(), null, List.of(e.getMessage()));
+        } catch (Exception e) {
+            return new BookingBatchResultOutput(index, HttpStatus.INTERNAL_SERVER_ERROR.value(), null, List.of("Unable to process booking request"));
+        }
+    }
+}
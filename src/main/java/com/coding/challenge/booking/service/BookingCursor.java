@@ -0,0 +1,36 @@
+package com.coding.challenge.booking.service;
+
+import com.coding.challenge.booking.error.exception.BookingValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+public final class BookingCursor {
+
+    private static final String PREFIX = "id:";
+
+    private BookingCursor() {
+    }
+
+    public static String encode(long lastId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString((PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static long decode(String cursor) throws BookingValidationException {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0L;
+        }
+
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (decoded.startsWith(PREFIX)) {
+                return Long.parseLong(decoded.substring(PREFIX.length()));
+            }
+        } catch (IllegalArgumentException e) {
+            // falls through to the validation error below
+        }
+
+        throw new BookingValidationException(List.of("Cursor is not valid"));
+    }
+}
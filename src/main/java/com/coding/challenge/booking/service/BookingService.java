@@ -1,20 +1,55 @@
 package com.coding.challenge.booking.service;
 
 import com.coding.challenge.booking.entity.BookingEntity;
+import com.coding.challenge.booking.entity.BookingNightEntity;
+import com.coding.challenge.booking.error.exception.BookingConflictException;
 import com.coding.challenge.booking.error.exception.BookingNotFoundException;
-import com.coding.challenge.booking.error.exception.BookingSavingException;
 import com.coding.challenge.booking.error.exception.BookingValidationException;
+import com.coding.challenge.booking.etag.BookingChangedEvent;
 import com.coding.challenge.booking.input.BookingInput;
+import com.coding.challenge.booking.lock.ReservationLock;
 import com.coding.challenge.booking.mapper.BookingMapper;
+import com.coding.challenge.booking.metrics.BookingMetrics;
+import com.coding.challenge.booking.occupancy.AvailabilityCache;
+import com.coding.challenge.booking.occupancy.DateRange;
+import com.coding.challenge.booking.occupancy.OccupancyChangedEvent;
+import com.coding.challenge.booking.occupancy.OccupancyIndex;
+import com.coding.challenge.booking.output.AvailabilityBitmapOutput;
+import com.coding.challenge.booking.output.AvailabilityRangeOutput;
+import com.coding.challenge.booking.output.BookingBatchResultOutput;
 import com.coding.challenge.booking.output.BookingOutput;
+import com.coding.challenge.booking.output.BookingPageOutput;
+import com.coding.challenge.booking.persistance.BookingNightConstraint;
+import com.coding.challenge.booking.persistance.BookingNightRepository;
 import com.coding.challenge.booking.persistance.BookingRepository;
+import com.coding.challenge.booking.persistance.BookingWriter;
+import com.coding.challenge.booking.persistance.VersionedBookedDates;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import javax.persistence.OptimisticLockException;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 import java.time.LocalDate;
-import java.util.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 @Service
 public class BookingService {
@@ -22,78 +57,322 @@ public class BookingService {
     @Autowired
     private BookingRepository bookingRepository;
 
+    @Autowired
+    private BookingNightRepository bookingNightRepository;
+
+    @Autowired
+    private BookingWriter bookingWriter;
+
+    @Autowired
+    private OccupancyIndex occupancyIndex;
+
+    @Autowired
+    private AvailabilityCache availabilityCache;
+
+    @Autowired
+    private ReservationLock reservationLock;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private BookingMetrics bookingMetrics;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${booking.resources.count:1}")
+    private long resourceCount;
+
+    @Transactional(rollbackFor = Exception.class)
     public BookingOutput createBooking(BookingInput input) throws Exception {
+        reservationLock.lockUntilTransactionCompletes(toDateRange(input));
+
         if (!areBookingDatesAvailable(input)) {
+            bookingMetrics.recordConflict(BookingMetrics.OPERATION_CREATE, BookingMetrics.REASON_DATES_UNAVAILABLE);
             throw new BookingValidationException(List.of("Booking dates not available"));
         }
 
         try {
             BookingEntity entity = BookingMapper.INSTANCE.mapInputToEntity(input);
-            BookingEntity responseEntity = bookingRepository.save(entity);
+            reserveNights(entity);
+            BookingEntity responseEntity = bookingRepository.saveAndFlush(entity);
+            eventPublisher.publishEvent(OccupancyChangedEvent.occupied(toDateRange(responseEntity)));
             return BookingMapper.INSTANCE.mapEntityToOutput(responseEntity);
-        } catch (OptimisticLockException e) {
-            throw new BookingSavingException();
+        } catch (DataIntegrityViolationException e) {
+            if (!BookingNightConstraint.isViolatedBy(e)) {
+                throw e;
+            }
+            bookingMetrics.recordConflict(BookingMetrics.OPERATION_CREATE, BookingMetrics.REASON_DATES_UNAVAILABLE);
+            throw new BookingValidationException(List.of("Booking dates not available"));
         }
     }
 
+    @Transactional(rollbackFor = Exception.class)
+    public List<BookingBatchResultOutput> createBookings(Map<Integer, BookingInput> inputs) throws Exception {
+        reservationLock.lockUntilTransactionCompletes(inputs.values().stream().map(BookingService::toDateRange).toArray(DateRange[]::new));
+
+        List<BookingBatchResultOutput> results = new ArrayList<>(inputs.size());
+        Map<Integer, BookingEntity> acceptedEntities = new LinkedHashMap<>();
+        Map<Long, BitSet> claimedNightsByResource = new HashMap<>();
+
+        for (Map.Entry<Integer, BookingInput> entry : inputs.entrySet()) {
+            DateRange dates = toDateRange(entry.getValue());
+            BitSet claimedNights = claimedNightsByResource.computeIfAbsent(dates.getResourceId(), id -> new BitSet());
+            int claimedNight = claimedNights.nextSetBit(dates.getFirstNight());
+            if (!isAvailable(dates) || (claimedNight >= 0 && claimedNight < dates.getLastNightExclusive())) {
+                bookingMetrics.recordConflict(BookingMetrics.OPERATION_BATCH, BookingMetrics.REASON_DATES_UNAVAILABLE);
+                results.add(new BookingBatchResultOutput(entry.getKey(), HttpStatus.BAD_REQUEST.value(), null, List.of("Booking dates not available")));
+                continue;
+            }
+
+            claimedNights.set(dates.getFirstNight(), dates.getLastNightExclusive());
+            BookingEntity entity = BookingMapper.INSTANCE.mapInputToEntity(entry.getValue());
+            reserveNights(entity);
+            acceptedEntities.put(entry.getKey(), entity);
+        }
+
+        bookingRepository.saveAll(acceptedEntities.values());
+        bookingRepository.flush();
+
+        acceptedEntities.forEach((index, entity) -> {
+            eventPublisher.publishEvent(OccupancyChangedEvent.occupied(toDateRange(entity)));
+            results.add(new BookingBatchResultOutput(index, HttpStatus.CREATED.value(), BookingMapper.INSTANCE.mapEntityToOutput(entity), null));
+        });
+        return results;
+    }
+
+    /**
+     * Persists bookings whose nights the caller already holds through {@link OccupancyIndex#tryReserve}, so
+     * neither date locks nor the index are consulted; the nights unique constraint still rejects a clash.
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public List<BookingOutput> saveReservedBookings(List<BookingEntity> entities) {
+        entities.forEach(BookingService::reserveNights);
+        bookingRepository.saveAll(entities);
+        bookingRepository.flush();
+
+        List<BookingOutput> outputs = new ArrayList<>(entities.size());
+        for (BookingEntity entity : entities) {
+            eventPublisher.publishEvent(OccupancyChangedEvent.occupied(toDateRange(entity)));
+            outputs.add(BookingMapper.INSTANCE.mapEntityToOutput(entity));
+        }
+        return outputs;
+    }
+
+    @Transactional(readOnly = true)
     public List<BookingOutput> getAllBookings() {
         return bookingRepository.findAll().stream().map(BookingMapper.INSTANCE::mapEntityToOutput).collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
+    public BookingPageOutput getBookingsPage(String cursor, int limit) throws BookingValidationException {
+        long afterId = BookingCursor.decode(cursor);
+        List<BookingEntity> entities = bookingRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, limit + 1));
+
+        boolean hasNextPage = entities.size() > limit;
+        List<BookingOutput> bookings = entities.stream().limit(limit).map(BookingMapper.INSTANCE::mapEntityToOutput).collect(Collectors.toList());
+        String nextCursor = hasNextPage ? BookingCursor.encode(entities.get(limit - 1).getId()) : null;
+        return new BookingPageOutput(bookings, nextCursor);
+    }
+
+    @Transactional(readOnly = true)
+    public void streamAllBookings(Consumer<BookingOutput> consumer) {
+        try (Stream<BookingEntity> entities = bookingRepository.streamAllOrderById()) {
+            entities.forEach(entity -> {
+                consumer.accept(BookingMapper.INSTANCE.mapEntityToOutput(entity));
+                entityManager.detach(entity);
+            });
+        }
+    }
+
+    @Transactional(rollbackFor = Exception.class)
     public BookingOutput updateBooking(long id, BookingInput input) throws Exception {
-        BookingEntity entity = bookingRepository.findById(id).orElseThrow(BookingNotFoundException::new);
+        VersionedBookedDates current = bookingRepository.findBookedDatesById(id).orElseThrow(BookingNotFoundException::new);
+        DateRange previousDates = toDateRange(current);
+        long resourceId = input.getResourceId() != null ? input.getResourceId() : current.getResourceId();
+        DateRange dates = DateRange.of(resourceId, input.getArrivalDate(), input.getDepartureDate());
+        reservationLock.lockUntilTransactionCompletes(previousDates, dates);
 
-        if (!areBookingDatesAvailableToUpdate(input, entity)) {
+        if (!isAvailable(dates, id, previousDates)) {
+            bookingMetrics.recordConflict(BookingMetrics.OPERATION_UPDATE, BookingMetrics.REASON_DATES_UNAVAILABLE);
             throw new BookingValidationException(List.of("Booking dates not available"));
         }
 
-        entity.setEmail(input.getEmail());
-        entity.setFirstName(input.getFirstName());
-        entity.setLastName(input.getLastName());
-        entity.setArrivalDate(input.getArrivalDate());
-        entity.setDepartureDate(input.getDepartureDate());
+        int updated = bookingWriter.updateIfVersionMatches(id, resourceId, input.getEmail(), input.getFirstName(), input.getLastName(),
+                input.getArrivalDate(), input.getDepartureDate(), current.getVersion());
+        if (updated == 0) {
+            if (!bookingRepository.existsById(id)) {
+                throw new BookingNotFoundException();
+            }
+            throw new BookingConflictException();
+        }
 
         try {
-            BookingEntity responseEntity = bookingRepository.save(entity);
-            return BookingMapper.INSTANCE.mapEntityToOutput(responseEntity);
-        } catch (OptimisticLockException e) {
-            throw new BookingSavingException();
+            if (resourceId == previousDates.getResourceId()) {
+                bookingNightRepository.deleteNightsOutside(id, input.getArrivalDate(), input.getDepartureDate());
+            } else {
+                bookingNightRepository.deleteNightsOf(id);
+            }
+            bookingNightRepository.saveAllAndFlush(addedNights(id, previousDates, dates));
+        } catch (DataIntegrityViolationException e) {
+            if (!BookingNightConstraint.isViolatedBy(e)) {
+                throw e;
+            }
+            bookingMetrics.recordConflict(BookingMetrics.OPERATION_UPDATE, BookingMetrics.REASON_DATES_UNAVAILABLE);
+            throw new BookingValidationException(List.of("Booking dates not available"));
         }
+
+        eventPublisher.publishEvent(OccupancyChangedEvent.moved(previousDates, dates));
+        eventPublisher.publishEvent(BookingChangedEvent.updated(id, current.getVersion() + 1));
+
+        BookingEntity entity = BookingMapper.INSTANCE.mapInputToEntity(input);
+        entity.setId(id);
+        entity.setResourceId(resourceId);
+        entity.setVersion(current.getVersion() + 1);
+        return BookingMapper.INSTANCE.mapEntityToOutput(entity);
     }
 
+    @Transactional(readOnly = true)
     public BookingOutput getBooking(long id) throws Exception {
         BookingEntity responseEntity = bookingRepository.findById(id).orElseThrow(BookingNotFoundException::new);
         return BookingMapper.INSTANCE.mapEntityToOutput(responseEntity);
     }
 
+    @Transactional(rollbackFor = Exception.class)
     public void deleteBooking(long id) throws Exception {
-        if (!bookingRepository.existsById(id)) {
-            throw new BookingNotFoundException();
+        VersionedBookedDates current = bookingRepository.findBookedDatesById(id).orElseThrow(BookingNotFoundException::new);
+        bookingNightRepository.deleteNightsOf(id);
+        if (bookingWriter.deleteIfVersionMatches(id, current.getVersion()) == 0) {
+            // an update moved the booking after it was read, so current no longer names the nights it holds
+            if (!bookingRepository.existsById(id)) {
+                throw new BookingNotFoundException();
+            }
+            throw new BookingConflictException();
+        }
+        eventPublisher.publishEvent(OccupancyChangedEvent.released(toDateRange(current)));
+        eventPublisher.publishEvent(BookingChangedEvent.deleted(id));
+    }
+
+    public long getOccupancyVersion(long resourceId) {
+        return occupancyIndex.getVersion(resourceId);
+    }
+
+    public List<LocalDate> getAvailableDates(long resourceId, LocalDate startDate, LocalDate endDate) {
+        if (reservationLock.isDistributed()) {
+            // the cache is only invalidated by this instance's changes
+            return lookupAvailableDates(resourceId, startDate, endDate);
         }
-        bookingRepository.deleteById(id);
+        return availabilityCache.get(resourceId, startDate, endDate, (start, end) -> lookupAvailableDates(resourceId, start, end));
     }
 
-    public List<LocalDate> getAvailableDates(LocalDate startDate, LocalDate endDate) {
-        List<LocalDate> availableDates = startDate.datesUntil(endDate).collect(Collectors.toList());
-        List<BookingEntity> reservedDates = bookingRepository.getAllBookedDatesBetween(startDate, endDate);
-        Set<LocalDate> dates = new HashSet<>();
-        for (BookingEntity entity : reservedDates) {
-            dates.addAll(entity.getArrivalDate().datesUntil(entity.getDepartureDate()).collect(Collectors.toList()));
+    /**
+     * Feeds the available dates of the window to the consumer one chunk at a time, so a wide window is never
+     * held in memory as a whole. Bypasses the availability cache.
+     */
+    public void streamAvailableDates(long resourceId, LocalDate startDate, LocalDate endDate, int chunkDays, Consumer<LocalDate> consumer) {
+        for (LocalDate chunkStart = startDate; chunkStart.isBefore(endDate); chunkStart = chunkStart.plusDays(chunkDays)) {
+            LocalDate chunkEnd = chunkStart.plusDays(chunkDays).isBefore(endDate) ? chunkStart.plusDays(chunkDays) : endDate;
+            lookupAvailableDates(resourceId, chunkStart, chunkEnd).forEach(consumer);
         }
+    }
 
-        availableDates.removeAll(new ArrayList<>(dates));
+    public List<AvailabilityRangeOutput> getAvailableRanges(long resourceId, LocalDate startDate, LocalDate endDate) {
+        return OccupancyIndex.toRanges(resourceId, startDate, getFreeNights(resourceId, startDate, endDate)).stream()
+                .map(range -> new AvailabilityRangeOutput(range.getArrivalDate(), range.getDepartureDate()))
+                .collect(Collectors.toList());
+    }
+
+    public AvailabilityBitmapOutput getAvailabilityBitmap(long resourceId, LocalDate startDate, LocalDate endDate) {
+        int nights = (int) Math.max(0, endDate.toEpochDay() - startDate.toEpochDay());
+        byte[] bits = Arrays.copyOf(getFreeNights(resourceId, startDate, endDate).toByteArray(), (nights + 7) / 8);
+        return new AvailabilityBitmapOutput(startDate, nights, Base64.getEncoder().encodeToString(bits));
+    }
+
+    /**
+     * Resources free for every night from the arrival date up to the departure date, in resource id order.
+     */
+    public List<Long> getAvailableResources(LocalDate arrivalDate, LocalDate departureDate) {
+        if (!reservationLock.isDistributed()) {
+            return occupancyIndex.getAvailableResources(resourceCount, arrivalDate, departureDate);
+        }
+
+        Set<Long> bookedResourceIds = new HashSet<>(bookingNightRepository.findResourceIdsWithNightsBetween(arrivalDate, departureDate));
+        return LongStream.rangeClosed(1, resourceCount)
+                .filter(resourceId -> !bookedResourceIds.contains(resourceId)
+                        && occupancyIndex.isFreeOfReservations(DateRange.of(resourceId, arrivalDate, departureDate)))
+                .boxed()
+                .collect(Collectors.toList());
+    }
 
+    private List<LocalDate> lookupAvailableDates(long resourceId, LocalDate startDate, LocalDate endDate) {
+        long start = System.nanoTime();
+        List<LocalDate> availableDates = reservationLock.isDistributed()
+                ? getFreeNights(resourceId, startDate, endDate).stream().mapToObj(startDate::plusDays).collect(Collectors.toList())
+                : occupancyIndex.getAvailableDates(resourceId, startDate, endDate);
+        bookingMetrics.recordAvailabilityLookup(System.nanoTime() - start, availableDates.size());
         return availableDates;
     }
 
+    /**
+     * With a distributed lock, the index misses bookings made by other instances. Booked nights are then read from
+     * the database, and only reservations, which never leave this instance, come from the index.
+     */
+    private BitSet getFreeNights(long resourceId, LocalDate startDate, LocalDate endDate) {
+        if (!reservationLock.isDistributed()) {
+            return occupancyIndex.getFreeNights(resourceId, startDate, endDate);
+        }
+
+        BitSet freeNights = occupancyIndex.getUnreservedNights(resourceId, startDate, endDate);
+        bookingNightRepository.findNightsBetween(resourceId, startDate, endDate)
+                .forEach(night -> freeNights.clear((int) (night.toEpochDay() - startDate.toEpochDay())));
+        return freeNights;
+    }
+
     private boolean areBookingDatesAvailable(BookingInput input) {
-        List<LocalDate> availableDates = getAvailableDates(input.getArrivalDate(), input.getDepartureDate());
-        return availableDates != null && new HashSet<>(availableDates).containsAll(input.getArrivalDate().datesUntil(input.getDepartureDate()).collect(Collectors.toList()));
+        return isAvailable(toDateRange(input));
+    }
+
+    private boolean isAvailable(DateRange dates) {
+        if (reservationLock.isDistributed()) {
+            // held and write-behind nights are reserved only in this instance's index
+            return occupancyIndex.isFreeOfReservations(dates)
+                    && bookingNightRepository.countNightsBetween(dates.getResourceId(), dates.getArrivalDate(), dates.getDepartureDate()) == 0;
+        }
+        return occupancyIndex.isAvailable(dates);
+    }
+
+    private boolean isAvailable(DateRange dates, long bookingId, DateRange previousDates) {
+        if (reservationLock.isDistributed()) {
+            return occupancyIndex.isFreeOfReservations(dates)
+                    && bookingNightRepository.countNightsOfOtherBookingsBetween(bookingId, dates.getResourceId(), dates.getArrivalDate(), dates.getDepartureDate()) == 0;
+        }
+        return occupancyIndex.isAvailable(dates, previousDates);
+    }
+
+    private static void reserveNights(BookingEntity entity) {
+        Set<LocalDate> requestedNights = entity.getArrivalDate().datesUntil(entity.getDepartureDate()).collect(Collectors.toSet());
+        entity.getNights().removeIf(night -> !requestedNights.remove(night.getNight()));
+        requestedNights.forEach(night -> entity.getNights().add(new BookingNightEntity(entity, night)));
+    }
+
+    private List<BookingNightEntity> addedNights(long id, DateRange previousDates, DateRange dates) {
+        BookingEntity booking = bookingRepository.getReferenceById(id);
+        return dates.getArrivalDate().datesUntil(dates.getDepartureDate())
+                .filter(night -> !previousDates.overlaps(DateRange.of(dates.getResourceId(), night, night.plusDays(1))))
+                .map(night -> new BookingNightEntity(booking, dates.getResourceId(), night))
+                .collect(Collectors.toList());
+    }
+
+    private static DateRange toDateRange(BookingEntity entity) {
+        return DateRange.of(entity.getResourceId(), entity.getArrivalDate(), entity.getDepartureDate());
+    }
+
+    private static DateRange toDateRange(VersionedBookedDates bookedDates) {
+        return DateRange.of(bookedDates.getResourceId(), bookedDates.getArrivalDate(), bookedDates.getDepartureDate());
     }
 
-    private boolean areBookingDatesAvailableToUpdate(BookingInput newInput, BookingEntity oldEntity) {
-        List<LocalDate> availableDates = getAvailableDates(newInput.getArrivalDate(), newInput.getDepartureDate());
-        availableDates.addAll(oldEntity.getArrivalDate().datesUntil(oldEntity.getDepartureDate()).collect(Collectors.toList()));
-        return availableDates != null && new HashSet<>(availableDates).containsAll(newInput.getArrivalDate().datesUntil(newInput.getDepartureDate()).collect(Collectors.toList()));
+    private static DateRange toDateRange(BookingInput input) {
+        return BookingMapper.INSTANCE.mapInputToDateRange(input);
     }
 }
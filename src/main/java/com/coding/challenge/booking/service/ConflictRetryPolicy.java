@@ -0,0 +1,75 @@
+package com.coding.challenge.booking.service;
+
+import com.coding.challenge.booking.error.exception.BookingConflictException;
+import com.coding.challenge.booking.metrics.BookingMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.OptimisticLockException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Re-runs a transactional write that lost an optimistic-lock race. Every attempt starts a new transaction, so
+ * the booking is re-read and its availability re-checked. Attempts are spaced by a capped exponential backoff
+ * with full jitter so that writers colliding on the same booking do not retry in lockstep.
+ */
+@Component
+public class ConflictRetryPolicy {
+
+    private final BookingMetrics bookingMetrics;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+
+    public ConflictRetryPolicy(BookingMetrics bookingMetrics,
+                               @Value("${booking.retry.max-attempts:3}") int maxAttempts,
+                               @Value("${booking.retry.initial-backoff-ms:10}") long initialBackoffMillis,
+                               @Value("${booking.retry.max-backoff-ms:200}") long maxBackoffMillis) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("booking.retry.max-attempts must be at least 1");
+        }
+
+        this.bookingMetrics = bookingMetrics;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    public <T> T execute(String operation, Callable<T> write) throws Exception {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return write.call();
+            } catch (BookingConflictException | OptimisticLockingFailureException | OptimisticLockException e) {
+                bookingMetrics.recordConflict(operation, BookingMetrics.REASON_OPTIMISTIC_LOCK);
+                if (attempt == maxAttempts) {
+                    bookingMetrics.recordRetriesExhausted(operation);
+                    throw new BookingConflictException();
+                }
+            }
+
+            bookingMetrics.recordRetry(operation);
+            backOff(attempt);
+        }
+    }
+
+    long backoffMillis(int attempt) {
+        long ceiling = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 30));
+        return ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private void backOff(int attempt) throws BookingConflictException {
+        long delay = backoffMillis(attempt);
+        if (delay == 0) {
+            return;
+        }
+
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BookingConflictException();
+        }
+    }
+}
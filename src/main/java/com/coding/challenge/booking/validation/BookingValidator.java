@@ -2,8 +2,9 @@ package com.coding.challenge.booking.validation;
 
 import com.coding.challenge.booking.error.exception.BookingValidationException;
 import com.coding.challenge.booking.input.BookingInput;
-import org.apache.commons.validator.GenericValidator;
+import com.coding.challenge.booking.metrics.BookingMetrics;
 import org.apache.commons.validator.routines.EmailValidator;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.util.ObjectUtils;
 
@@ -11,116 +12,198 @@ import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
-import static java.time.temporal.ChronoUnit.DAYS;
-
+/**
+ * Validates requests against rules compiled once from configuration. Field rules are evaluated first; the stay
+ * rules only run when every field is present and stop at their first failure. Dates are compared as epoch days
+ * against bounds computed once per day, so a valid request allocates nothing.
+ */
 @Component
 public class BookingValidator {
 
-    private static final Integer MIN_RESERVATION_DAYS_IN_ADVANCE = 1;
-    private static final Integer MAX_RESERVATION_DAYS = 3;
+    private static final Integer MAX_PAGE_SIZE = 500;
+    private static final Integer MAX_BATCH_SIZE = 100;
+    private static final String RESOURCE_NOT_FOUND = "Resource does not exist";
+    private static final String BOOKING_MISSING = "Booking cannot be empty";
+
+    private final BookingMetrics bookingMetrics;
+    private final DailyClock dailyClock;
+    private final boolean failFast;
+    private final int minDaysInAdvance;
+    private final int maxMonthsInAdvance;
+    private final int maxAvailabilityWindowDays;
+    private final String maxAvailabilityWindowError;
+    private final long resourceCount;
+    private final BookingRule[] fieldRules;
+    private final BookingRule[] stayRules;
+    private volatile Bounds cachedBounds;
+
+    public BookingValidator(BookingMetrics bookingMetrics,
+                            DailyClock dailyClock,
+                            @Value("${booking.validation.mode:COLLECT_ALL}") ValidationMode mode,
+                            @Value("${booking.validation.min-days-in-advance:1}") int minDaysInAdvance,
+                            @Value("${booking.validation.max-stay-days:3}") int maxStayDays,
+                            @Value("${booking.validation.max-months-in-advance:1}") int maxMonthsInAdvance,
+                            @Value("${booking.validation.max-availability-window-days:3660}") int maxAvailabilityWindowDays,
+                            @Value("${booking.resources.count:1}") long resourceCount) {
+        this.bookingMetrics = bookingMetrics;
+        this.dailyClock = dailyClock;
+        this.failFast = mode == ValidationMode.FAIL_FAST;
+        this.minDaysInAdvance = minDaysInAdvance;
+        this.maxMonthsInAdvance = maxMonthsInAdvance;
+        this.maxAvailabilityWindowDays = maxAvailabilityWindowDays;
+        this.maxAvailabilityWindowError = "Availability window cannot exceed " + maxAvailabilityWindowDays + " days";
+        this.resourceCount = resourceCount;
+        this.cachedBounds = boundsOf(dailyClock.today());
+
+        EmailValidator emailValidator = EmailValidator.getInstance();
+        String minDaysInAdvanceError = "Arrival date must be reserved minimum " + minDaysInAdvance + " day(s) ahead of arrival";
+        String maxMonthsInAdvanceError = "Departure date can be reserved up to " + maxMonthsInAdvance + (maxMonthsInAdvance == 1 ? " month" : " months") + " in advance";
+        String maxStayDaysError = "Booking can be reserved for max " + maxStayDays + " days";
+
+        this.fieldRules = new BookingRule[]{
+                (input, bounds) -> ObjectUtils.isEmpty(input.getFirstName()) ? "First name cannot be blank" : null,
+                (input, bounds) -> ObjectUtils.isEmpty(input.getLastName()) ? "Last name cannot be blank" : null,
+                (input, bounds) -> ObjectUtils.isEmpty(input.getEmail()) ? "Email cannot be blank"
+                        : emailValidator.isValid(input.getEmail()) ? null : "Email is not valid",
+                (input, bounds) -> input.getArrivalDate() == null ? "Arrival date cannot be blank" : null,
+                (input, bounds) -> input.getDepartureDate() == null ? "Departure date cannot be blank" : null,
+                (input, bounds) -> input.getResourceId() != null && !isResource(input.getResourceId()) ? RESOURCE_NOT_FOUND : null
+        };
+        this.stayRules = new BookingRule[]{
+                (input, bounds) -> input.getArrivalDate().toEpochDay() < bounds.earliestArrival ? minDaysInAdvanceError : null,
+                (input, bounds) -> input.getDepartureDate().toEpochDay() > bounds.latestDeparture ? maxMonthsInAdvanceError : null,
+                (input, bounds) -> input.getArrivalDate().isAfter(input.getDepartureDate()) ? "Arrival date must be before departure date" : null,
+                (input, bounds) -> input.getDepartureDate().toEpochDay() - input.getArrivalDate().toEpochDay() > maxStayDays ? maxStayDaysError : null
+        };
+    }
 
     public void validateInput(BookingInput input) throws BookingValidationException {
-        List<String> errors = new ArrayList<>();
+        if (input == null) {
+            throw new BookingValidationException(List.of(BOOKING_MISSING));
+        }
 
-        validateFirstName(input.getFirstName(), errors);
-        validateLastName(input.getLastName(), errors);
-        validateEmail(input.getEmail(), errors);
-        validateArrivalDate(input.getArrivalDate(), errors);
-        validateDepartureDate(input.getDepartureDate(), errors);
+        long start = System.nanoTime();
+        Bounds current = currentBounds();
+        List<String> errors = null;
+
+        for (BookingRule rule : fieldRules) {
+            String error = rule.check(input, current);
+            if (error != null) {
+                errors = add(errors, error);
+                if (failFast) {
+                    break;
+                }
+            }
+        }
 
-        if (errors.isEmpty()) {
-            validateDateConstraint(input.getArrivalDate(), input.getDepartureDate(), errors);
+        if (errors == null) {
+            for (BookingRule rule : stayRules) {
+                String error = rule.check(input, current);
+                if (error != null) {
+                    errors = add(errors, error);
+                    break;
+                }
+            }
         }
 
-        if (!errors.isEmpty()) {
+        bookingMetrics.recordValidation("booking", System.nanoTime() - start, errors == null ? 0 : errors.size());
+        if (errors != null) {
             throw new BookingValidationException(errors);
         }
     }
 
     public void validateAvailabilitiesDate(LocalDate startDate, LocalDate endDate) throws BookingValidationException {
-        List<String> errors = new ArrayList<>();
+        long start = System.nanoTime();
+        long today = currentBounds().today;
+        List<String> errors = null;
 
-        if (startDate.isBefore(LocalDate.now())) {
-            errors.add("Start date must be not be in the past");
+        if (startDate.toEpochDay() < today) {
+            errors = add(errors, "Start date must be not be in the past");
         }
 
-        if (endDate.isBefore(LocalDate.now())) {
-            errors.add("End date must be not be in the past");
+        if (endDate.toEpochDay() < today && (errors == null || !failFast)) {
+            errors = add(errors, "End date must be not be in the past");
         }
 
-        if (startDate.isAfter(endDate)) {
-            errors.add("Start date cannot be after end date");
+        if (startDate.isAfter(endDate) && (errors == null || !failFast)) {
+            errors = add(errors, "Start date cannot be after end date");
         }
 
-        if (!errors.isEmpty()) {
-            throw new BookingValidationException(errors);
+        if (endDate.toEpochDay() - startDate.toEpochDay() > maxAvailabilityWindowDays && (errors == null || !failFast)) {
+            errors = add(errors, maxAvailabilityWindowError);
         }
-    }
 
-    private void validateFirstName(String firstName, List<String> errors) {
-        if (ObjectUtils.isEmpty(firstName)) {
-            errors.add("First name cannot be blank");
+        bookingMetrics.recordValidation("availabilities", System.nanoTime() - start, errors == null ? 0 : errors.size());
+        if (errors != null) {
+            throw new BookingValidationException(errors);
         }
     }
 
-    private void validateLastName(String lastName, List<String> errors) {
-        if (ObjectUtils.isEmpty(lastName)) {
-            errors.add("Last name cannot be blank");
+    public void validateResource(long resourceId) throws BookingValidationException {
+        if (!isResource(resourceId)) {
+            throw new BookingValidationException(List.of(RESOURCE_NOT_FOUND));
         }
     }
 
-    private void validateEmail(String email, List<String> errors) {
-        if (ObjectUtils.isEmpty(email)) {
-            errors.add("Email cannot be blank");
-            return;
+    public void validateBatch(List<BookingInput> inputs) throws BookingValidationException {
+        if (inputs == null || inputs.isEmpty() || inputs.size() > MAX_BATCH_SIZE) {
+            throw new BookingValidationException(List.of("Batch must contain between 1 and " + MAX_BATCH_SIZE + " bookings"));
         }
+    }
 
-        if (!EmailValidator.getInstance().isValid(email)) {
-            errors.add("Email is not valid");
+    public void validatePageRequest(int limit) throws BookingValidationException {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new BookingValidationException(List.of("Limit must be between 1 and " + MAX_PAGE_SIZE));
         }
     }
 
-    private void validateArrivalDate(LocalDate arrivalDate, List<String> errors) {
-        if (ObjectUtils.isEmpty(arrivalDate)) {
-            errors.add("Arrival date cannot be blank");
-            return;
-        }
+    private boolean isResource(long resourceId) {
+        return resourceId >= 1 && resourceId <= resourceCount;
+    }
 
-        if (!GenericValidator.isDate(arrivalDate.toString(), "yyyy-MM-dd", true)) {
-            errors.add("Arrival date must be in yyyy-MM-dd format");
+    private Bounds currentBounds() {
+        LocalDate today = dailyClock.today();
+        Bounds current = cachedBounds;
+        if (!current.date.equals(today)) {
+            current = boundsOf(today);
+            cachedBounds = current;
         }
+        return current;
     }
 
-    private void validateDepartureDate(LocalDate departureDate, List<String> errors) {
-        if (ObjectUtils.isEmpty(departureDate)) {
-            errors.add("Departure date cannot be blank");
-            return;
-        }
+    private Bounds boundsOf(LocalDate today) {
+        return new Bounds(today, today.plusDays(minDaysInAdvance).toEpochDay(), today.plusMonths(maxMonthsInAdvance).toEpochDay());
+    }
 
-        if (!GenericValidator.isDate(departureDate.toString(), "yyyy-MM-dd", true)) {
-            errors.add("Departure date must be in yyyy-MM-dd format");
+    private static List<String> add(List<String> errors, String error) {
+        if (errors == null) {
+            errors = new ArrayList<>(2);
         }
+        errors.add(error);
+        return errors;
     }
 
-    private void validateDateConstraint(LocalDate arrivalDate, LocalDate departureDate, List<String> errors) {
-        if (arrivalDate.isBefore(LocalDate.now().plusDays(MIN_RESERVATION_DAYS_IN_ADVANCE))) {
-            errors.add("Arrival date must be reserved minimum 1 day(s) ahead of arrival");
-            return;
-        }
+    @FunctionalInterface
+    private interface BookingRule {
 
-        if (departureDate.isAfter(LocalDate.now().plusMonths(1))) {
-            errors.add("Departure date can be reserved up to 1 month in advance");
-            return;
-        }
+        /**
+         * @return the error message, or null when the input passes
+         */
+        String check(BookingInput input, Bounds bounds);
+    }
 
-        if (arrivalDate.isAfter(departureDate)) {
-            errors.add("Arrival date must be before departure date");
-            return;
-        }
+    private static final class Bounds {
 
-        if (DAYS.between(arrivalDate, departureDate) > MAX_RESERVATION_DAYS) {
-            errors.add("Booking can be reserved for max 3 days");
+        private final LocalDate date;
+        private final long today;
+        private final long earliestArrival;
+        private final long latestDeparture;
+
+        private Bounds(LocalDate date, long earliestArrival, long latestDeparture) {
+            this.date = date;
+            this.today = date.toEpochDay();
+            this.earliestArrival = earliestArrival;
+            this.latestDeparture = latestDeparture;
         }
     }
-
 }
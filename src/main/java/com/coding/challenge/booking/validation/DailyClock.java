@@ -0,0 +1,48 @@
+package com.coding.challenge.booking.validation;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Today's date in the clock's zone. The date is resolved once per day and reused until midnight instead of being
+ * derived from the clock on every call.
+ */
+@Component
+public class DailyClock {
+
+    private final Clock clock;
+    private volatile Day day;
+
+    public DailyClock(Clock clock) {
+        this.clock = clock;
+        this.day = dayOf(clock.instant());
+    }
+
+    public LocalDate today() {
+        Day current = day;
+        if (clock.millis() >= current.nextDayMillis) {
+            current = dayOf(clock.instant());
+            day = current;
+        }
+        return current.date;
+    }
+
+    private Day dayOf(Instant instant) {
+        LocalDate date = LocalDate.ofInstant(instant, clock.getZone());
+        return new Day(date, date.plusDays(1).atStartOfDay(clock.getZone()).toInstant().toEpochMilli());
+    }
+
+    private static final class Day {
+
+        private final LocalDate date;
+        private final long nextDayMillis;
+
+        private Day(LocalDate date, long nextDayMillis) {
+            this.date = date;
+            this.nextDayMillis = nextDayMillis;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.coding.challenge.booking.validation;
+
+public enum ValidationMode {
+
+    /** Report every failing rule of a request. */
+    COLLECT_ALL,
+
+    /** Stop at the first failing rule. */
+    FAIL_FAST
+}
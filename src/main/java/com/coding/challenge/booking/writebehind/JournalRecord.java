@@ -0,0 +1,37 @@
+package com.coding.challenge.booking.writebehind;
+
+import com.coding.challenge.booking.input.BookingInput;
+import com.coding.challenge.booking.output.BookingHandleOutput;
+import com.coding.challenge.booking.output.BookingHandleStatus;
+import com.coding.challenge.booking.output.BookingOutput;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+class JournalRecord {
+
+    private String handle;
+    private BookingHandleStatus status;
+    private BookingInput input;
+    private BookingOutput booking;
+    private List<String> errorMessages;
+
+    static JournalRecord accepted(String handle, BookingInput input) {
+        return new JournalRecord(handle, BookingHandleStatus.PENDING, input, null, null);
+    }
+
+    static JournalRecord resolved(BookingHandleOutput output) {
+        return new JournalRecord(output.getHandle(), output.getStatus(), null, output.getBooking(), output.getErrorMessages());
+    }
+
+    BookingHandleOutput toOutput() {
+        return new BookingHandleOutput(handle, status, booking, errorMessages);
+    }
+}
@@ -0,0 +1,375 @@
+package com.coding.challenge.booking.writebehind;
+
+import com.coding.challenge.booking.entity.BookingEntity;
+import com.coding.challenge.booking.error.exception.BookingConflictException;
+import com.coding.challenge.booking.error.exception.BookingNotFoundException;
+import com.coding.challenge.booking.error.exception.BookingQueueFullException;
+import com.coding.challenge.booking.error.exception.BookingSavingException;
+import com.coding.challenge.booking.error.exception.BookingValidationException;
+import com.coding.challenge.booking.input.BookingInput;
+import com.coding.challenge.booking.lock.ReservationLock;
+import com.coding.challenge.booking.mapper.BookingMapper;
+import com.coding.challenge.booking.metrics.BookingMetrics;
+import com.coding.challenge.booking.occupancy.AvailabilityCache;
+import com.coding.challenge.booking.occupancy.DateRange;
+import com.coding.challenge.booking.occupancy.OccupancyIndex;
+import com.coding.challenge.booking.output.BookingHandleOutput;
+import com.coding.challenge.booking.output.BookingHandleStatus;
+import com.coding.challenge.booking.output.BookingOutput;
+import com.coding.challenge.booking.persistance.BookingNightConstraint;
+import com.coding.challenge.booking.persistance.BookingRepository;
+import com.coding.challenge.booking.service.BookingService;
+import com.coding.challenge.booking.validation.BookingValidator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accepts bookings without waiting for the database. A submitted booking reserves its nights in the
+ * {@link OccupancyIndex}, is journaled, and is queued for a single writer thread that saves queued bookings in
+ * batched transactions. On startup, journaled bookings without an outcome are confirmed if their handle reached
+ * the database, queued again if their nights can still be reserved, and rejected otherwise.
+ */
+@Component
+@ConditionalOnProperty(name = "booking.write-behind.enabled", havingValue = "true")
+public class WriteBehindBookingPipeline {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WriteBehindBookingPipeline.class);
+
+    private static final List<String> DATES_NOT_AVAILABLE = List.of("Booking dates not available");
+    private static final List<String> UNABLE_TO_PROCESS = List.of("Unable to process booking request");
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BookingValidator bookingValidator;
+
+    @Autowired
+    private OccupancyIndex occupancyIndex;
+
+    @Autowired
+    private AvailabilityCache availabilityCache;
+
+    @Autowired
+    private ReservationLock reservationLock;
+
+    @Autowired
+    private BookingMetrics bookingMetrics;
+
+    private final BlockingQueue<PendingBooking> queue;
+    private final Map<String, PendingBooking> pending = new ConcurrentHashMap<>();
+    private final Cache<String, BookingHandleOutput> resolved;
+    private final WriteBehindJournal journal;
+    private final int batchSize;
+    private final long retryBackoffMillis;
+    private final int maxAttempts;
+    private final Thread writer = new Thread(this::drain, "booking-write-behind");
+
+    private volatile boolean running;
+
+    public WriteBehindBookingPipeline(MeterRegistry meterRegistry,
+                                      ObjectMapper jsonMapper,
+                                      @Value("${booking.write-behind.queue-capacity:10000}") int queueCapacity,
+                                      @Value("${booking.write-behind.batch-size:50}") int batchSize,
+                                      @Value("${booking.write-behind.journal-path:booking-write-behind.journal}") String journalPath,
+                                      @Value("${booking.write-behind.fsync:true}") boolean fsync,
+                                      @Value("${booking.write-behind.compact-after-records:10000}") int compactAfterRecords,
+                                      @Value("${booking.write-behind.retry-backoff-ms:1000}") long retryBackoffMillis,
+                                      @Value("${booking.write-behind.max-attempts:5}") int maxAttempts,
+                                      @Value("${booking.write-behind.status-retention-seconds:3600}") long statusRetentionSeconds) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("booking.write-behind.batch-size must be at least 1");
+        }
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("booking.write-behind.max-attempts must be at least 1");
+        }
+        if (compactAfterRecords < 1) {
+            throw new IllegalArgumentException("booking.write-behind.compact-after-records must be at least 1");
+        }
+
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.resolved = Caffeine.newBuilder().expireAfterWrite(Duration.ofSeconds(statusRetentionSeconds)).build();
+        this.journal = new WriteBehindJournal(Paths.get(journalPath), fsync, jsonMapper, compactAfterRecords);
+        this.batchSize = batchSize;
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.maxAttempts = maxAttempts;
+        Gauge.builder("booking.write_behind.queued", queue, BlockingQueue::size)
+                .description("Accepted bookings waiting for the writer")
+                .register(meterRegistry);
+        Gauge.builder("booking.write_behind.pending", pending, Map::size)
+                .description("Accepted bookings without an outcome yet")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        recover(journal.open());
+        running = true;
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+        if (writer.isAlive()) {
+            writer.interrupt();
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        if (writer.isAlive()) {
+            // the writer may still append outcomes; leave the journal open rather than lose them
+            LOGGER.warn("Write-behind writer did not stop; leaving the journal open");
+            return;
+        }
+        journal.close();
+    }
+
+    public BookingHandleOutput submit(BookingInput input) throws BookingValidationException, BookingConflictException, BookingSavingException, BookingQueueFullException {
+        DateRange dates = BookingMapper.INSTANCE.mapInputToDateRange(input);
+        ReservationLock.Lease lease = reservationLock.lock(dates);
+        try {
+            if (!occupancyIndex.tryReserve(dates)) {
+                bookingMetrics.recordConflict(BookingMetrics.OPERATION_CREATE, BookingMetrics.REASON_DATES_UNAVAILABLE);
+                throw new BookingValidationException(DATES_NOT_AVAILABLE);
+            }
+        } finally {
+            lease.close();
+        }
+        availabilityCache.invalidate(dates);
+
+        PendingBooking booking = new PendingBooking(UUID.randomUUID().toString(), input);
+        pending.put(booking.handle, booking);
+        try {
+            journal.append(JournalRecord.accepted(booking.handle, input));
+        } catch (IOException e) {
+            pending.remove(booking.handle);
+            release(dates);
+            throw new BookingSavingException();
+        }
+
+        if (!queue.offer(booking)) {
+            BookingQueueFullException rejection = new BookingQueueFullException();
+            resolve(booking, new BookingHandleOutput(booking.handle, BookingHandleStatus.REJECTED, null, List.of(rejection.getMessage())));
+            throw rejection;
+        }
+
+        return booking.toOutput();
+    }
+
+    public BookingHandleOutput getStatus(String handle) throws BookingNotFoundException {
+        PendingBooking booking = pending.get(handle);
+        if (booking != null) {
+            return booking.toOutput();
+        }
+        return Optional.ofNullable(resolved.getIfPresent(handle)).orElseThrow(BookingNotFoundException::new);
+    }
+
+    private void recover(List<JournalRecord> records) throws IOException {
+        Map<String, JournalRecord> accepted = new LinkedHashMap<>();
+        for (JournalRecord record : records) {
+            if (record.getStatus() == BookingHandleStatus.PENDING) {
+                accepted.put(record.getHandle(), record);
+            } else {
+                accepted.remove(record.getHandle());
+                resolved.put(record.getHandle(), record.toOutput());
+            }
+        }
+
+        for (JournalRecord record : accepted.values()) {
+            PendingBooking booking = new PendingBooking(record.getHandle(), record.getInput());
+            pending.put(booking.handle, booking);
+
+            Optional<BookingEntity> saved = bookingRepository.findByHandle(booking.handle);
+            if (saved.isPresent()) {
+                complete(booking, new BookingHandleOutput(booking.handle, BookingHandleStatus.CONFIRMED, BookingMapper.INSTANCE.mapEntityToOutput(saved.get()), null));
+                continue;
+            }
+
+            try {
+                bookingValidator.validateInput(booking.input);
+            } catch (BookingValidationException e) {
+                complete(booking, new BookingHandleOutput(booking.handle, BookingHandleStatus.REJECTED, null, e.getErrors()));
+                continue;
+            }
+
+            if (!occupancyIndex.tryReserve(booking.dates)) {
+                complete(booking, new BookingHandleOutput(booking.handle, BookingHandleStatus.REJECTED, null, DATES_NOT_AVAILABLE));
+                continue;
+            }
+            availabilityCache.invalidate(booking.dates);
+
+            if (!queue.offer(booking)) {
+                resolve(booking, new BookingHandleOutput(booking.handle, BookingHandleStatus.REJECTED, null, List.of(new BookingQueueFullException().getMessage())));
+            }
+        }
+
+        List<JournalRecord> outstanding = new ArrayList<>(pending.size());
+        pending.values().forEach(booking -> outstanding.add(JournalRecord.accepted(booking.handle, booking.input)));
+        journal.rewrite(outstanding);
+    }
+
+    private void drain() {
+        List<PendingBooking> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingBooking first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+                journal.compact();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RuntimeException e) {
+                LOGGER.error("Write-behind batch failed", e);
+                // outcomes are journaled, so only bookings the batch did not settle are still pending here
+                for (PendingBooking booking : batch) {
+                    if (pending.containsKey(booking.handle)) {
+                        resolve(booking, new BookingHandleOutput(booking.handle, BookingHandleStatus.REJECTED, null, UNABLE_TO_PROCESS));
+                    }
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<PendingBooking> batch) throws InterruptedException {
+        List<BookingOutput> outputs;
+        try {
+            outputs = save(batch);
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                reject(batch.get(0), e);
+                return;
+            }
+            // a night was taken outside of the reservations, or one booking cannot be saved; settle the batch one booking at a time
+            for (PendingBooking booking : batch) {
+                write(List.of(booking));
+            }
+            return;
+        }
+
+        if (outputs == null) {
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            resolve(batch.get(i), new BookingHandleOutput(batch.get(i).handle, BookingHandleStatus.CONFIRMED, outputs.get(i), null));
+        }
+    }
+
+    /**
+     * Saves the batch, retrying failures other than a constraint violation up to booking.write-behind.max-attempts
+     * times. Returns null if the pipeline stops meanwhile, leaving the batch to recovery.
+     */
+    private List<BookingOutput> save(List<PendingBooking> batch) throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            List<BookingEntity> entities = new ArrayList<>(batch.size());
+            for (PendingBooking booking : batch) {
+                BookingEntity entity = BookingMapper.INSTANCE.mapInputToEntity(booking.input);
+                entity.setHandle(booking.handle);
+                entities.add(entity);
+            }
+
+            try {
+                return bookingService.saveReservedBookings(entities);
+            } catch (DataIntegrityViolationException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                if (!running) {
+                    return null;
+                }
+                LOGGER.warn("Write-behind batch of {} bookings failed; retrying in {} ms", batch.size(), retryBackoffMillis, e);
+                Thread.sleep(retryBackoffMillis);
+            }
+        }
+    }
+
+    private void reject(PendingBooking booking, RuntimeException e) {
+        if (e instanceof DataIntegrityViolationException && BookingNightConstraint.isViolatedBy(e)) {
+            bookingMetrics.recordConflict(BookingMetrics.OPERATION_CREATE, BookingMetrics.REASON_DATES_UNAVAILABLE);
+            resolve(booking, new BookingHandleOutput(booking.handle, BookingHandleStatus.REJECTED, null, DATES_NOT_AVAILABLE));
+        } else {
+            LOGGER.error("Write-behind booking {} could not be saved", booking.handle, e);
+            resolve(booking, new BookingHandleOutput(booking.handle, BookingHandleStatus.REJECTED, null, UNABLE_TO_PROCESS));
+        }
+    }
+
+    /**
+     * Records the outcome of a booking that holds a reservation, then drops the reservation: a confirmed
+     * booking's nights are committed by now, a rejected one's are free again.
+     */
+    private void resolve(PendingBooking booking, BookingHandleOutput outcome) {
+        try {
+            journal.append(JournalRecord.resolved(outcome));
+        } catch (IOException e) {
+            // the booking stays unresolved in the journal and is settled again on restart
+            LOGGER.warn("Could not journal the outcome of booking {}", booking.handle, e);
+        }
+        release(booking.dates);
+        complete(booking, outcome);
+    }
+
+    private void complete(PendingBooking booking, BookingHandleOutput outcome) {
+        resolved.put(booking.handle, outcome);
+        pending.remove(booking.handle);
+    }
+
+    private void release(DateRange dates) {
+        occupancyIndex.releaseReservation(dates);
+        availabilityCache.invalidate(dates);
+    }
+
+    private static final class PendingBooking {
+
+        private final String handle;
+        private final BookingInput input;
+        private final DateRange dates;
+
+        private PendingBooking(String handle, BookingInput input) {
+            this.handle = handle;
+            this.input = input;
+            this.dates = BookingMapper.INSTANCE.mapInputToDateRange(input);
+        }
+
+        private BookingHandleOutput toOutput() {
+            return new BookingHandleOutput(handle, BookingHandleStatus.PENDING, null, null);
+        }
+    }
+}
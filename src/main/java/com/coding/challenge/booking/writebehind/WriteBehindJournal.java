@@ -0,0 +1,146 @@
+package com.coding.challenge.booking.writebehind;
+
+import com.coding.challenge.booking.output.BookingHandleStatus;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only log of write-behind bookings, one JSON record per line. An accepted booking is on disk before its
+ * handle is returned and every outcome is appended once known, so a restart can tell which accepted bookings
+ * never reached the database. A torn last line from a crash mid-append is skipped on read.
+ * <p>
+ * The journal tracks which bookings it holds no outcome for, and is compacted down to just their accepted records
+ * once enough settled records have piled up.
+ */
+class WriteBehindJournal implements Closeable {
+
+    private final Path path;
+    private final boolean fsync;
+    private final ObjectMapper jsonMapper;
+    private final int compactAfterRecords;
+    private final Map<String, JournalRecord> outstanding = new LinkedHashMap<>();
+
+    private FileChannel channel;
+    private int records;
+
+    WriteBehindJournal(Path path, boolean fsync, ObjectMapper jsonMapper, int compactAfterRecords) {
+        this.path = path;
+        this.fsync = fsync;
+        this.jsonMapper = jsonMapper;
+        this.compactAfterRecords = compactAfterRecords;
+    }
+
+    synchronized List<JournalRecord> open() throws IOException {
+        List<JournalRecord> records = new ArrayList<>();
+        if (Files.exists(path)) {
+            try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    try {
+                        JournalRecord record = jsonMapper.readValue(line, JournalRecord.class);
+                        records.add(record);
+                        track(record);
+                    } catch (JsonProcessingException e) {
+                        // only the last append can be torn; it never returned a handle
+                    }
+                }
+            }
+        }
+
+        channel = openForAppend(path);
+        return records;
+    }
+
+    synchronized void append(JournalRecord record) throws IOException {
+        write(channel, record);
+        if (fsync) {
+            channel.force(false);
+        }
+        track(record);
+    }
+
+    /**
+     * Rewrites the journal with only the accepted records of bookings that have no outcome yet. Does so once at
+     * least {@code compactAfterRecords} settled records have been written, or as soon as nothing is outstanding,
+     * when the journal simply becomes empty.
+     */
+    synchronized boolean compact() throws IOException {
+        int settled = records - outstanding.size();
+        if (settled == 0 || (!outstanding.isEmpty() && settled < compactAfterRecords)) {
+            return false;
+        }
+        rewrite(new ArrayList<>(outstanding.values()));
+        return true;
+    }
+
+    /**
+     * Replaces the journal with the given records.
+     */
+    synchronized void rewrite(Collection<JournalRecord> records) throws IOException {
+        Path rewritten = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(rewritten, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (JournalRecord record : records) {
+                write(out, record);
+            }
+            out.force(false);
+        }
+
+        channel.close();
+        Files.move(rewritten, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = openForAppend(path);
+        outstanding.clear();
+        this.records = 0;
+        records.forEach(this::track);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    private void track(JournalRecord record) {
+        records++;
+        if (record.getStatus() == BookingHandleStatus.PENDING) {
+            outstanding.put(record.getHandle(), record);
+        } else {
+            outstanding.remove(record.getHandle());
+        }
+    }
+
+    private void write(FileChannel target, JournalRecord record) throws IOException {
+        byte[] json = jsonMapper.writeValueAsBytes(record);
+        ByteBuffer line = ByteBuffer.allocate(json.length + 1).put(json).put((byte) '\n').flip();
+        while (line.hasRemaining()) {
+            target.write(line);
+        }
+    }
+
+    private static FileChannel openForAppend(Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+}
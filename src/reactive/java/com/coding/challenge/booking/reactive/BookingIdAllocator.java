@@ -0,0 +1,82 @@
+package com.coding.challenge.booking.reactive;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.Result;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Hands out ids from {@code hibernate_sequence} with the same pooled-lo scheme as the JPA entities (blocks of
+ * {@value #INCREMENT_SIZE}), so both variants can run against one schema without colliding. {@code table} mode
+ * reads the MySQL table Hibernate emulates the sequence with; {@code sequence} mode uses a native sequence.
+ */
+@Component
+public class BookingIdAllocator {
+
+    static final int INCREMENT_SIZE = 50;
+
+    private final DatabaseClient databaseClient;
+    private final boolean tableGenerator;
+
+    private long nextId;
+    private long blockEnd;
+
+    public BookingIdAllocator(DatabaseClient databaseClient,
+                              @Value("${booking.reactive.id-generator:table}") String idGenerator) {
+        if (!"table".equals(idGenerator) && !"sequence".equals(idGenerator)) {
+            throw new IllegalArgumentException("booking.reactive.id-generator must be table or sequence");
+        }
+
+        this.databaseClient = databaseClient;
+        this.tableGenerator = "table".equals(idGenerator);
+    }
+
+    public Mono<Long> nextId() {
+        synchronized (this) {
+            if (nextId < blockEnd) {
+                return Mono.just(nextId++);
+            }
+        }
+
+        // concurrent callers may each fetch a block; the loser's remainder is skipped, never reused
+        return fetchBlockStart().map(blockStart -> {
+            synchronized (this) {
+                nextId = blockStart + 1;
+                blockEnd = blockStart + INCREMENT_SIZE;
+            }
+            return blockStart;
+        });
+    }
+
+    /**
+     * Ids are reserved outside of any booking transaction: a block must stay consumed even when the booking that
+     * drew it rolls back, or another instance could be handed the same block.
+     */
+    public Mono<List<Long>> nextIds(int count) {
+        return Flux.range(0, count).concatMap(i -> nextId()).collectList();
+    }
+
+    private Mono<Long> fetchBlockStart() {
+        if (!tableGenerator) {
+            return databaseClient.sql("select next value for hibernate_sequence")
+                    .map((row, metadata) -> ((Number) row.get(0)).longValue())
+                    .one();
+        }
+
+        return databaseClient.inConnection(connection -> Flux.from(connection.createStatement(
+                                "update hibernate_sequence set next_val = last_insert_id(next_val + " + INCREMENT_SIZE + ")").execute())
+                .flatMap(Result::getRowsUpdated)
+                .then(lastInsertId(connection))
+                .map(hi -> hi - INCREMENT_SIZE));
+    }
+
+    private static Mono<Long> lastInsertId(Connection connection) {
+        return Mono.from(connection.createStatement("select last_insert_id()").execute())
+                .flatMap(result -> Mono.from(result.map((row, metadata) -> ((Number) row.get(0)).longValue())));
+    }
+}
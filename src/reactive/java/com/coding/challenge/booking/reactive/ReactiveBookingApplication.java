@@ -0,0 +1,30 @@
+package com.coding.challenge.booking.reactive;
+
+import com.coding.challenge.booking.metrics.BookingMetrics;
+import com.coding.challenge.booking.validation.BookingValidator;
+import com.coding.challenge.booking.validation.DailyClock;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+import java.time.Clock;
+
+/**
+ * Entry point of the WebFlux/R2DBC variant. Only this package is scanned; validation and metrics are shared
+ * with the servlet application.
+ */
+@SpringBootApplication
+@Import({BookingValidator.class, DailyClock.class, BookingMetrics.class})
+public class ReactiveBookingApplication {
+
+	public static void main(String[] args) {
+		new SpringApplicationBuilder(ReactiveBookingApplication.class).profiles("reactive").run(args);
+	}
+
+	@Bean
+	public Clock clock() {
+		return Clock.systemDefaultZone();
+	}
+
+}
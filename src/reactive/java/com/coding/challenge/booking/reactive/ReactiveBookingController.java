@@ -0,0 +1,101 @@
+package com.coding.challenge.booking.reactive;
+
+import com.coding.challenge.booking.input.BookingInput;
+import com.coding.challenge.booking.output.BookingBatchResultOutput;
+import com.coding.challenge.booking.output.BookingOutput;
+import com.coding.challenge.booking.output.BookingPageOutput;
+import com.coding.challenge.booking.validation.BookingValidator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/v1/booking")
+public class ReactiveBookingController {
+
+    @Autowired
+    private ReactiveBookingService bookingService;
+
+    @Autowired
+    private BookingValidator bookingValidator;
+
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<BookingOutput>> createBooking(@RequestBody BookingInput input) {
+        return Mono.fromCallable(() -> {
+                    bookingValidator.validateInput(input);
+                    return input;
+                })
+                .flatMap(bookingService::createBooking)
+                .map(output -> new ResponseEntity<>(output, HttpStatus.CREATED));
+    }
+
+    @PostMapping(path = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<List<BookingBatchResultOutput>>> createBookings(@RequestBody List<BookingInput> inputs) {
+        return Mono.fromCallable(() -> {
+                    bookingValidator.validateBatch(inputs);
+                    return inputs;
+                })
+                .flatMap(valid -> bookingService.createBookings(valid).collectList())
+                .map(results -> new ResponseEntity<>(results, HttpStatus.OK));
+    }
+
+    @GetMapping
+    public Mono<ResponseEntity<List<BookingOutput>>> getAllBookings() {
+        return bookingService.getAllBookings().collectList().map(bookings -> new ResponseEntity<>(bookings, HttpStatus.OK));
+    }
+
+    @GetMapping(params = "limit")
+    public Mono<ResponseEntity<BookingPageOutput>> getBookingsPage(@RequestParam(value = "limit") int limit,
+                                                                   @RequestParam(value = "cursor", required = false) String cursor) {
+        return Mono.fromCallable(() -> {
+                    bookingValidator.validatePageRequest(limit);
+                    return limit;
+                })
+                .flatMap(valid -> bookingService.getBookingsPage(cursor, valid))
+                .map(page -> new ResponseEntity<>(page, HttpStatus.OK));
+    }
+
+    @GetMapping(path = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<BookingOutput> streamAllBookings() {
+        return bookingService.getAllBookings();
+    }
+
+    @PutMapping(path = "/{id}")
+    public Mono<ResponseEntity<BookingOutput>> updateBooking(@PathVariable long id, @RequestBody BookingInput input) {
+        return Mono.fromCallable(() -> {
+                    bookingValidator.validateInput(input);
+                    return input;
+                })
+                .flatMap(valid -> bookingService.updateBooking(id, valid))
+                .map(output -> new ResponseEntity<>(output, HttpStatus.OK));
+    }
+
+    @GetMapping(path = "/{id}")
+    public Mono<ResponseEntity<BookingOutput>> getBooking(@PathVariable long id) {
+        return bookingService.getBooking(id).map(output -> new ResponseEntity<>(output, HttpStatus.OK));
+    }
+
+    @DeleteMapping(path = "/{id}")
+    public Mono<ResponseEntity<Void>> deleteBooking(@PathVariable long id) {
+        return bookingService.deleteBooking(id).then(Mono.fromSupplier(() -> ResponseEntity.noContent().build()));
+    }
+
+    @GetMapping(path = "/availabilities")
+    public Mono<ResponseEntity<List<LocalDate>>> getAvailableDates(@RequestParam(value = "startDate") @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate startDate,
+                                                                   @RequestParam(value = "endDate") @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endDate) {
+        return Mono.fromCallable(() -> {
+                    bookingValidator.validateAvailabilitiesDate(startDate, endDate);
+                    return startDate;
+                })
+                .flatMap(valid -> bookingService.getAvailableDates(startDate, endDate))
+                .map(availableDates -> new ResponseEntity<>(availableDates, HttpStatus.OK));
+    }
+}
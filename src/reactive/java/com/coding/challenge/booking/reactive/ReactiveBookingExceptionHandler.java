@@ -0,0 +1,92 @@
+package com.coding.challenge.booking.reactive;
+
+import com.coding.challenge.booking.error.exception.BookingConflictException;
+import com.coding.challenge.booking.error.exception.BookingNotFoundException;
+import com.coding.challenge.booking.error.exception.BookingValidationException;
+import com.coding.challenge.booking.output.ErrorOutput;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.TypeMismatchException;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.server.ServerWebInputException;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * WebFlux counterpart of {@code BookingExceptionHandler}: same statuses and pre-encoded bodies, classifying the
+ * input errors WebFlux raises instead of the servlet ones.
+ */
+@RestControllerAdvice
+public class ReactiveBookingExceptionHandler {
+
+    private static final ObjectMapper ERROR_MAPPER = new ObjectMapper();
+
+    private static final byte[] BOOKING_NOT_FOUND = encode(new BookingNotFoundException().getMessage());
+    private static final byte[] BOOKING_CONFLICT = encode(new BookingConflictException().getMessage());
+    private static final byte[] INVALID_ARRIVAL_DATE = encode("Arrival date must be in yyyy-mm-dd format");
+    private static final byte[] INVALID_DEPARTURE_DATE = encode("Departure date must be in yyyy-mm-dd format");
+    private static final byte[] INVALID_START_OR_END_DATE = encode("Start date and end date must be in yyyy-mm-dd format");
+    private static final byte[] UNABLE_TO_PROCESS = encode("Unable to process booking request");
+
+    @ExceptionHandler(BookingNotFoundException.class)
+    public ResponseEntity<byte[]> handleBookingNotFoundException(BookingNotFoundException e) {
+        return respond(HttpStatus.NOT_FOUND, BOOKING_NOT_FOUND);
+    }
+
+    @ExceptionHandler({BookingConflictException.class, OptimisticLockingFailureException.class})
+    public ResponseEntity<byte[]> handleBookingConflictException(Exception e) {
+        return respond(HttpStatus.CONFLICT, BOOKING_CONFLICT);
+    }
+
+    @ExceptionHandler(BookingValidationException.class)
+    public ResponseEntity<ErrorOutput> handleBookingValidationException(BookingValidationException e) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorOutput(null, e.getErrors()));
+    }
+
+    @ExceptionHandler(ServerWebInputException.class)
+    public ResponseEntity<byte[]> handleServerWebInputException(ServerWebInputException e) {
+        if (e.getCause() instanceof DecodingException && e.getCause().getCause() instanceof JsonMappingException) {
+            List<JsonMappingException.Reference> path = ((JsonMappingException) e.getCause().getCause()).getPath();
+            String field = path.isEmpty() ? null : path.get(path.size() - 1).getFieldName();
+
+            if ("arrivalDate".equals(field)) {
+                return respond(HttpStatus.BAD_REQUEST, INVALID_ARRIVAL_DATE);
+            }
+
+            if ("departureDate".equals(field)) {
+                return respond(HttpStatus.BAD_REQUEST, INVALID_DEPARTURE_DATE);
+            }
+        }
+
+        if (e.getCause() instanceof TypeMismatchException && LocalDate.class.equals(((TypeMismatchException) e.getCause()).getRequiredType())) {
+            return respond(HttpStatus.BAD_REQUEST, INVALID_START_OR_END_DATE);
+        }
+
+        return handleGenericException(e);
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<byte[]> handleGenericException(Exception e) {
+        return respond(HttpStatus.INTERNAL_SERVER_ERROR, UNABLE_TO_PROCESS);
+    }
+
+    private static ResponseEntity<byte[]> respond(HttpStatus status, byte[] body) {
+        return ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    private static byte[] encode(String errorMessage) {
+        try {
+            return ERROR_MAPPER.writeValueAsBytes(new ErrorOutput(errorMessage, null));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.coding.challenge.booking.reactive;
+
+import com.coding.challenge.booking.entity.BookingEntity;
+import com.coding.challenge.booking.occupancy.DateRange;
+import com.coding.challenge.booking.persistance.VersionedBookedDates;
+import io.r2dbc.spi.Row;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+
+/**
+ * Non-blocking counterpart of {@code BookingRepository} and {@code BookingNightRepository}, written against the
+ * tables the JPA entities map to. Only the default resource is served: nights are written with the column default
+ * and availability is read for {@link DateRange#DEFAULT_RESOURCE_ID} alone.
+ */
+@Repository
+public class ReactiveBookingRepository {
+
+    private static final String BOOKING_COLUMNS = "id, resource_id, email, first_name, last_name, arrival_date, departure_date, version";
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    public Flux<BookingEntity> findAll() {
+        return databaseClient.sql("select " + BOOKING_COLUMNS + " from booking order by id")
+                .map((row, metadata) -> toEntity(row))
+                .all();
+    }
+
+    public Flux<BookingEntity> findByIdGreaterThan(long id, int limit) {
+        return databaseClient.sql("select " + BOOKING_COLUMNS + " from booking where id > :id order by id limit :limit")
+                .bind("id", id)
+                .bind("limit", limit)
+                .map((row, metadata) -> toEntity(row))
+                .all();
+    }
+
+    public Mono<BookingEntity> findById(long id) {
+        return databaseClient.sql("select " + BOOKING_COLUMNS + " from booking where id = :id")
+                .bind("id", id)
+                .map((row, metadata) -> toEntity(row))
+                .one();
+    }
+
+    public Mono<Boolean> existsById(long id) {
+        return databaseClient.sql("select count(*) from booking where id = :id")
+                .bind("id", id)
+                .map((row, metadata) -> row.get(0, Long.class) > 0)
+                .one();
+    }
+
+    public Mono<VersionedBookedDates> findBookedDatesById(long id) {
+        return databaseClient.sql("select resource_id, arrival_date, departure_date, version from booking where id = :id")
+                .bind("id", id)
+                .map((row, metadata) -> toVersionedBookedDates(row))
+                .one();
+    }
+
+    public Flux<DateRange> getAllBookedDatesBetween(LocalDate startDate, LocalDate endDate) {
+        return databaseClient.sql("select arrival_date, departure_date from booking where resource_id = :resourceId and arrival_date < :endDate and departure_date > :startDate")
+                .bind("resourceId", DateRange.DEFAULT_RESOURCE_ID)
+                .bind("startDate", startDate)
+                .bind("endDate", endDate)
+                .map((row, metadata) -> DateRange.of(row.get("arrival_date", LocalDate.class), row.get("departure_date", LocalDate.class)))
+                .all();
+    }
+
+    public Mono<Boolean> areNightsFree(LocalDate arrivalDate, LocalDate departureDate, long ignoredBookingId) {
+        return databaseClient.sql("select count(*) from booking_night where resource_id = :resourceId and night >= :arrivalDate and night < :departureDate and booking_id <> :bookingId")
+                .bind("resourceId", DateRange.DEFAULT_RESOURCE_ID)
+                .bind("arrivalDate", arrivalDate)
+                .bind("departureDate", departureDate)
+                .bind("bookingId", ignoredBookingId)
+                .map((row, metadata) -> row.get(0, Long.class) == 0)
+                .one();
+    }
+
+    public Mono<Void> insert(BookingEntity entity) {
+        return databaseClient.sql("insert into booking (" + BOOKING_COLUMNS + ") values (:id, :resourceId, :email, :firstName, :lastName, :arrivalDate, :departureDate, :version)")
+                .bind("id", entity.getId())
+                .bind("resourceId", entity.getResourceId())
+                .bind("email", entity.getEmail())
+                .bind("firstName", entity.getFirstName())
+                .bind("lastName", entity.getLastName())
+                .bind("arrivalDate", entity.getArrivalDate())
+                .bind("departureDate", entity.getDepartureDate())
+                .bind("version", entity.getVersion())
+                .then();
+    }
+
+    public Mono<Void> insertNight(long id, long bookingId, LocalDate night) {
+        return databaseClient.sql("insert into booking_night (id, booking_id, night) values (:id, :bookingId, :night)")
+                .bind("id", id)
+                .bind("bookingId", bookingId)
+                .bind("night", night)
+                .then();
+    }
+
+    public Mono<Integer> updateIfVersionMatches(long id, BookingEntity entity, long version) {
+        return databaseClient.sql("update booking set email = :email, first_name = :firstName, last_name = :lastName, arrival_date = :arrivalDate, "
+                        + "departure_date = :departureDate, version = version + 1 where id = :id and version = :version")
+                .bind("email", entity.getEmail())
+                .bind("firstName", entity.getFirstName())
+                .bind("lastName", entity.getLastName())
+                .bind("arrivalDate", entity.getArrivalDate())
+                .bind("departureDate", entity.getDepartureDate())
+                .bind("id", id)
+                .bind("version", version)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Integer> deleteNightsOutside(long bookingId, LocalDate arrivalDate, LocalDate departureDate) {
+        return databaseClient.sql("delete from booking_night where booking_id = :bookingId and (night < :arrivalDate or night >= :departureDate)")
+                .bind("bookingId", bookingId)
+                .bind("arrivalDate", arrivalDate)
+                .bind("departureDate", departureDate)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Integer> deleteNightsOf(long bookingId) {
+        return databaseClient.sql("delete from booking_night where booking_id = :bookingId")
+                .bind("bookingId", bookingId)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Integer> deleteBookingById(long id) {
+        return databaseClient.sql("delete from booking where id = :id")
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    private static BookingEntity toEntity(Row row) {
+        BookingEntity entity = new BookingEntity();
+        entity.setId(row.get("id", Long.class));
+        entity.setResourceId(row.get("resource_id", Long.class));
+        entity.setEmail(row.get("email", String.class));
+        entity.setFirstName(row.get("first_name", String.class));
+        entity.setLastName(row.get("last_name", String.class));
+        entity.setArrivalDate(row.get("arrival_date", LocalDate.class));
+        entity.setDepartureDate(row.get("departure_date", LocalDate.class));
+        entity.setVersion(row.get("version", Long.class));
+        return entity;
+    }
+
+    private static VersionedBookedDates toVersionedBookedDates(Row row) {
+        Long resourceId = row.get("resource_id", Long.class);
+        LocalDate arrivalDate = row.get("arrival_date", LocalDate.class);
+        LocalDate departureDate = row.get("departure_date", LocalDate.class);
+        Long version = row.get("version", Long.class);
+        return new VersionedBookedDates() {
+            @Override
+            public Long getResourceId() {
+                return resourceId;
+            }
+
+            @Override
+            public LocalDate getArrivalDate() {
+                return arrivalDate;
+            }
+
+            @Override
+            public LocalDate getDepartureDate() {
+                return departureDate;
+            }
+
+            @Override
+            public Long getVersion() {
+                return version;
+            }
+        };
+    }
+}
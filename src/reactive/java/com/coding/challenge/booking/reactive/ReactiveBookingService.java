@@ -0,0 +1,213 @@
+package com.coding.challenge.booking.reactive;
+
+import com.coding.challenge.booking.entity.BookingEntity;
+import com.coding.challenge.booking.error.exception.BookingConflictException;
+import com.coding.challenge.booking.error.exception.BookingNotFoundException;
+import com.coding.challenge.booking.error.exception.BookingValidationException;
+import com.coding.challenge.booking.input.BookingInput;
+import com.coding.challenge.booking.mapper.BookingMapper;
+import com.coding.challenge.booking.metrics.BookingMetrics;
+import com.coding.challenge.booking.occupancy.DateRange;
+import com.coding.challenge.booking.output.BookingBatchResultOutput;
+import com.coding.challenge.booking.output.BookingOutput;
+import com.coding.challenge.booking.output.BookingPageOutput;
+import com.coding.challenge.booking.persistance.BookingNightConstraint;
+import com.coding.challenge.booking.service.BookingCursor;
+import com.coding.challenge.booking.validation.BookingValidator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Same rules as {@code BookingService}, with the nights table and its unique constraint as the only guard
+ * against double booking: there is no in-memory occupancy index or date lock in this variant.
+ */
+@Service
+public class ReactiveBookingService {
+
+    @Autowired
+    private ReactiveBookingRepository bookingRepository;
+
+    @Autowired
+    private BookingIdAllocator idAllocator;
+
+    @Autowired
+    private BookingValidator bookingValidator;
+
+    @Autowired
+    private BookingMetrics bookingMetrics;
+
+    @Autowired
+    private TransactionalOperator transactionalOperator;
+
+    @Value("${booking.retry.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${booking.retry.initial-backoff-ms:10}")
+    private long initialBackoffMillis;
+
+    @Value("${booking.retry.max-backoff-ms:200}")
+    private long maxBackoffMillis;
+
+    public Mono<BookingOutput> createBooking(BookingInput input) {
+        return createBooking(input, BookingMetrics.OPERATION_CREATE);
+    }
+
+    public Flux<BookingBatchResultOutput> createBookings(List<BookingInput> inputs) {
+        return Flux.range(0, inputs.size()).concatMap(index -> createBatchItem(index, inputs.get(index)));
+    }
+
+    public Flux<BookingOutput> getAllBookings() {
+        return bookingRepository.findAll().map(BookingMapper.INSTANCE::mapEntityToOutput);
+    }
+
+    public Mono<BookingPageOutput> getBookingsPage(String cursor, int limit) {
+        return Mono.fromCallable(() -> BookingCursor.decode(cursor))
+                .flatMap(afterId -> bookingRepository.findByIdGreaterThan(afterId, limit + 1).collectList())
+                .map(entities -> {
+                    boolean hasNextPage = entities.size() > limit;
+                    List<BookingOutput> bookings = new ArrayList<>(Math.min(entities.size(), limit));
+                    for (int i = 0; i < entities.size() && i < limit; i++) {
+                        bookings.add(BookingMapper.INSTANCE.mapEntityToOutput(entities.get(i)));
+                    }
+                    String nextCursor = hasNextPage ? BookingCursor.encode(entities.get(limit - 1).getId()) : null;
+                    return new BookingPageOutput(bookings, nextCursor);
+                });
+    }
+
+    public Mono<BookingOutput> updateBooking(long id, BookingInput input) {
+        return Mono.defer(() -> bookingRepository.findBookedDatesById(id)
+                        .switchIfEmpty(Mono.error(BookingNotFoundException::new))
+                        .flatMap(current -> {
+                            DateRange previousDates = DateRange.of(current.getArrivalDate(), current.getDepartureDate());
+                            BookingEntity entity = BookingMapper.INSTANCE.mapInputToEntity(input);
+                            entity.setId(id);
+                            entity.setVersion(current.getVersion() + 1);
+                            List<LocalDate> addedNights = entity.getArrivalDate().datesUntil(entity.getDepartureDate())
+                                    .filter(night -> !previousDates.overlaps(night, night.plusDays(1)))
+                                    .collect(Collectors.toList());
+                            return idAllocator.nextIds(addedNights.size())
+                                    .flatMap(ids -> update(entity, addedNights, ids, current.getVersion()).as(transactionalOperator::transactional));
+                        }))
+                .retryWhen(conflictRetry(BookingMetrics.OPERATION_UPDATE))
+                .map(BookingMapper.INSTANCE::mapEntityToOutput);
+    }
+
+    public Mono<BookingOutput> getBooking(long id) {
+        return bookingRepository.findById(id)
+                .switchIfEmpty(Mono.error(BookingNotFoundException::new))
+                .map(BookingMapper.INSTANCE::mapEntityToOutput);
+    }
+
+    public Mono<Void> deleteBooking(long id) {
+        return bookingRepository.deleteNightsOf(id)
+                .then(bookingRepository.deleteBookingById(id))
+                .flatMap(deleted -> deleted == 0 ? Mono.<Void>error(new BookingNotFoundException()) : Mono.<Void>empty())
+                .as(transactionalOperator::transactional);
+    }
+
+    public Mono<List<LocalDate>> getAvailableDates(LocalDate startDate, LocalDate endDate) {
+        long start = System.nanoTime();
+        int from = (int) startDate.toEpochDay();
+        int to = (int) endDate.toEpochDay();
+
+        return bookingRepository.getAllBookedDatesBetween(startDate, endDate)
+                .collect(BitSet::new, (occupiedNights, dates) -> occupiedNights.set(
+                        Math.max(from, dates.getFirstNight()) - from, Math.min(to, dates.getLastNightExclusive()) - from))
+                .map(occupiedNights -> {
+                    List<LocalDate> availableDates = new ArrayList<>(Math.max(0, to - from));
+                    for (int night = occupiedNights.nextClearBit(0); night < to - from; night = occupiedNights.nextClearBit(night + 1)) {
+                        availableDates.add(LocalDate.ofEpochDay(from + (long) night));
+                    }
+                    bookingMetrics.recordAvailabilityLookup(System.nanoTime() - start, availableDates.size());
+                    return availableDates;
+                });
+    }
+
+    private Mono<BookingOutput> createBooking(BookingInput input, String operation) {
+        BookingEntity entity = BookingMapper.INSTANCE.mapInputToEntity(input);
+        entity.setVersion(0L);
+        List<LocalDate> nights = entity.getArrivalDate().datesUntil(entity.getDepartureDate()).collect(Collectors.toList());
+
+        return idAllocator.nextIds(nights.size() + 1)
+                .flatMap(ids -> {
+                    entity.setId(ids.get(0));
+                    return bookingRepository.areNightsFree(entity.getArrivalDate(), entity.getDepartureDate(), entity.getId())
+                            .flatMap(free -> free ? Mono.<Void>empty() : datesUnavailable(operation))
+                            .then(bookingRepository.insert(entity))
+                            .then(insertNights(entity.getId(), nights, ids.subList(1, ids.size())))
+                            .as(transactionalOperator::transactional);
+                })
+                .onErrorResume(BookingNightConstraint::isViolatedBy, e -> datesUnavailable(operation))
+                .thenReturn(entity)
+                .map(BookingMapper.INSTANCE::mapEntityToOutput);
+    }
+
+    private Mono<BookingBatchResultOutput> createBatchItem(int index, BookingInput input) {
+        return Mono.fromCallable(() -> {
+                    bookingValidator.validateInput(input);
+                    return input;
+                })
+                .flatMap(valid -> createBooking(valid, BookingMetrics.OPERATION_BATCH))
+                .map(output -> new BookingBatchResultOutput(index, HttpStatus.CREATED.value(), output, null))
+                .onErrorResume(BookingValidationException.class, e -> Mono.just(
+                        new BookingBatchResultOutput(index, HttpStatus.BAD_REQUEST.value(), null, e.getErrors())))
+                .onErrorResume(e -> Mono.just(
+                        new BookingBatchResultOutput(index, HttpStatus.INTERNAL_SERVER_ERROR.value(), null, List.of("Unable to process booking request"))));
+    }
+
+    private Mono<BookingEntity> update(BookingEntity entity, List<LocalDate> addedNights, List<Long> nightIds, long version) {
+        long id = entity.getId();
+        return bookingRepository.areNightsFree(entity.getArrivalDate(), entity.getDepartureDate(), id)
+                .flatMap(free -> free ? Mono.<Void>empty() : datesUnavailable(BookingMetrics.OPERATION_UPDATE))
+                .then(bookingRepository.updateIfVersionMatches(id, entity, version))
+                .flatMap(updated -> updated > 0 ? Mono.just(updated) : bookingRepository.existsById(id)
+                        .flatMap(exists -> Mono.error(exists ? new BookingConflictException() : new BookingNotFoundException())))
+                .then(bookingRepository.deleteNightsOutside(id, entity.getArrivalDate(), entity.getDepartureDate()))
+                .then(insertNights(id, addedNights, nightIds))
+                .onErrorResume(BookingNightConstraint::isViolatedBy, e -> datesUnavailable(BookingMetrics.OPERATION_UPDATE))
+                .thenReturn(entity);
+    }
+
+    private Mono<Void> insertNights(long bookingId, List<LocalDate> nights, List<Long> ids) {
+        return Flux.range(0, nights.size())
+                .concatMap(i -> bookingRepository.insertNight(ids.get(i), bookingId, nights.get(i)))
+                .then();
+    }
+
+    private Retry conflictRetry(String operation) {
+        return Retry.backoff(maxAttempts - 1, Duration.ofMillis(initialBackoffMillis))
+                .maxBackoff(Duration.ofMillis(maxBackoffMillis))
+                .jitter(1.0)
+                .filter(e -> {
+                    boolean conflict = e instanceof BookingConflictException || e instanceof OptimisticLockingFailureException;
+                    if (conflict) {
+                        bookingMetrics.recordConflict(operation, BookingMetrics.REASON_OPTIMISTIC_LOCK);
+                    }
+                    return conflict;
+                })
+                .doBeforeRetry(signal -> bookingMetrics.recordRetry(operation))
+                .onRetryExhaustedThrow((spec, signal) -> {
+                    bookingMetrics.recordRetriesExhausted(operation);
+                    return new BookingConflictException();
+                });
+    }
+
+    private <T> Mono<T> datesUnavailable(String operation) {
+        bookingMetrics.recordConflict(operation, BookingMetrics.REASON_DATES_UNAVAILABLE);
+        return Mono.error(new BookingValidationException(List.of("Booking dates not available")));
+    }
+}
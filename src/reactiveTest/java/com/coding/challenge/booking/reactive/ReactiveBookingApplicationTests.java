@@ -0,0 +1,171 @@
+package com.coding.challenge.booking.reactive;
+
+import com.coding.challenge.booking.input.BookingInput;
+import com.coding.challenge.booking.output.BookingBatchResultOutput;
+import com.coding.challenge.booking.output.BookingOutput;
+import com.coding.challenge.booking.output.BookingPageOutput;
+import com.coding.challenge.booking.output.ErrorOutput;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = ReactiveBookingApplication.class, properties = {
+		"spring.r2dbc.url=r2dbc:h2:mem:///reactivedb;DB_CLOSE_DELAY=-1",
+		"spring.sql.init.schema-locations=classpath:reactive-schema.sql",
+		"booking.reactive.id-generator=sequence"
+})
+@AutoConfigureWebTestClient
+class ReactiveBookingApplicationTests {
+
+	private static final String ENDPOINT = "/v1/booking";
+
+	@Autowired
+	private WebTestClient webTestClient;
+
+	@Autowired
+	private DatabaseClient databaseClient;
+
+	@AfterEach
+	private void cleanUp() {
+		databaseClient.sql("delete from booking_night").then().then(databaseClient.sql("delete from booking").then()).block();
+	}
+
+	@Test
+	public void post_createBooking_shouldReturn201() {
+		BookingInput input = getBookingInput();
+		BookingOutput output = createBooking(input);
+		assertNotNull(output.getBookingId());
+		assertEquals(input.getEmail(), output.getEmail());
+		assertEquals(input.getArrivalDate(), output.getArrivalDate());
+		assertEquals(input.getDepartureDate(), output.getDepartureDate());
+	}
+
+	@Test
+	public void post_createBookingWithInvalidPayload_shouldReturn400() {
+		BookingInput input = getBookingInput();
+		input.setFirstName(null);
+		ErrorOutput output = webTestClient.post().uri(ENDPOINT).contentType(MediaType.APPLICATION_JSON).bodyValue(input).exchange()
+				.expectStatus().isBadRequest()
+				.expectBody(ErrorOutput.class).returnResult().getResponseBody();
+		assertEquals("First name cannot be blank", output.getErrorMessages().get(0));
+	}
+
+	@Test
+	public void post_createBookingWithInvalidDate_shouldReturn400() {
+		String body = "{\"email\":\"test@email.com\",\"firstName\":\"Test\",\"lastName\":\"User\",\"arrivalDate\":\"not-a-date\",\"departureDate\":\"2030-01-02\"}";
+		ErrorOutput output = webTestClient.post().uri(ENDPOINT).contentType(MediaType.APPLICATION_JSON).bodyValue(body).exchange()
+				.expectStatus().isBadRequest()
+				.expectBody(ErrorOutput.class).returnResult().getResponseBody();
+		assertEquals("Arrival date must be in yyyy-mm-dd format", output.getErrorMessage());
+	}
+
+	@Test
+	public void post_createBookingOnBookedDates_shouldReturn400() {
+		createBooking(getBookingInput());
+		ErrorOutput output = webTestClient.post().uri(ENDPOINT).contentType(MediaType.APPLICATION_JSON).bodyValue(getBookingInput()).exchange()
+				.expectStatus().isBadRequest()
+				.expectBody(ErrorOutput.class).returnResult().getResponseBody();
+		assertEquals(List.of("Booking dates not available"), output.getErrorMessages());
+	}
+
+	@Test
+	public void post_createBookings_shouldReturnResultPerItem() {
+		BookingInput overlapping = getBookingInput();
+		overlapping.setEmail("other@email.com");
+		List<BookingBatchResultOutput> output = webTestClient.post().uri(ENDPOINT + "/batch").contentType(MediaType.APPLICATION_JSON)
+				.bodyValue(List.of(getBookingInput(), overlapping)).exchange()
+				.expectStatus().isOk()
+				.expectBodyList(BookingBatchResultOutput.class).returnResult().getResponseBody();
+		assertEquals(201, output.get(0).getStatus());
+		assertEquals(400, output.get(1).getStatus());
+	}
+
+	@Test
+	public void get_getBooking_shouldReturnBooking() {
+		BookingOutput created = createBooking(getBookingInput());
+		BookingOutput output = webTestClient.get().uri(ENDPOINT + "/" + created.getBookingId()).exchange()
+				.expectStatus().isOk()
+				.expectBody(BookingOutput.class).returnResult().getResponseBody();
+		assertEquals(created, output);
+	}
+
+	@Test
+	public void get_getMissingBooking_shouldReturn404() {
+		webTestClient.get().uri(ENDPOINT + "/12345").exchange().expectStatus().isNotFound();
+	}
+
+	@Test
+	public void get_getBookingsPage_shouldReturnNextCursor() {
+		createBooking(getBookingInput());
+		BookingInput second = getBookingInput();
+		second.setArrivalDate(LocalDate.now().plusDays(5));
+		second.setDepartureDate(LocalDate.now().plusDays(6));
+		createBooking(second);
+
+		BookingPageOutput output = webTestClient.get().uri(ENDPOINT + "?limit=1").exchange()
+				.expectStatus().isOk()
+				.expectBody(BookingPageOutput.class).returnResult().getResponseBody();
+		assertEquals(1, output.getBookings().size());
+		assertNotNull(output.getNextCursor());
+	}
+
+	@Test
+	public void put_updateBooking_shouldMoveNights() {
+		BookingOutput created = createBooking(getBookingInput());
+		BookingInput input = getBookingInput();
+		input.setArrivalDate(LocalDate.now().plusDays(2));
+		input.setDepartureDate(LocalDate.now().plusDays(4));
+
+		BookingOutput output = webTestClient.put().uri(ENDPOINT + "/" + created.getBookingId()).contentType(MediaType.APPLICATION_JSON).bodyValue(input).exchange()
+				.expectStatus().isOk()
+				.expectBody(BookingOutput.class).returnResult().getResponseBody();
+		assertEquals(input.getArrivalDate(), output.getArrivalDate());
+		assertEquals(List.of(LocalDate.now().plusDays(1), LocalDate.now().plusDays(4)), getAvailableDates(LocalDate.now().plusDays(1), LocalDate.now().plusDays(5)));
+	}
+
+	@Test
+	public void delete_deleteBooking_shouldReleaseNights() {
+		BookingOutput created = createBooking(getBookingInput());
+		webTestClient.delete().uri(ENDPOINT + "/" + created.getBookingId()).exchange().expectStatus().isNoContent();
+		webTestClient.delete().uri(ENDPOINT + "/" + created.getBookingId()).exchange().expectStatus().isNotFound();
+		assertEquals(4, getAvailableDates(LocalDate.now().plusDays(1), LocalDate.now().plusDays(5)).size());
+	}
+
+	@Test
+	public void get_getAvailableDates_shouldSkipBookedNights() {
+		createBooking(getBookingInput());
+		assertEquals(List.of(LocalDate.now().plusDays(3), LocalDate.now().plusDays(4)), getAvailableDates(LocalDate.now().plusDays(1), LocalDate.now().plusDays(5)));
+	}
+
+	private BookingOutput createBooking(BookingInput input) {
+		return webTestClient.post().uri(ENDPOINT).contentType(MediaType.APPLICATION_JSON).bodyValue(input).exchange()
+				.expectStatus().isCreated()
+				.expectBody(BookingOutput.class).returnResult().getResponseBody();
+	}
+
+	private List<LocalDate> getAvailableDates(LocalDate startDate, LocalDate endDate) {
+		return webTestClient.get().uri(ENDPOINT + "/availabilities?startDate=" + startDate + "&endDate=" + endDate).exchange()
+				.expectStatus().isOk()
+				.expectBodyList(LocalDate.class).returnResult().getResponseBody();
+	}
+
+	private BookingInput getBookingInput() {
+		BookingInput input = new BookingInput();
+		input.setFirstName("Test");
+		input.setLastName("User");
+		input.setEmail("test@email.com");
+		input.setArrivalDate(LocalDate.now().plusDays(1));
+		input.setDepartureDate(LocalDate.now().plusDays(3));
+		return input;
+	}
+}
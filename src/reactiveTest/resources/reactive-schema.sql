@@ -0,0 +1,20 @@
+create sequence if not exists hibernate_sequence start with 1 increment by 50;
+
+create table if not exists booking (
+    id bigint primary key,
+    resource_id bigint default 1 not null,
+    email varchar(255),
+    first_name varchar(255),
+    last_name varchar(255),
+    arrival_date date,
+    departure_date date,
+    version bigint
+);
+
+create table if not exists booking_night (
+    id bigint primary key,
+    resource_id bigint default 1 not null,
+    night date not null,
+    booking_id bigint not null references booking (id),
+    constraint uk_booking_night_resource_night unique (resource_id, night)
+);
@@ -1,8 +1,14 @@
 package com.coding.challenge.booking;
 
 import com.coding.challenge.booking.input.BookingInput;
+import com.coding.challenge.booking.occupancy.OccupancyIndex;
+import com.coding.challenge.booking.output.AvailabilityBitmapOutput;
+import com.coding.challenge.booking.output.AvailabilityRangeOutput;
+import com.coding.challenge.booking.output.BookingBatchResultOutput;
 import com.coding.challenge.booking.output.BookingOutput;
+import com.coding.challenge.booking.output.BookingPageOutput;
 import com.coding.challenge.booking.output.ErrorOutput;
+import com.coding.challenge.booking.output.HoldOutput;
 import com.coding.challenge.booking.persistance.BookingRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.type.CollectionType;
@@ -17,10 +23,13 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
 import java.time.LocalDate;
+import java.util.Base64;
+import java.util.BitSet;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -36,11 +45,15 @@ class BookingApplicationTests {
 	@Autowired
 	private BookingRepository bookingRepository;
 
+	@Autowired
+	private OccupancyIndex occupancyIndex;
+
 	private static final String ENDPOINT = "/v1/booking";
 
 	@AfterEach
 	private void cleanUp() {
 		bookingRepository.deleteAll();
+		occupancyIndex.load();
 	}
 
 	@Test
@@ -70,6 +83,25 @@ class BookingApplicationTests {
 		assertEquals("First name cannot be blank", output.getErrorMessages().get(0));
 	}
 
+	@Test
+	public void post_createBookingWithMalformedDepartureDate_shouldReturn400() throws Exception {
+		String payload = "{\"email\":\"test@email.com\",\"firstName\":\"Test\",\"lastName\":\"User\",\"arrivalDate\":\"2030-01-01\",\"departureDate\":\"01/03/2030\"}";
+		MvcResult response = mockMvc.perform(post(ENDPOINT).content(payload).contentType(MediaType.APPLICATION_JSON))
+				.andExpect(status().isBadRequest())
+				.andReturn();
+		ErrorOutput output = jsonMapper.readValue(response.getResponse().getContentAsString(), ErrorOutput.class);
+		assertEquals("Departure date must be in yyyy-mm-dd format", output.getErrorMessage());
+	}
+
+	@Test
+	public void get_availabilitiesWithMalformedDate_shouldReturn400() throws Exception {
+		MvcResult response = mockMvc.perform(get(ENDPOINT + "/availabilities").param("startDate", "2030-01-01").param("endDate", "tomorrow"))
+				.andExpect(status().isBadRequest())
+				.andReturn();
+		ErrorOutput output = jsonMapper.readValue(response.getResponse().getContentAsString(), ErrorOutput.class);
+		assertEquals("Start date and end date must be in yyyy-mm-dd format", output.getErrorMessage());
+	}
+
 	@Test
 	public void put_updateBooking_shouldReturn200() throws Exception {
 		BookingInput input = getBookingInput();
@@ -205,6 +237,280 @@ class BookingApplicationTests {
 		assertEquals(input.getDepartureDate(), getOutput.get(0).getDepartureDate());
 	}
 
+	@Test
+	public void get_bookingsPage_shouldFollowCursorToLastPage() throws Exception {
+		BookingInput input = getBookingInput();
+		mockMvc.perform(post(ENDPOINT).content(jsonMapper.writeValueAsString(input)).contentType(MediaType.APPLICATION_JSON))
+				.andExpect(status().isCreated());
+		input.setArrivalDate(input.getDepartureDate());
+		input.setDepartureDate(input.getDepartureDate().plusDays(1));
+		mockMvc.perform(post(ENDPOINT).content(jsonMapper.writeValueAsString(input)).contentType(MediaType.APPLICATION_JSON))
+				.andExpect(status().isCreated());
+
+		MvcResult firstResponse = mockMvc.perform(get(ENDPOINT).param("limit", "1"))
+				.andExpect(status().isOk())
+				.andReturn();
+		BookingPageOutput firstPage = jsonMapper.readValue(firstResponse.getResponse().getContentAsString(), BookingPageOutput.class);
+		assertEquals(1, firstPage.getBookings().size());
+		assertNotNull(firstPage.getNextCursor());
+
+		MvcResult secondResponse = mockMvc.perform(get(ENDPOINT).param("limit", "1").param("cursor", firstPage.getNextCursor()))
+				.andExpect(status().isOk())
+				.andReturn();
+		BookingPageOutput secondPage = jsonMapper.readValue(secondResponse.getResponse().getContentAsString(), BookingPageOutput.class);
+		assertEquals(1, secondPage.getBookings().size());
+		assertNull(secondPage.getNextCursor());
+		assertEquals(input.getArrivalDate(), secondPage.getBookings().get(0).getArrivalDate());
+	}
+
+	@Test
+	public void get_bookingsPageWithInvalidCursor_shouldReturn400() throws Exception {
+		mockMvc.perform(get(ENDPOINT).param("limit", "10").param("cursor", "not-a-cursor"))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	public void get_streamAllBookings_shouldReturnOneBookingPerLine() throws Exception {
+		BookingInput input = getBookingInput();
+		mockMvc.perform(post(ENDPOINT).content(jsonMapper.writeValueAsString(input)).contentType(MediaType.APPLICATION_JSON))
+				.andExpect(status().isCreated());
+
+		MvcResult asyncResult = mockMvc.perform(get(ENDPOINT + "/stream").accept(MediaType.APPLICATION_NDJSON))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		MvcResult response = mockMvc.perform(asyncDispatch(asyncResult))
+				.andExpect(status().isOk())
+				.andReturn();
+
+		String[] lines = response.getResponse().getContentAsString().split("\n");
+		assertEquals(1, lines.length);
+		BookingOutput output = jsonMapper.readValue(lines[0], BookingOutput.class);
+		assertEquals(input.getEmail(), output.getEmail());
+	}
+
+	@Test
+	public void post_createBookingBatch_shouldReturnResultPerBooking() throws Exception {
+		BookingInput valid = getBookingInput();
+		BookingInput overlapping = getBookingInput();
+		overlapping.setArrivalDate(valid.getArrivalDate().plusDays(1));
+		overlapping.setDepartureDate(valid.getDepartureDate().plusDays(1));
+		BookingInput invalid = getBookingInput();
+		invalid.setEmail("invalid");
+
+		MvcResult response = mockMvc.perform(post(ENDPOINT + "/batch").content(jsonMapper.writeValueAsString(List.of(valid, overlapping, invalid))).contentType(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk())
+				.andReturn();
+		CollectionType typeReference = TypeFactory.defaultInstance().constructCollectionType(List.class, BookingBatchResultOutput.class);
+		List<BookingBatchResultOutput> output = jsonMapper.readValue(response.getResponse().getContentAsString(), typeReference);
+
+		assertEquals(3, output.size());
+		assertEquals(201, output.get(0).getStatus());
+		assertNotNull(output.get(0).getBooking().getBookingId());
+		assertEquals(400, output.get(1).getStatus());
+		assertEquals("Booking dates not available", output.get(1).getErrorMessages().get(0));
+		assertEquals(400, output.get(2).getStatus());
+		assertEquals("Email is not valid", output.get(2).getErrorMessages().get(0));
+		assertEquals(1, bookingRepository.count());
+	}
+
+	@Test
+	public void post_confirmHold_shouldBookHeldNights() throws Exception {
+		BookingInput input = getBookingInput();
+		MvcResult holdResponse = mockMvc.perform(post(ENDPOINT + "/holds").content(jsonMapper.writeValueAsString(input)).contentType(MediaType.APPLICATION_JSON))
+				.andExpect(status().isCreated())
+				.andReturn();
+		HoldOutput hold = jsonMapper.readValue(holdResponse.getResponse().getContentAsString(), HoldOutput.class);
+		assertEquals("/v1/booking/holds/" + hold.getHoldId(), holdResponse.getResponse().getHeader("Location"));
+
+		mockMvc.perform(post(ENDPOINT).content(jsonMapper.writeValueAsString(input)).contentType(MediaType.APPLICATION_JSON))
+				.andExpect(status().isBadRequest());
+
+		MvcResult confirmResponse = mockMvc.perform(post(ENDPOINT + "/holds/" + hold.getHoldId() + "/confirm"))
+				.andExpect(status().isCreated())
+				.andReturn();
+		BookingOutput booking = jsonMapper.readValue(confirmResponse.getResponse().getContentAsString(), BookingOutput.class);
+		assertEquals(input.getArrivalDate(), booking.getArrivalDate());
+		assertEquals(1, bookingRepository.count());
+
+		mockMvc.perform(post(ENDPOINT + "/holds/" + hold.getHoldId() + "/confirm"))
+				.andExpect(status().isNotFound());
+	}
+
+	@Test
+	public void get_getBookingWithCurrentETag_shouldReturn304UntilBookingChanges() throws Exception {
+		BookingInput input = getBookingInput();
+		MvcResult createResponse = mockMvc.perform(post(ENDPOINT).content(jsonMapper.writeValueAsString(input)).contentType(MediaType.APPLICATION_JSON))
+				.andExpect(status().isCreated())
+				.andReturn();
+		String bookingId = jsonMapper.readValue(createResponse.getResponse().getContentAsString(), BookingOutput.class).getBookingId();
+		String etag = mockMvc.perform(get(ENDPOINT + "/" + bookingId)).andExpect(status().isOk()).andReturn().getResponse().getHeader("ETag");
+
+		mockMvc.perform(get(ENDPOINT + "/" + bookingId).header("If-None-Match", etag))
+				.andExpect(status().isNotModified());
+
+		input.setFirstName("Test2");
+		mockMvc.perform(put(ENDPOINT + "/" + bookingId).content(jsonMapper.writeValueAsString(input)).contentType(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk());
+		MvcResult changedResponse = mockMvc.perform(get(ENDPOINT + "/" + bookingId).header("If-None-Match", etag))
+				.andExpect(status().isOk())
+				.andReturn();
+		assertNotEquals(etag, changedResponse.getResponse().getHeader("ETag"));
+
+		mockMvc.perform(delete(ENDPOINT + "/" + bookingId)).andExpect(status().isNoContent());
+		mockMvc.perform(get(ENDPOINT + "/" + bookingId).header("If-None-Match", changedResponse.getResponse().getHeader("ETag")))
+				.andExpect(status().isNotFound());
+	}
+
+	@Test
+	public void get_availabilitiesWithCurrentETag_shouldReturn304UntilOccupancyChanges() throws Exception {
+		String startDate = LocalDate.now().plusDays(1).toString();
+		String endDate = LocalDate.now().plusDays(10).toString();
+		String etag = mockMvc.perform(get(ENDPOINT + "/availabilities").param("startDate", startDate).param("endDate", endDate))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader("ETag");
+
+		mockMvc.perform(get(ENDPOINT + "/availabilities").param("startDate", startDate).param("endDate", endDate).header("If-None-Match", etag))
+				.andExpect(status().isNotModified());
+
+		mockMvc.perform(post(ENDPOINT).content(jsonMapper.writeValueAsString(getBookingInput())).contentType(MediaType.APPLICATION_JSON))
+				.andExpect(status().isCreated());
+		mockMvc.perform(get(ENDPOINT + "/availabilities").param("startDate", startDate).param("endDate", endDate).header("If-None-Match", etag))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	public void get_availabilitiesAsRanges_shouldReturnFreeIntervals() throws Exception {
+		mockMvc.perform(post(ENDPOINT).content(jsonMapper.writeValueAsString(getBookingInput())).contentType(MediaType.APPLICATION_JSON))
+				.andExpect(status().isCreated());
+
+		MvcResult response = mockMvc.perform(get(ENDPOINT + "/availabilities").param("startDate", LocalDate.now().toString())
+						.param("endDate", LocalDate.now().plusDays(5).toString()).param("format", "ranges"))
+				.andExpect(status().isOk())
+				.andReturn();
+		CollectionType typeReference = TypeFactory.defaultInstance().constructCollectionType(List.class, AvailabilityRangeOutput.class);
+		List<AvailabilityRangeOutput> output = jsonMapper.readValue(response.getResponse().getContentAsString(), typeReference);
+
+		assertEquals(List.of(new AvailabilityRangeOutput(LocalDate.now(), LocalDate.now().plusDays(1)),
+				new AvailabilityRangeOutput(LocalDate.now().plusDays(3), LocalDate.now().plusDays(5))), output);
+	}
+
+	@Test
+	public void get_availabilitiesAsBitmap_shouldSetBitPerFreeNight() throws Exception {
+		mockMvc.perform(post(ENDPOINT).content(jsonMapper.writeValueAsString(getBookingInput())).contentType(MediaType.APPLICATION_JSON))
+				.andExpect(status().isCreated());
+
+		MvcResult response = mockMvc.perform(get(ENDPOINT + "/availabilities").param("startDate", LocalDate.now().toString())
+						.param("endDate", LocalDate.now().plusDays(10).toString()).param("format", "bitmap"))
+				.andExpect(status().isOk())
+				.andReturn();
+		AvailabilityBitmapOutput output = jsonMapper.readValue(response.getResponse().getContentAsString(), AvailabilityBitmapOutput.class);
+		BitSet freeNights = BitSet.valueOf(Base64.getDecoder().decode(output.getBitmap()));
+
+		assertEquals(10, output.getNights());
+		assertEquals(8, freeNights.cardinality());
+		assertFalse(freeNights.get(1));
+		assertFalse(freeNights.get(2));
+	}
+
+	@Test
+	public void get_availabilitiesOverWideWindow_shouldWriteEveryFreeDate() throws Exception {
+		mockMvc.perform(post(ENDPOINT).content(jsonMapper.writeValueAsString(getBookingInput())).contentType(MediaType.APPLICATION_JSON))
+				.andExpect(status().isCreated());
+
+		MvcResult response = mockMvc.perform(get(ENDPOINT + "/availabilities").param("startDate", LocalDate.now().toString())
+						.param("endDate", LocalDate.now().plusDays(1000).toString()))
+				.andExpect(status().isOk())
+				.andReturn();
+		CollectionType typeReference = TypeFactory.defaultInstance().constructCollectionType(List.class, LocalDate.class);
+		List<LocalDate> output = jsonMapper.readValue(response.getResponse().getContentAsString(), typeReference);
+
+		assertEquals(998, output.size());
+		assertFalse(output.contains(LocalDate.now().plusDays(1)));
+		assertEquals(LocalDate.now().plusDays(999), output.get(output.size() - 1));
+	}
+
+	@Test
+	public void get_availabilitiesWithUnknownFormat_shouldReturn400() throws Exception {
+		mockMvc.perform(get(ENDPOINT + "/availabilities").param("startDate", LocalDate.now().toString())
+						.param("endDate", LocalDate.now().plusDays(5).toString()).param("format", "csv"))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	public void post_createBookingOnOtherResource_shouldOnlyConflictWithinThatResource() throws Exception {
+		mockMvc.perform(post(ENDPOINT).content(jsonMapper.writeValueAsString(getBookingInput())).contentType(MediaType.APPLICATION_JSON))
+				.andExpect(status().isCreated());
+		BookingInput input = getBookingInput();
+		input.setResourceId(2L);
+
+		MvcResult response = mockMvc.perform(post(ENDPOINT).content(jsonMapper.writeValueAsString(input)).contentType(MediaType.APPLICATION_JSON))
+				.andExpect(status().isCreated())
+				.andReturn();
+		assertEquals(2L, jsonMapper.readValue(response.getResponse().getContentAsString(), BookingOutput.class).getResourceId());
+		mockMvc.perform(post(ENDPOINT).content(jsonMapper.writeValueAsString(input)).contentType(MediaType.APPLICATION_JSON))
+				.andExpect(status().isBadRequest());
+
+		MvcResult resources = mockMvc.perform(get(ENDPOINT + "/availabilities/resources").param("startDate", input.getArrivalDate().toString())
+						.param("endDate", input.getDepartureDate().toString()))
+				.andExpect(status().isOk())
+				.andReturn();
+		CollectionType typeReference = TypeFactory.defaultInstance().constructCollectionType(List.class, Long.class);
+		assertEquals(List.of(3L), jsonMapper.readValue(resources.getResponse().getContentAsString(), typeReference));
+	}
+
+	@Test
+	public void put_updateBookingToOtherResource_shouldFreeNightsOfPreviousResource() throws Exception {
+		BookingInput input = getBookingInput();
+		MvcResult response = mockMvc.perform(post(ENDPOINT).content(jsonMapper.writeValueAsString(input)).contentType(MediaType.APPLICATION_JSON))
+				.andExpect(status().isCreated())
+				.andReturn();
+		BookingOutput created = jsonMapper.readValue(response.getResponse().getContentAsString(), BookingOutput.class);
+
+		input.setResourceId(3L);
+		response = mockMvc.perform(put(ENDPOINT + "/" + created.getBookingId()).content(jsonMapper.writeValueAsString(input)).contentType(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk())
+				.andReturn();
+		assertEquals(3L, jsonMapper.readValue(response.getResponse().getContentAsString(), BookingOutput.class).getResourceId());
+
+		mockMvc.perform(post(ENDPOINT).content(jsonMapper.writeValueAsString(getBookingInput())).contentType(MediaType.APPLICATION_JSON))
+				.andExpect(status().isCreated());
+		mockMvc.perform(post(ENDPOINT).content(jsonMapper.writeValueAsString(input)).contentType(MediaType.APPLICATION_JSON))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	public void get_availabilitiesOfResource_shouldIgnoreOtherResources() throws Exception {
+		BookingInput input = getBookingInput();
+		input.setResourceId(2L);
+		mockMvc.perform(post(ENDPOINT).content(jsonMapper.writeValueAsString(input)).contentType(MediaType.APPLICATION_JSON))
+				.andExpect(status().isCreated());
+
+		MvcResult response = mockMvc.perform(get(ENDPOINT + "/availabilities").param("startDate", LocalDate.now().toString())
+						.param("endDate", LocalDate.now().plusDays(5).toString()).param("resourceId", "2").param("format", "ranges"))
+				.andExpect(status().isOk())
+				.andReturn();
+		CollectionType typeReference = TypeFactory.defaultInstance().constructCollectionType(List.class, AvailabilityRangeOutput.class);
+		assertEquals(2, jsonMapper.<List<AvailabilityRangeOutput>>readValue(response.getResponse().getContentAsString(), typeReference).size());
+
+		response = mockMvc.perform(get(ENDPOINT + "/availabilities").param("startDate", LocalDate.now().toString())
+						.param("endDate", LocalDate.now().plusDays(5).toString()).param("format", "ranges"))
+				.andExpect(status().isOk())
+				.andReturn();
+		assertEquals(List.of(new AvailabilityRangeOutput(LocalDate.now(), LocalDate.now().plusDays(5))),
+				jsonMapper.readValue(response.getResponse().getContentAsString(), typeReference));
+	}
+
+	@Test
+	public void post_createBookingOnUnknownResource_shouldReturn400() throws Exception {
+		BookingInput input = getBookingInput();
+		input.setResourceId(4L);
+		mockMvc.perform(post(ENDPOINT).content(jsonMapper.writeValueAsString(input)).contentType(MediaType.APPLICATION_JSON))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(get(ENDPOINT + "/availabilities").param("startDate", LocalDate.now().toString())
+						.param("endDate", LocalDate.now().plusDays(5).toString()).param("resourceId", "0"))
+				.andExpect(status().isBadRequest());
+	}
+
 	private BookingInput getBookingInput() {
 		BookingInput input = new BookingInput();
 		input.setFirstName("Test");
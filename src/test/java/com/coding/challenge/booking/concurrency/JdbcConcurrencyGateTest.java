@@ -0,0 +1,80 @@
+package com.coding.challenge.booking.concurrency;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.mock.env.MockEnvironment;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class JdbcConcurrencyGateTest {
+
+    @Mock
+    private DataSource dataSourceMock;
+
+    @Test
+    public void getConnection_whenAllPermitsInUse_shouldTimeOut() throws Exception {
+        when(dataSourceMock.getConnection()).thenReturn(mock(Connection.class));
+        JdbcConcurrencyGate gate = new JdbcConcurrencyGate(dataSourceMock, "dataSource", 1, 10);
+
+        gate.getConnection();
+
+        assertThrows(SQLTransientConnectionException.class, gate::getConnection);
+    }
+
+    @Test
+    public void getConnection_whenConnectionClosed_shouldReleasePermitOnce() throws Exception {
+        Connection connection = mock(Connection.class);
+        when(dataSourceMock.getConnection()).thenReturn(connection);
+        JdbcConcurrencyGate gate = new JdbcConcurrencyGate(dataSourceMock, "dataSource", 1, 10);
+
+        Connection first = gate.getConnection();
+        first.close();
+        first.close();
+        Connection second = gate.getConnection();
+
+        assertNotNull(second);
+        assertThrows(SQLTransientConnectionException.class, gate::getConnection);
+        verify(connection, times(2)).close();
+    }
+
+    @Test
+    public void getConnection_whenPoolFails_shouldReturnPermit() throws Exception {
+        when(dataSourceMock.getConnection()).thenThrow(new SQLException("pool exhausted")).thenReturn(mock(Connection.class));
+        JdbcConcurrencyGate gate = new JdbcConcurrencyGate(dataSourceMock, "dataSource", 1, 10);
+
+        assertThrows(SQLException.class, gate::getConnection);
+        assertNotNull(gate.getConnection());
+    }
+
+    @Test
+    public void bindTo_shouldTagGaugesWithDataSourceName() {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        new JdbcConcurrencyGate(dataSourceMock, "dataSource", 3, 10).bindTo(meterRegistry);
+
+        assertEquals(3, meterRegistry.get("booking.jdbc.gate.available").tag("name", "dataSource").gauge().value());
+    }
+
+    @Test
+    public void postProcessor_shouldOnlyGateTheApplicationDataSource() {
+        BeanPostProcessor postProcessor = VirtualThreadConfiguration.jdbcConcurrencyGatePostProcessor(new MockEnvironment());
+
+        assertSame(dataSourceMock, postProcessor.postProcessAfterInitialization(dataSourceMock, "primaryDataSource"));
+        assertSame(dataSourceMock, postProcessor.postProcessAfterInitialization(dataSourceMock, "replicaDataSource"));
+        assertTrue(postProcessor.postProcessAfterInitialization(dataSourceMock, "dataSource") instanceof JdbcConcurrencyGate);
+    }
+}
@@ -0,0 +1,54 @@
+package com.coding.challenge.booking.hold;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HashedTimingWheelTest {
+
+    private final HashedTimingWheel<String> wheel = new HashedTimingWheel<>(8);
+
+    @Test
+    public void tick_shouldExpireTimeoutsOnTheirDeadline() {
+        wheel.schedule("first", 1);
+        wheel.schedule("third", 3);
+
+        assertEquals(List.of("first"), wheel.tick());
+        assertEquals(List.of(), wheel.tick());
+        assertEquals(List.of("third"), wheel.tick());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void tick_shouldKeepTimeoutsDueInALaterRevolution() {
+        wheel.schedule("next-revolution", 10);
+
+        List<String> expired = new ArrayList<>();
+        for (int tick = 1; tick < 10; tick++) {
+            expired.addAll(wheel.tick());
+        }
+
+        assertEquals(List.of(), expired);
+        assertEquals(List.of("next-revolution"), wheel.tick());
+    }
+
+    @Test
+    public void cancel_shouldDropTimeoutOnlyOnce() {
+        HashedTimingWheel.Timeout<String> cancelled = wheel.schedule("cancelled", 2);
+        wheel.schedule("kept", 2);
+
+        assertTrue(wheel.cancel(cancelled));
+        assertFalse(wheel.cancel(cancelled));
+
+        wheel.tick();
+        assertEquals(List.of("kept"), wheel.tick());
+    }
+
+    @Test
+    public void constructor_whenSizeIsNotAPowerOfTwo_shouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> new HashedTimingWheel<String>(100));
+    }
+}
@@ -0,0 +1,121 @@
+package com.coding.challenge.booking.hold;
+
+import com.coding.challenge.booking.error.exception.BookingValidationException;
+import com.coding.challenge.booking.error.exception.HoldNotFoundException;
+import com.coding.challenge.booking.input.BookingInput;
+import com.coding.challenge.booking.lock.DateLockManager;
+import com.coding.challenge.booking.lock.ReservationLock;
+import com.coding.challenge.booking.metrics.BookingMetrics;
+import com.coding.challenge.booking.occupancy.AvailabilityCache;
+import com.coding.challenge.booking.occupancy.DateRange;
+import com.coding.challenge.booking.occupancy.OccupancyIndex;
+import com.coding.challenge.booking.output.BookingOutput;
+import com.coding.challenge.booking.output.HoldOutput;
+import com.coding.challenge.booking.service.BookingService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class HoldServiceTest {
+
+    private static final DateRange DATES = DateRange.of(LocalDate.now().plusDays(1), LocalDate.now().plusDays(3));
+
+    @Mock
+    private BookingService bookingServiceMock;
+
+    @Mock
+    private Clock clockMock;
+
+    @Spy
+    private OccupancyIndex occupancyIndex = new OccupancyIndex();
+
+    @Spy
+    private AvailabilityCache availabilityCache = new AvailabilityCache(new SimpleMeterRegistry(), 10, 60);
+
+    @Spy
+    private ReservationLock reservationLock = new DateLockManager(new SimpleMeterRegistry(), 16, 1000);
+
+    @Spy
+    private BookingMetrics bookingMetrics = BookingMetrics.noop();
+
+    @InjectMocks
+    private HoldService holdService = new HoldService(new SimpleMeterRegistry(), 1, 10, 64);
+
+    @BeforeEach
+    public void setUp() {
+        when(clockMock.instant()).thenAnswer(invocation -> Instant.now());
+        holdService.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        holdService.stop();
+    }
+
+    @Test
+    public void createHold_shouldBlockNightsUntilItExpires() throws Exception {
+        HoldOutput hold = holdService.createHold(getBookingInput());
+
+        assertFalse(occupancyIndex.isAvailable(DATES));
+        assertThrows(BookingValidationException.class, () -> holdService.createHold(getBookingInput()));
+
+        for (int i = 0; i < 300 && !occupancyIndex.isAvailable(DATES); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(occupancyIndex.isAvailable(DATES));
+        assertThrows(HoldNotFoundException.class, () -> holdService.getHold(hold.getHoldId()));
+    }
+
+    @Test
+    public void confirmHold_shouldSaveBookingAndSettleHold() throws Exception {
+        BookingOutput booking = new BookingOutput();
+        booking.setBookingId("1");
+        when(bookingServiceMock.saveReservedBookings(anyList())).thenReturn(List.of(booking));
+        HoldOutput hold = holdService.createHold(getBookingInput());
+
+        assertEquals("1", holdService.confirmHold(hold.getHoldId()).getBookingId());
+
+        assertThrows(HoldNotFoundException.class, () -> holdService.confirmHold(hold.getHoldId()));
+        assertTrue(occupancyIndex.isAvailable(DATES));
+    }
+
+    @Test
+    public void confirmHold_whenSaveFails_shouldKeepHold() throws Exception {
+        when(bookingServiceMock.saveReservedBookings(anyList())).thenThrow(new CannotCreateTransactionException("down"));
+        HoldOutput hold = holdService.createHold(getBookingInput());
+
+        assertThrows(CannotCreateTransactionException.class, () -> holdService.confirmHold(hold.getHoldId()));
+
+        assertEquals(hold, holdService.getHold(hold.getHoldId()));
+        assertFalse(occupancyIndex.isAvailable(DATES));
+        holdService.releaseHold(hold.getHoldId());
+        assertTrue(occupancyIndex.isAvailable(DATES));
+    }
+
+    private BookingInput getBookingInput() {
+        BookingInput input = new BookingInput();
+        input.setFirstName("Test");
+        input.setLastName("User");
+        input.setEmail("test@email.com");
+        input.setArrivalDate(DATES.getArrivalDate());
+        input.setDepartureDate(DATES.getDepartureDate());
+        return input;
+    }
+}
@@ -0,0 +1,67 @@
+package com.coding.challenge.booking.lock;
+
+import com.coding.challenge.booking.error.exception.BookingConflictException;
+import com.coding.challenge.booking.occupancy.DateRange;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DateLockManagerTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2030, 1, 1);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final DateLockManager dateLockManager = new DateLockManager(meterRegistry, 16, 50);
+
+    @Test
+    public void lock_whenRangesAreDisjoint_shouldNotContend() throws Exception {
+        try (ReservationLock.Lease ignored = dateLockManager.lock(DateRange.of(TODAY, TODAY.plusDays(3)))) {
+            CompletableFuture<Void> other = CompletableFuture.runAsync(() -> lockAndRelease(DateRange.of(TODAY.plusDays(3), TODAY.plusDays(6))));
+            assertDoesNotThrow(() -> other.join());
+        }
+    }
+
+    @Test
+    public void lock_whenRangesOverlap_shouldTimeOutWithBookingConflictException() throws Exception {
+        try (ReservationLock.Lease ignored = dateLockManager.lock(DateRange.of(TODAY, TODAY.plusDays(3)))) {
+            CompletableFuture<Void> other = CompletableFuture.runAsync(() -> lockAndRelease(DateRange.of(TODAY.plusDays(2), TODAY.plusDays(4))));
+            Exception expectedException = assertThrows(Exception.class, other::join);
+            assertTrue(expectedException.getCause() instanceof BookingConflictException);
+        }
+    }
+
+    @Test
+    public void lock_whenReleased_shouldAllowOverlappingRange() throws Exception {
+        dateLockManager.lock(DateRange.of(TODAY, TODAY.plusDays(3))).close();
+
+        CompletableFuture<Void> other = CompletableFuture.runAsync(() -> lockAndRelease(DateRange.of(TODAY, TODAY.plusDays(3))));
+        assertDoesNotThrow(() -> other.join());
+    }
+
+    @Test
+    public void lock_shouldRecordWaitAndHoldTime() throws Exception {
+        dateLockManager.lock(DateRange.of(TODAY, TODAY.plusDays(2)), DateRange.of(TODAY.plusDays(10), TODAY.plusDays(12))).close();
+
+        assertEquals(1, meterRegistry.get("booking.date.lock.wait").timer().count());
+        assertEquals(1, meterRegistry.get("booking.date.lock.hold").timer().count());
+    }
+
+    @Test
+    public void constructor_whenStripeCountIsNotPowerOfTwo_shouldThrowIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> new DateLockManager(meterRegistry, 100, 50));
+    }
+
+    private void lockAndRelease(DateRange range) {
+        try {
+            dateLockManager.lock(range).close();
+        } catch (BookingConflictException e) {
+            throw new CompletionException(e);
+        }
+    }
+}
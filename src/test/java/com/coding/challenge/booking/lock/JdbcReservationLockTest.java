@@ -0,0 +1,229 @@
+package com.coding.challenge.booking.lock;
+
+import com.coding.challenge.booking.BookingApplication;
+import com.coding.challenge.booking.controller.BookingController;
+import com.coding.challenge.booking.entity.BookingEntity;
+import com.coding.challenge.booking.error.exception.BookingConflictException;
+import com.coding.challenge.booking.error.exception.BookingSavingException;
+import com.coding.challenge.booking.error.exception.BookingValidationException;
+import com.coding.challenge.booking.etag.ETags;
+import com.coding.challenge.booking.hold.HoldService;
+import com.coding.challenge.booking.input.BookingInput;
+import com.coding.challenge.booking.occupancy.DateRange;
+import com.coding.challenge.booking.output.BookingOutput;
+import com.coding.challenge.booking.output.HoldOutput;
+import com.coding.challenge.booking.persistance.BookingRepository;
+import com.coding.challenge.booking.service.BookingService;
+import org.h2.tools.Server;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs several application instances against one H2 server database, the way they would share MySQL behind a load
+ * balancer.
+ */
+public class JdbcReservationLockTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+    private static final int INSTANCES = 3;
+    private static final int THREADS_PER_INSTANCE = 4;
+    private static final int ATTEMPTS_PER_THREAD = 20;
+
+    private static Server server;
+    private static final List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+
+    @BeforeAll
+    public static void startInstances() throws Exception {
+        server = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+        for (int i = 0; i < INSTANCES; i++) {
+            contexts.add(new SpringApplicationBuilder(BookingApplication.class).web(WebApplicationType.NONE).run(
+                    "--spring.datasource.url=jdbc:h2:tcp://localhost:" + server.getPort() + "/mem:lockdb;DB_CLOSE_DELAY=-1",
+                    "--spring.jpa.hibernate.ddl-auto=update",
+                    "--booking.lock.provider=jdbc",
+                    "--booking.lock.timeout-ms=1000"));
+        }
+    }
+
+    @AfterAll
+    public static void stopInstances() {
+        contexts.forEach(ConfigurableApplicationContext::close);
+        server.stop();
+    }
+
+    @Test
+    public void lock_shouldExcludeOverlappingLeasesTakenByOtherInstances() throws Exception {
+        ReservationLock first = contexts.get(0).getBean(ReservationLock.class);
+        ReservationLock second = contexts.get(1).getBean(ReservationLock.class);
+        DateRange dates = DateRange.of(TODAY, TODAY.plusDays(3));
+
+        try (ReservationLock.Lease ignored = first.lock(dates)) {
+            assertThrows(BookingConflictException.class, () -> second.lock(DateRange.of(TODAY.plusDays(2), TODAY.plusDays(4))));
+            second.lock(DateRange.of(TODAY.plusDays(3), TODAY.plusDays(5))).close();
+            second.lock(DateRange.of(2, TODAY, TODAY.plusDays(3))).close();
+        }
+        second.lock(dates).close();
+    }
+
+    @Test
+    public void lock_whenLeaseExpired_shouldTakeItOver() throws Exception {
+        JdbcTemplate jdbcTemplate = contexts.get(0).getBean(JdbcTemplate.class);
+        jdbcTemplate.update("insert into reservation_lease (resource_id, night, holder, expires_at) values (?, ?, ?, timestampadd(second, -1, current_timestamp))",
+                DateRange.DEFAULT_RESOURCE_ID, Date.valueOf(TODAY.minusDays(10)), "crashed");
+
+        contexts.get(1).getBean(ReservationLock.class).lock(DateRange.of(TODAY.minusDays(10), TODAY.minusDays(9))).close();
+
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from reservation_lease", Integer.class));
+    }
+
+    @Test
+    public void commit_whenLeaseExpiredMeanwhile_shouldFail() {
+        ReservationLock lock = contexts.get(0).getBean(ReservationLock.class);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(contexts.get(0).getBean(PlatformTransactionManager.class));
+        JdbcTemplate otherInstance = contexts.get(1).getBean(JdbcTemplate.class);
+
+        assertThrows(OptimisticLockingFailureException.class, () -> transactionTemplate.executeWithoutResult(status -> {
+            try {
+                lock.lockUntilTransactionCompletes(DateRange.of(TODAY.plusDays(70), TODAY.plusDays(72)));
+            } catch (BookingConflictException | BookingSavingException e) {
+                throw new IllegalStateException(e);
+            }
+            // the transaction outlived its lease, so the nights may already belong to someone else
+            otherInstance.update("update reservation_lease set expires_at = timestampadd(second, -1, current_timestamp)");
+        }));
+
+        assertEquals(0, otherInstance.queryForObject("select count(*) from reservation_lease", Integer.class));
+    }
+
+    @Test
+    public void createBooking_whenNightsHeld_shouldLeaveThemToTheHold() throws Exception {
+        HoldService holdService = contexts.get(0).getBean(HoldService.class);
+        BookingService bookingService = contexts.get(0).getBean(BookingService.class);
+        BookingInput input = getBookingInput(TODAY.plusDays(40), TODAY.plusDays(42));
+        HoldOutput hold = holdService.createHold(input);
+
+        assertThrows(BookingValidationException.class, () -> bookingService.createBooking(input));
+
+        BookingOutput booking = holdService.confirmHold(hold.getHoldId());
+        bookingService.deleteBooking(Long.parseLong(booking.getBookingId()));
+    }
+
+    @Test
+    public void createHold_whenNightsBookedOnOtherInstance_shouldFail() throws Exception {
+        BookingService bookingService = contexts.get(1).getBean(BookingService.class);
+        BookingInput input = getBookingInput(TODAY.plusDays(80), TODAY.plusDays(82));
+        BookingOutput booking = bookingService.createBooking(input);
+
+        assertThrows(BookingValidationException.class, () -> contexts.get(0).getBean(HoldService.class).createHold(input));
+
+        bookingService.deleteBooking(Long.parseLong(booking.getBookingId()));
+    }
+
+    @Test
+    public void getAvailabilities_shouldSeeBookingsOfOtherInstances() throws Exception {
+        BookingService first = contexts.get(0).getBean(BookingService.class);
+        BookingService second = contexts.get(1).getBean(BookingService.class);
+        long resourceId = DateRange.DEFAULT_RESOURCE_ID;
+        LocalDate arrivalDate = TODAY.plusDays(50);
+        assertEquals(3, first.getAvailableDates(resourceId, arrivalDate, arrivalDate.plusDays(3)).size());
+
+        BookingOutput booking = second.createBooking(getBookingInput(arrivalDate, arrivalDate.plusDays(2)));
+
+        assertEquals(List.of(arrivalDate.plusDays(2)), first.getAvailableDates(resourceId, arrivalDate, arrivalDate.plusDays(3)));
+        assertEquals(1, first.getAvailableRanges(resourceId, arrivalDate, arrivalDate.plusDays(3)).size());
+        assertEquals(Base64.getEncoder().encodeToString(new byte[]{0b100}), first.getAvailabilityBitmap(resourceId, arrivalDate, arrivalDate.plusDays(3)).getBitmap());
+        assertFalse(first.getAvailableResources(arrivalDate, arrivalDate.plusDays(1)).contains(resourceId));
+
+        second.deleteBooking(Long.parseLong(booking.getBookingId()));
+        assertEquals(3, first.getAvailableDates(resourceId, arrivalDate, arrivalDate.plusDays(3)).size());
+    }
+
+    @Test
+    public void getAvailableDates_shouldNotAnswerNotModifiedFromLocalVersion() throws Exception {
+        BookingController controller = contexts.get(0).getBean(BookingController.class);
+
+        ResponseEntity<?> response = controller.getAvailableDates(TODAY.plusDays(60), TODAY.plusDays(63), DateRange.DEFAULT_RESOURCE_ID, "dates",
+                ETags.ofOccupancy(contexts.get(0).getBean(BookingService.class).getOccupancyVersion(DateRange.DEFAULT_RESOURCE_ID)));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNull(response.getHeaders().getETag());
+    }
+
+    @Test
+    public void createBooking_whenInstancesRaceForSameNights_shouldNeverOverbook() throws Exception {
+        // Without the unique constraint the lease table is the only thing keeping instances apart.
+        JdbcTemplate jdbcTemplate = contexts.get(0).getBean(JdbcTemplate.class);
+        jdbcTemplate.execute("alter table booking_night drop constraint uk_booking_night_resource_night");
+
+        ExecutorService executor = Executors.newFixedThreadPool(INSTANCES * THREADS_PER_INSTANCE);
+        AtomicInteger accepted = new AtomicInteger();
+        List<CompletableFuture<Void>> workers = new ArrayList<>();
+        for (ConfigurableApplicationContext context : contexts) {
+            BookingService bookingService = context.getBean(BookingService.class);
+            for (int i = 0; i < THREADS_PER_INSTANCE; i++) {
+                Random random = new Random(workers.size());
+                workers.add(CompletableFuture.runAsync(() -> {
+                    for (int attempt = 0; attempt < ATTEMPTS_PER_THREAD; attempt++) {
+                        LocalDate arrivalDate = TODAY.plusDays(1 + random.nextInt(20));
+                        try {
+                            bookingService.createBooking(getBookingInput(arrivalDate, arrivalDate.plusDays(1 + random.nextInt(3))));
+                            accepted.incrementAndGet();
+                        } catch (BookingValidationException | BookingConflictException | BookingSavingException e) {
+                            // Nights taken, or lock contended for too long: both are valid outcomes here.
+                        } catch (Exception e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                }, executor));
+            }
+        }
+        CompletableFuture.allOf(workers.toArray(CompletableFuture[]::new)).join();
+        executor.shutdown();
+
+        List<BookingEntity> bookings = contexts.get(0).getBean(BookingRepository.class).findAll();
+        int[] bookingsPerNight = new int[32];
+        for (BookingEntity booking : bookings) {
+            booking.getArrivalDate().datesUntil(booking.getDepartureDate())
+                    .forEach(night -> bookingsPerNight[(int) (night.toEpochDay() - TODAY.toEpochDay())]++);
+        }
+
+        assertTrue(accepted.get() > 0);
+        assertEquals(accepted.get(), bookings.size());
+        for (int night = 0; night < bookingsPerNight.length; night++) {
+            assertTrue(bookingsPerNight[night] <= 1, "Night " + TODAY.plusDays(night) + " was booked " + bookingsPerNight[night] + " times");
+        }
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from reservation_lease", Integer.class));
+    }
+
+    private static BookingInput getBookingInput(LocalDate arrivalDate, LocalDate departureDate) {
+        BookingInput input = new BookingInput();
+        input.setFirstName("Test");
+        input.setLastName("User");
+        input.setEmail("test@email.com");
+        input.setArrivalDate(arrivalDate);
+        input.setDepartureDate(departureDate);
+        return input;
+    }
+}
@@ -0,0 +1,71 @@
+package com.coding.challenge.booking.occupancy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class AvailabilityCacheTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2030, 1, 1);
+    private static final long RESOURCE = DateRange.DEFAULT_RESOURCE_ID;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final AvailabilityCache availabilityCache = new AvailabilityCache(meterRegistry, 100, 60);
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    public void get_whenWindowRequestedTwice_shouldLoadOnce() {
+        availabilityCache.get(RESOURCE, TODAY, TODAY.plusMonths(1), this::load);
+        availabilityCache.get(RESOURCE, TODAY, TODAY.plusMonths(1), this::load);
+
+        assertEquals(1, loads.get());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "booking.availability").tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    public void onOccupancyChanged_shouldEvictOnlyOverlappingWindows() {
+        availabilityCache.get(RESOURCE, TODAY, TODAY.plusDays(10), this::load);
+        availabilityCache.get(RESOURCE, TODAY.plusDays(20), TODAY.plusDays(30), this::load);
+        availabilityCache.get(2, TODAY, TODAY.plusDays(10), this::load);
+
+        availabilityCache.onOccupancyChanged(OccupancyChangedEvent.occupied(DateRange.of(TODAY.plusDays(5), TODAY.plusDays(7))));
+        availabilityCache.get(RESOURCE, TODAY, TODAY.plusDays(10), this::load);
+        availabilityCache.get(RESOURCE, TODAY.plusDays(20), TODAY.plusDays(30), this::load);
+        availabilityCache.get(2, TODAY, TODAY.plusDays(10), this::load);
+
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    public void onOccupancyChanged_whenReleasedRangeOverlaps_shouldEvictWindow() {
+        availabilityCache.get(RESOURCE, TODAY, TODAY.plusDays(10), this::load);
+
+        availabilityCache.onOccupancyChanged(OccupancyChangedEvent.moved(DateRange.of(TODAY.plusDays(9), TODAY.plusDays(11)), DateRange.of(TODAY.plusDays(15), TODAY.plusDays(17))));
+        availabilityCache.get(RESOURCE, TODAY, TODAY.plusDays(10), this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void get_whenOccupancyChangesDuringLoad_shouldNotCacheResult() {
+        availabilityCache.get(RESOURCE, TODAY, TODAY.plusDays(10), (startDate, endDate) -> {
+            availabilityCache.onOccupancyChanged(OccupancyChangedEvent.occupied(DateRange.of(TODAY.plusDays(40), TODAY.plusDays(41))));
+            return load(startDate, endDate);
+        });
+        availabilityCache.get(RESOURCE, TODAY, TODAY.plusDays(10), this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    private List<LocalDate> load(LocalDate startDate, LocalDate endDate) {
+        loads.incrementAndGet();
+        return List.of(startDate);
+    }
+}
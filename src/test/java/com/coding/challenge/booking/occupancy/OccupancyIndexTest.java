@@ -0,0 +1,165 @@
+package com.coding.challenge.booking.occupancy;
+
+import com.coding.challenge.booking.metrics.BookingMetrics;
+import com.coding.challenge.booking.persistance.BookedDates;
+import com.coding.challenge.booking.persistance.BookingRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class OccupancyIndexTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2030, 1, 1);
+    private static final long RESOURCE = DateRange.DEFAULT_RESOURCE_ID;
+
+    @Mock
+    private BookingRepository bookingRepositoryMock;
+
+    @Spy
+    private BookingMetrics bookingMetrics = BookingMetrics.noop();
+
+    @InjectMocks
+    private OccupancyIndex occupancyIndex = new OccupancyIndex();
+
+    @Test
+    public void load_shouldOccupyNightsOfExistingBookings() {
+        when(bookingRepositoryMock.getAllBookedDatesBetween(any(LocalDate.class), any(LocalDate.class))).thenReturn(List.of(getBookedDates(TODAY.plusDays(1), TODAY.plusDays(3))));
+
+        occupancyIndex.load();
+
+        assertFalse(occupancyIndex.isAvailable(DateRange.of(TODAY.plusDays(2), TODAY.plusDays(3))));
+        assertTrue(occupancyIndex.isAvailable(DateRange.of(TODAY.plusDays(3), TODAY.plusDays(5))));
+    }
+
+    @Test
+    public void getAvailableDates_shouldSkipOccupiedNights() {
+        occupancyIndex.onOccupancyChanged(OccupancyChangedEvent.occupied(DateRange.of(TODAY.plusDays(1), TODAY.plusDays(3))));
+
+        List<LocalDate> availableDates = occupancyIndex.getAvailableDates(RESOURCE, TODAY, TODAY.plusDays(4));
+
+        assertEquals(List.of(TODAY, TODAY.plusDays(3)), availableDates);
+    }
+
+    @Test
+    public void getVersion_shouldChangeWithEveryOccupancyChange() {
+        long initial = occupancyIndex.getVersion(RESOURCE);
+        DateRange dates = DateRange.of(TODAY.plusDays(1), TODAY.plusDays(3));
+
+        occupancyIndex.onOccupancyChanged(OccupancyChangedEvent.occupied(dates));
+        long occupied = occupancyIndex.getVersion(RESOURCE);
+        assertFalse(occupancyIndex.tryReserve(dates));
+        assertEquals(occupied, occupancyIndex.getVersion(RESOURCE));
+        assertTrue(occupancyIndex.tryReserve(DateRange.of(TODAY.plusDays(5), TODAY.plusDays(6))));
+
+        assertTrue(initial < occupied);
+        assertTrue(occupied < occupancyIndex.getVersion(RESOURCE));
+    }
+
+    @Test
+    public void getFreeRanges_shouldMergeFreeNightsIntoIntervals() {
+        occupancyIndex.onOccupancyChanged(OccupancyChangedEvent.occupied(DateRange.of(TODAY.plusDays(1), TODAY.plusDays(3))));
+        occupancyIndex.tryReserve(DateRange.of(TODAY.plusDays(5), TODAY.plusDays(6)));
+
+        List<DateRange> freeRanges = occupancyIndex.getFreeRanges(RESOURCE, TODAY, TODAY.plusDays(8));
+
+        assertEquals(List.of(DateRange.of(TODAY, TODAY.plusDays(1)), DateRange.of(TODAY.plusDays(3), TODAY.plusDays(5)),
+                DateRange.of(TODAY.plusDays(6), TODAY.plusDays(8))), freeRanges);
+        assertEquals(5, occupancyIndex.getFreeNights(RESOURCE, TODAY, TODAY.plusDays(8)).cardinality());
+    }
+
+    @Test
+    public void isAvailable_shouldOnlySeeNightsOfTheSameResource() {
+        DateRange booked = DateRange.of(RESOURCE, TODAY.plusDays(1), TODAY.plusDays(3));
+        occupancyIndex.onOccupancyChanged(OccupancyChangedEvent.occupied(booked));
+        assertTrue(occupancyIndex.tryReserve(DateRange.of(2, TODAY.plusDays(2), TODAY.plusDays(4))));
+
+        assertTrue(occupancyIndex.isAvailable(DateRange.of(3, TODAY.plusDays(1), TODAY.plusDays(3))));
+        assertFalse(occupancyIndex.isAvailable(DateRange.of(2, TODAY.plusDays(3), TODAY.plusDays(4)), DateRange.of(RESOURCE, TODAY.plusDays(3), TODAY.plusDays(4))));
+        assertEquals(List.of(TODAY, TODAY.plusDays(1), TODAY.plusDays(4)), occupancyIndex.getAvailableDates(2, TODAY, TODAY.plusDays(5)));
+        assertEquals(List.of(1L, 3L), occupancyIndex.getAvailableResources(3, TODAY.plusDays(3), TODAY.plusDays(4)));
+    }
+
+    @Test
+    public void isAvailable_whenDepartureMatchesArrival_shouldBeAvailable() {
+        occupancyIndex.onOccupancyChanged(OccupancyChangedEvent.occupied(DateRange.of(TODAY.plusDays(1), TODAY.plusDays(3))));
+
+        assertTrue(occupancyIndex.isAvailable(DateRange.of(TODAY, TODAY.plusDays(1))));
+        assertTrue(occupancyIndex.isAvailable(DateRange.of(TODAY.plusDays(3), TODAY.plusDays(4))));
+        assertFalse(occupancyIndex.isAvailable(DateRange.of(TODAY, TODAY.plusDays(2))));
+    }
+
+    @Test
+    public void isAvailable_whenOverlapIsIgnoredRange_shouldBeAvailable() {
+        DateRange booked = DateRange.of(TODAY.plusDays(1), TODAY.plusDays(3));
+        occupancyIndex.onOccupancyChanged(OccupancyChangedEvent.occupied(booked));
+
+        assertTrue(occupancyIndex.isAvailable(DateRange.of(TODAY.plusDays(2), TODAY.plusDays(4)), booked));
+        assertFalse(occupancyIndex.isAvailable(DateRange.of(TODAY, TODAY.plusDays(4)), DateRange.of(TODAY.plusDays(1), TODAY.plusDays(2))));
+    }
+
+    @Test
+    public void onOccupancyChanged_whenMoved_shouldReleasePreviousNights() {
+        DateRange previous = DateRange.of(TODAY.plusDays(1), TODAY.plusDays(3));
+        DateRange current = DateRange.of(TODAY.plusDays(5), TODAY.plusDays(6));
+        occupancyIndex.onOccupancyChanged(OccupancyChangedEvent.occupied(previous));
+
+        occupancyIndex.onOccupancyChanged(OccupancyChangedEvent.moved(previous, current));
+
+        assertTrue(occupancyIndex.isAvailable(previous));
+        assertFalse(occupancyIndex.isAvailable(current));
+    }
+
+    @Test
+    public void tryReserve_shouldHideNightsUntilReleased() {
+        DateRange reserved = DateRange.of(TODAY.plusDays(1), TODAY.plusDays(3));
+
+        assertTrue(occupancyIndex.tryReserve(reserved));
+        assertFalse(occupancyIndex.tryReserve(DateRange.of(TODAY.plusDays(2), TODAY.plusDays(4))));
+        assertEquals(List.of(TODAY, TODAY.plusDays(3)), occupancyIndex.getAvailableDates(RESOURCE, TODAY, TODAY.plusDays(4)));
+
+        occupancyIndex.releaseReservation(reserved);
+
+        assertTrue(occupancyIndex.isAvailable(reserved));
+    }
+
+    @Test
+    public void releaseReservation_shouldKeepCommittedNightsOccupied() {
+        DateRange booked = DateRange.of(TODAY.plusDays(1), TODAY.plusDays(3));
+        assertTrue(occupancyIndex.tryReserve(booked));
+        occupancyIndex.onOccupancyChanged(OccupancyChangedEvent.occupied(booked));
+
+        occupancyIndex.releaseReservation(booked);
+
+        assertFalse(occupancyIndex.isAvailable(booked));
+    }
+
+    private BookedDates getBookedDates(LocalDate arrivalDate, LocalDate departureDate) {
+        return new BookedDates() {
+            @Override
+            public Long getResourceId() {
+                return RESOURCE;
+            }
+
+            @Override
+            public LocalDate getArrivalDate() {
+                return arrivalDate;
+            }
+
+            @Override
+            public LocalDate getDepartureDate() {
+                return departureDate;
+            }
+        };
+    }
+}
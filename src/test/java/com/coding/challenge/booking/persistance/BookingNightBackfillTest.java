@@ -0,0 +1,64 @@
+package com.coding.challenge.booking.persistance;
+
+import com.coding.challenge.booking.entity.BookingEntity;
+import com.coding.challenge.booking.entity.BookingNightEntity;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+@Import(BookingNightBackfill.class)
+public class BookingNightBackfillTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2030, 1, 10);
+
+    @Autowired
+    private BookingNightBackfill bookingNightBackfill;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BookingNightRepository bookingNightRepository;
+
+    @Test
+    public void backfill_shouldWriteNightsOfBookingsWithoutNights() {
+        bookingRepository.save(getBookingEntity(TODAY, TODAY.plusDays(3)));
+        BookingEntity backfilled = bookingRepository.save(getBookingEntity(TODAY.plusDays(3), TODAY.plusDays(5)));
+        BookingEntity withNights = getBookingEntity(TODAY.plusDays(5), TODAY.plusDays(6));
+        withNights.getNights().add(new BookingNightEntity(withNights, TODAY.plusDays(5)));
+        bookingRepository.saveAndFlush(withNights);
+
+        bookingNightBackfill.backfill();
+
+        assertEquals(6, bookingNightRepository.count());
+        assertEquals(2, bookingNightRepository.countNightsOfOtherBookingsBetween(withNights.getId(), backfilled.getResourceId(), TODAY.plusDays(3), TODAY.plusDays(6)));
+        assertTrue(bookingRepository.findWithoutNightsAfter(0, PageRequest.of(0, 10)).isEmpty());
+    }
+
+    @Test
+    public void backfill_whenBookingsAlreadyOverlap_shouldFail() {
+        bookingRepository.save(getBookingEntity(TODAY, TODAY.plusDays(3)));
+        bookingRepository.saveAndFlush(getBookingEntity(TODAY.plusDays(2), TODAY.plusDays(4)));
+
+        assertThrows(IllegalStateException.class, () -> bookingNightBackfill.backfill());
+    }
+
+    private BookingEntity getBookingEntity(LocalDate arrivalDate, LocalDate departureDate) {
+        BookingEntity entity = new BookingEntity();
+        entity.setFirstName("Test");
+        entity.setLastName("User");
+        entity.setEmail("test@email.com");
+        entity.setArrivalDate(arrivalDate);
+        entity.setDepartureDate(departureDate);
+        return entity;
+    }
+}
@@ -0,0 +1,123 @@
+package com.coding.challenge.booking.persistance;
+
+import com.coding.challenge.booking.entity.BookingEntity;
+import com.coding.challenge.booking.entity.BookingNightEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+public class BookingRepositoryTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2030, 1, 10);
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BookingNightRepository bookingNightRepository;
+
+    @BeforeEach
+    public void setUp() {
+        bookingRepository.save(getBookingEntity(TODAY.minusDays(5), TODAY.minusDays(2)));
+        bookingRepository.save(getBookingEntity(TODAY.minusDays(1), TODAY.plusDays(1)));
+        bookingRepository.save(getBookingEntity(TODAY.plusDays(3), TODAY.plusDays(5)));
+        bookingRepository.save(getBookingEntity(TODAY.plusDays(10), TODAY.plusDays(12)));
+    }
+
+    @Test
+    public void getAllBookedDatesBetween_shouldReturnOnlyOverlappingBookings() {
+        List<BookedDates> bookedDates = bookingRepository.getAllBookedDatesBetween(TODAY, TODAY.plusDays(4));
+
+        assertEquals(2, bookedDates.size());
+        assertTrue(bookedDates.stream().anyMatch(dates -> dates.getArrivalDate().equals(TODAY.minusDays(1))));
+        assertTrue(bookedDates.stream().anyMatch(dates -> dates.getArrivalDate().equals(TODAY.plusDays(3))));
+    }
+
+    @Test
+    public void getAllBookedDatesBetween_whenBookingsOnlyTouchWindowEdges_shouldReturnNothing() {
+        assertTrue(bookingRepository.getAllBookedDatesBetween(TODAY.plusDays(1), TODAY.plusDays(3)).isEmpty());
+    }
+
+    @Test
+    public void saveAndFlush_whenNightAlreadyReserved_shouldThrowDataIntegrityViolationException() {
+        bookingRepository.saveAndFlush(withNights(getBookingEntity(TODAY.plusDays(20), TODAY.plusDays(22))));
+
+        DataIntegrityViolationException e = assertThrows(DataIntegrityViolationException.class,
+                () -> bookingRepository.saveAndFlush(withNights(getBookingEntity(TODAY.plusDays(21), TODAY.plusDays(23)))));
+        assertTrue(BookingNightConstraint.isViolatedBy(e));
+    }
+
+    @Test
+    public void saveAndFlush_whenHandleAlreadyUsed_shouldNotBeNightConstraintViolation() {
+        BookingEntity first = getBookingEntity(TODAY.plusDays(20), TODAY.plusDays(22));
+        first.setHandle("handle");
+        bookingRepository.saveAndFlush(first);
+        BookingEntity second = getBookingEntity(TODAY.plusDays(24), TODAY.plusDays(26));
+        second.setHandle("handle");
+
+        DataIntegrityViolationException e = assertThrows(DataIntegrityViolationException.class, () -> bookingRepository.saveAndFlush(second));
+        assertFalse(BookingNightConstraint.isViolatedBy(e));
+    }
+
+    @Test
+    public void updateIfVersionMatches_whenVersionMatches_shouldUpdateAndIncrementVersion() {
+        BookingEntity entity = bookingRepository.saveAndFlush(getBookingEntity(TODAY.plusDays(20), TODAY.plusDays(22)));
+
+        int updated = bookingRepository.updateIfVersionMatches(entity.getId(), entity.getResourceId(), "other@email.com", "Other", "User", TODAY.plusDays(21), TODAY.plusDays(23), entity.getVersion());
+
+        assertEquals(1, updated);
+        VersionedBookedDates dates = bookingRepository.findBookedDatesById(entity.getId()).orElseThrow();
+        assertEquals(TODAY.plusDays(21), dates.getArrivalDate());
+        assertEquals(entity.getVersion() + 1, dates.getVersion());
+    }
+
+    @Test
+    public void updateIfVersionMatches_whenVersionChanged_shouldUpdateNothing() {
+        BookingEntity entity = bookingRepository.saveAndFlush(getBookingEntity(TODAY.plusDays(20), TODAY.plusDays(22)));
+
+        assertEquals(0, bookingRepository.updateIfVersionMatches(entity.getId(), entity.getResourceId(), "other@email.com", "Other", "User", TODAY.plusDays(21), TODAY.plusDays(23), entity.getVersion() + 1));
+    }
+
+    @Test
+    public void deleteIfVersionMatches_shouldReturnAffectedRows() {
+        BookingEntity entity = bookingRepository.saveAndFlush(withNights(getBookingEntity(TODAY.plusDays(20), TODAY.plusDays(22))));
+
+        assertEquals(2, bookingNightRepository.deleteNightsOf(entity.getId()));
+        assertEquals(1, bookingRepository.deleteIfVersionMatches(entity.getId(), entity.getVersion()));
+        assertEquals(0, bookingRepository.deleteIfVersionMatches(entity.getId(), entity.getVersion()));
+    }
+
+    @Test
+    public void deleteIfVersionMatches_whenVersionChanged_shouldDeleteNothing() {
+        BookingEntity entity = bookingRepository.saveAndFlush(getBookingEntity(TODAY.plusDays(20), TODAY.plusDays(22)));
+
+        assertEquals(0, bookingRepository.deleteIfVersionMatches(entity.getId(), entity.getVersion() + 1));
+        assertTrue(bookingRepository.existsById(entity.getId()));
+    }
+
+    private BookingEntity withNights(BookingEntity entity) {
+        entity.getArrivalDate().datesUntil(entity.getDepartureDate()).forEach(night -> entity.getNights().add(new BookingNightEntity(entity, night)));
+        return entity;
+    }
+
+    private BookingEntity getBookingEntity(LocalDate arrivalDate, LocalDate departureDate) {
+        BookingEntity entity = new BookingEntity();
+        entity.setFirstName("Test");
+        entity.setLastName("User");
+        entity.setEmail("test@email.com");
+        entity.setArrivalDate(arrivalDate);
+        entity.setDepartureDate(departureDate);
+        return entity;
+    }
+}
@@ -0,0 +1,131 @@
+package com.coding.challenge.booking.persistance;
+
+import com.coding.challenge.booking.error.exception.BookingNotFoundException;
+import com.coding.challenge.booking.input.BookingInput;
+import com.coding.challenge.booking.occupancy.OccupancyIndex;
+import com.coding.challenge.booking.output.BookingOutput;
+import com.coding.challenge.booking.service.BookingService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "booking.second-level-cache.enabled=true",
+        "spring.datasource.url=jdbc:h2:mem:cachedb;DB_CLOSE_DELAY=-1"
+})
+public class SecondLevelCacheTest {
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private OccupancyIndex occupancyIndex;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        bookingRepository.deleteAll();
+        occupancyIndex.load();
+    }
+
+    @Test
+    public void getBooking_afterCreate_shouldBeServedFromCache() throws Exception {
+        BookingOutput created = bookingService.createBooking(getBookingInput(1, 3));
+        long id = Long.parseLong(created.getBookingId());
+        statistics.clear();
+
+        assertEquals(created, bookingService.getBooking(id));
+        assertEquals(created, bookingService.getBooking(id));
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(2, statistics.getDomainDataRegionStatistics(SecondLevelCacheConfiguration.BOOKING_REGION).getHitCount());
+        assertEquals(1.0, meterRegistry.get("booking.second-level-cache.hit.ratio").tag("region", "booking").gauge().value());
+    }
+
+    @Test
+    public void getBooking_afterUpdateOrDelete_shouldNotServeStaleEntry() throws Exception {
+        BookingOutput created = bookingService.createBooking(getBookingInput(1, 3));
+        long id = Long.parseLong(created.getBookingId());
+        bookingService.getBooking(id);
+
+        BookingInput input = getBookingInput(4, 6);
+        input.setEmail("updated@email.com");
+        bookingService.updateBooking(id, input);
+        BookingOutput updated = bookingService.getBooking(id);
+        assertEquals("updated@email.com", updated.getEmail());
+        assertEquals(created.getVersion() + 1, updated.getVersion());
+
+        bookingService.deleteBooking(id);
+        assertThrows(BookingNotFoundException.class, () -> bookingService.getBooking(id));
+    }
+
+    @Test
+    public void getBooking_whenOtherBookingsChangeInBetween_shouldStillBeServedFromCache() throws Exception {
+        BookingOutput created = bookingService.createBooking(getBookingInput(1, 3));
+        long id = Long.parseLong(created.getBookingId());
+        long updatedId = Long.parseLong(bookingService.createBooking(getBookingInput(4, 6)).getBookingId());
+        long deletedId = Long.parseLong(bookingService.createBooking(getBookingInput(7, 9)).getBookingId());
+        statistics.clear();
+
+        assertEquals(created, bookingService.getBooking(id));
+        BookingOutput updated = bookingService.updateBooking(updatedId, getBookingInput(4, 5));
+        assertEquals(created, bookingService.getBooking(id));
+        bookingService.deleteBooking(deletedId);
+        assertEquals(created, bookingService.getBooking(id));
+        assertEquals(updated, bookingService.getBooking(updatedId));
+
+        assertEquals(0, statistics.getDomainDataRegionStatistics(SecondLevelCacheConfiguration.BOOKING_REGION).getMissCount());
+        assertEquals(1.0, meterRegistry.get("booking.second-level-cache.hit.ratio").tag("region", "booking").gauge().value());
+    }
+
+    @Test
+    public void getAllBookedDatesBetween_shouldHitQueryCacheUntilBookingsChange() throws Exception {
+        LocalDate start = LocalDate.now();
+        LocalDate end = start.plusDays(30);
+        bookingService.createBooking(getBookingInput(1, 3));
+
+        assertEquals(1, bookingRepository.getAllBookedDatesBetween(start, end).size());
+        assertEquals(1, bookingRepository.getAllBookedDatesBetween(start, end).size());
+        assertEquals(1, statistics.getQueryCacheHitCount());
+
+        bookingService.createBooking(getBookingInput(4, 6));
+        assertEquals(2, bookingRepository.getAllBookedDatesBetween(start, end).size());
+        assertEquals(1, statistics.getQueryCacheHitCount());
+    }
+
+    private BookingInput getBookingInput(int arrivalOffset, int departureOffset) {
+        BookingInput input = new BookingInput();
+        input.setFirstName("Test");
+        input.setLastName("User");
+        input.setEmail("test@email.com");
+        input.setArrivalDate(LocalDate.now().plusDays(arrivalOffset));
+        input.setDepartureDate(LocalDate.now().plusDays(departureOffset));
+        return input;
+    }
+}
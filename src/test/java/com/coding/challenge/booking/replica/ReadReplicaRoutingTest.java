@@ -0,0 +1,157 @@
+package com.coding.challenge.booking.replica;
+
+import com.coding.challenge.booking.error.exception.BookingNotFoundException;
+import com.coding.challenge.booking.input.BookingInput;
+import com.coding.challenge.booking.occupancy.OccupancyIndex;
+import com.coding.challenge.booking.output.BookingOutput;
+import com.coding.challenge.booking.persistance.BookingRepository;
+import com.coding.challenge.booking.service.BookingService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.servlet.ServletException;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "booking.replica.enabled=true",
+        "spring.datasource.url=jdbc:h2:mem:primarydb;DB_CLOSE_DELAY=-1",
+        "booking.replica.datasource.jdbc-url=jdbc:h2:mem:replicadb;DB_CLOSE_DELAY=-1",
+        "booking.replica.datasource.username=sa"
+})
+@AutoConfigureMockMvc
+public class ReadReplicaRoutingTest {
+
+    private static final String ENDPOINT = "/v1/booking";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper jsonMapper;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private OccupancyIndex occupancyIndex;
+
+    @Autowired
+    private PrimaryStickinessFilter primaryStickinessFilter;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    @BeforeEach
+    public void setUp() {
+        replicate();
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        bookingRepository.deleteAll();
+        occupancyIndex.load();
+    }
+
+    @Test
+    public void readOnlyTransactions_shouldReadFromReplica() throws Exception {
+        long id = Long.parseLong(bookingService.createBooking(getBookingInput()).getBookingId());
+
+        assertTrue(bookingService.getAllBookings().isEmpty());
+        assertThrows(BookingNotFoundException.class, () -> bookingService.getBooking(id));
+
+        replicate();
+        assertEquals(1, bookingService.getAllBookings().size());
+        assertEquals(id, Long.parseLong(bookingService.getBooking(id).getBookingId()));
+    }
+
+    @Test
+    public void get_rightAfterWriteFromSameClient_shouldReadFromPrimary() throws Exception {
+        String response = mockMvc.perform(post(ENDPOINT).header("X-Client-Id", "writer")
+                        .content(jsonMapper.writeValueAsString(getBookingInput())).contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        String id = jsonMapper.readValue(response, BookingOutput.class).getBookingId();
+
+        mockMvc.perform(get(ENDPOINT + "/" + id).header("X-Client-Id", "writer")).andExpect(status().isOk());
+        mockMvc.perform(get(ENDPOINT + "/" + id).header("X-Client-Id", "reader")).andExpect(status().isNotFound());
+
+        replicate();
+        mockMvc.perform(get(ENDPOINT + "/" + id).header("X-Client-Id", "reader")).andExpect(status().isOk());
+    }
+
+    @Test
+    public void get_sentAsSoonAsWriteResponseIsCommitted_shouldReadFromPrimary() throws Exception {
+        long id = Long.parseLong(bookingService.createBooking(getBookingInput()).getBookingId());
+        MockHttpServletRequest write = new MockHttpServletRequest("PUT", ENDPOINT + "/" + id);
+        write.addHeader("X-Client-Id", "eager");
+
+        primaryStickinessFilter.doFilter(write, new MockHttpServletResponse(), (request, response) -> {
+            // the client has its answer now and reads again before the write request has finished
+            response.flushBuffer();
+            MockHttpServletRequest read = new MockHttpServletRequest("GET", ENDPOINT + "/" + id);
+            read.addHeader("X-Client-Id", "eager");
+            CompletableFuture.runAsync(() -> {
+                try {
+                    primaryStickinessFilter.doFilter(read, new MockHttpServletResponse(), (readRequest, readResponse) -> {
+                        try {
+                            bookingService.getBooking(id);
+                        } catch (Exception e) {
+                            throw new ServletException(e);
+                        }
+                    });
+                } catch (IOException | ServletException e) {
+                    throw new CompletionException(e);
+                }
+            }).join();
+        });
+    }
+
+    /**
+     * Stands in for replication: copies schema and data of the primary database over to the replica.
+     */
+    private void replicate() {
+        JdbcTemplate replica = new JdbcTemplate(replicaDataSource);
+        replica.execute("DROP ALL OBJECTS");
+        new JdbcTemplate(primaryDataSource).queryForList("SCRIPT", String.class).stream()
+                .filter(statement -> !statement.startsWith("--"))
+                .forEach(replica::execute);
+    }
+
+    private BookingInput getBookingInput() {
+        BookingInput input = new BookingInput();
+        input.setFirstName("Test");
+        input.setLastName("User");
+        input.setEmail("test@email.com");
+        input.setArrivalDate(LocalDate.now().plusDays(1));
+        input.setDepartureDate(LocalDate.now().plusDays(3));
+        return input;
+    }
+}
@@ -0,0 +1,183 @@
+package com.coding.challenge.booking.sequencer;
+
+import com.coding.challenge.booking.entity.BookingEntity;
+import com.coding.challenge.booking.entity.BookingNightEntity;
+import com.coding.challenge.booking.error.exception.BookingNotFoundException;
+import com.coding.challenge.booking.error.exception.BookingValidationException;
+import com.coding.challenge.booking.input.BookingInput;
+import com.coding.challenge.booking.mapper.BookingMapper;
+import com.coding.challenge.booking.occupancy.DateRange;
+import com.coding.challenge.booking.occupancy.OccupancyChangedEvent;
+import com.coding.challenge.booking.occupancy.OccupancyIndex;
+import com.coding.challenge.booking.output.BookingOutput;
+import com.coding.challenge.booking.persistance.BookingRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.event.EventListener;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "booking.sequencer.enabled=true",
+        "spring.datasource.url=jdbc:h2:mem:sequencerdb;DB_CLOSE_DELAY=-1"
+})
+public class BookingSequencerTest {
+
+    @Autowired
+    private BookingSequencer bookingSequencer;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private OccupancyIndex occupancyIndex;
+
+    @Autowired
+    private WriterPause writerPause;
+
+    @AfterEach
+    public void cleanUp() {
+        bookingRepository.deleteAll();
+        occupancyIndex.load();
+    }
+
+    @Test
+    public void create_whenManyRequestsRaceForSameNights_shouldAcceptExactlyOne() throws Exception {
+        List<CompletableFuture<BookingOutput>> results = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            results.add(CompletableFuture.supplyAsync(() -> bookingSequencer.create(getBookingInput())).thenCompose(result -> result));
+        }
+
+        int accepted = 0;
+        for (CompletableFuture<BookingOutput> result : results) {
+            try {
+                assertNotNull(result.get().getBookingId());
+                accepted++;
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof BookingValidationException);
+            }
+        }
+
+        assertEquals(1, accepted);
+        assertEquals(1, bookingRepository.count());
+    }
+
+    @Test
+    public void mutations_shouldApplyInSubmissionOrder() throws Exception {
+        BookingOutput created = bookingSequencer.create(getBookingInput()).get();
+        long id = Long.parseLong(created.getBookingId());
+        BookingInput moved = getBookingInput();
+        moved.setArrivalDate(LocalDate.now().plusDays(4));
+        moved.setDepartureDate(LocalDate.now().plusDays(5));
+
+        CompletableFuture<BookingOutput> update = bookingSequencer.update(id, moved);
+        CompletableFuture<BookingOutput> rebook = bookingSequencer.create(getBookingInput());
+        CompletableFuture<Void> delete = bookingSequencer.delete(id);
+        CompletableFuture<Void> deleteAgain = bookingSequencer.delete(id);
+
+        assertEquals(moved.getArrivalDate(), update.get().getArrivalDate());
+        assertNotNull(rebook.get().getBookingId());
+        delete.get();
+        ExecutionException e = assertThrows(ExecutionException.class, deleteAgain::get);
+        assertTrue(e.getCause() instanceof BookingNotFoundException);
+        assertTrue(occupancyIndex.isAvailable(DateRange.of(moved.getArrivalDate(), moved.getDepartureDate())));
+        assertFalse(occupancyIndex.isAvailable(DateRange.of(LocalDate.now().plusDays(1), LocalDate.now().plusDays(3))));
+    }
+
+    @Test
+    public void commit_whenNightTakenOutsideSequencerMidBatch_shouldFailOnlyThatMutation() throws Exception {
+        CountDownLatch resume = writerPause.pauseNextChange();
+        CompletableFuture<BookingOutput> first = bookingSequencer.create(getBookingInput(1, 2));
+        assertTrue(writerPause.paused.await(10, TimeUnit.SECONDS));
+
+        // queued while the writer is busy, so they are drained and committed as one batch
+        CompletableFuture<BookingOutput> before = bookingSequencer.create(getBookingInput(3, 4));
+        CompletableFuture<BookingOutput> taken = bookingSequencer.create(getBookingInput(5, 6));
+        CompletableFuture<BookingOutput> after = bookingSequencer.create(getBookingInput(7, 8));
+        BookingInput outside = getBookingInput(5, 6);
+        BookingEntity booking = BookingMapper.INSTANCE.mapInputToEntity(outside);
+        booking.getNights().add(new BookingNightEntity(booking, outside.getArrivalDate()));
+        bookingRepository.save(booking);
+        resume.countDown();
+
+        assertNotNull(first.get().getBookingId());
+        assertNotNull(before.get().getBookingId());
+        ExecutionException e = assertThrows(ExecutionException.class, taken::get);
+        assertTrue(e.getCause() instanceof BookingValidationException);
+        assertNotNull(after.get().getBookingId());
+        assertEquals(4, bookingRepository.count());
+    }
+
+    @Test
+    public void cancel_whenMutationStillQueued_shouldNeverApplyIt() throws Exception {
+        CountDownLatch resume = writerPause.pauseNextChange();
+        CompletableFuture<BookingOutput> taken = bookingSequencer.create(getBookingInput(1, 2));
+        assertTrue(writerPause.paused.await(10, TimeUnit.SECONDS));
+        CompletableFuture<BookingOutput> queued = bookingSequencer.create(getBookingInput(3, 4));
+
+        assertFalse(taken.cancel(false));
+        assertTrue(queued.cancel(false));
+        resume.countDown();
+
+        assertNotNull(taken.get().getBookingId());
+        // published after the cancelled one, so the writer has drained past it once this completes
+        assertNotNull(bookingSequencer.create(getBookingInput(5, 6)).get().getBookingId());
+        assertTrue(queued.isCancelled());
+        assertEquals(2, bookingRepository.count());
+        assertTrue(occupancyIndex.isAvailable(DateRange.of(LocalDate.now().plusDays(3), LocalDate.now().plusDays(4))));
+    }
+
+    private BookingInput getBookingInput(int arrivalInDays, int departureInDays) {
+        BookingInput input = getBookingInput();
+        input.setArrivalDate(LocalDate.now().plusDays(arrivalInDays));
+        input.setDepartureDate(LocalDate.now().plusDays(departureInDays));
+        return input;
+    }
+
+    private BookingInput getBookingInput() {
+        BookingInput input = new BookingInput();
+        input.setFirstName("Test");
+        input.setLastName("User");
+        input.setEmail("test@email.com");
+        input.setArrivalDate(LocalDate.now().plusDays(1));
+        input.setDepartureDate(LocalDate.now().plusDays(3));
+        return input;
+    }
+
+    /**
+     * Holds the sequencer's writer inside its transaction on the next occupancy change, until released.
+     */
+    @TestConfiguration
+    static class WriterPause {
+
+        private volatile CountDownLatch paused;
+        private volatile CountDownLatch resume;
+
+        CountDownLatch pauseNextChange() {
+            paused = new CountDownLatch(1);
+            resume = new CountDownLatch(1);
+            return resume;
+        }
+
+        @EventListener
+        public void onOccupancyChanged(OccupancyChangedEvent event) throws InterruptedException {
+            CountDownLatch latch = resume;
+            if (latch != null) {
+                resume = null;
+                paused.countDown();
+                latch.await(10, TimeUnit.SECONDS);
+            }
+        }
+    }
+}
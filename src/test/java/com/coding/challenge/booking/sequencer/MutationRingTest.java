@@ -0,0 +1,99 @@
+package com.coding.challenge.booking.sequencer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MutationRingTest {
+
+    @Test
+    public void drainTo_shouldReturnElementsInPublishOrderAcrossWraps() {
+        MutationRing<Integer> ring = new MutationRing<>(4);
+        List<Integer> drained = new ArrayList<>();
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(ring.offer(i, 0));
+            if (i % 3 == 2) {
+                ring.drainTo(drained, 2);
+                ring.drainTo(drained, 2);
+            }
+        }
+        ring.drainTo(drained, 4);
+
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), drained);
+        assertEquals(0, ring.backlog());
+    }
+
+    @Test
+    public void offer_whenRingFull_shouldWaitForConsumer() throws Exception {
+        MutationRing<Integer> ring = new MutationRing<>(2);
+        int producers = 4;
+        int perProducer = 1000;
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch done = new CountDownLatch(producers);
+        for (int p = 0; p < producers; p++) {
+            executor.execute(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    ring.offer(i, TimeUnit.SECONDS.toNanos(10));
+                }
+                done.countDown();
+            });
+        }
+
+        List<Integer> drained = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (drained.size() < producers * perProducer && System.nanoTime() < deadline) {
+            ring.drainTo(drained, 2);
+        }
+        executor.shutdown();
+
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+        assertEquals(producers * perProducer, drained.size());
+    }
+
+    @Test
+    public void offer_whenRingStaysFull_shouldGiveUpWithoutPublishing() {
+        MutationRing<Integer> ring = new MutationRing<>(2);
+        assertTrue(ring.offer(0, 0));
+        assertTrue(ring.offer(1, 0));
+
+        assertFalse(ring.offer(2, TimeUnit.MILLISECONDS.toNanos(10)));
+
+        List<Integer> drained = new ArrayList<>();
+        ring.drainTo(drained, 4);
+        assertTrue(ring.offer(3, 0));
+        ring.drainTo(drained, 4);
+        assertEquals(List.of(0, 1, 3), drained);
+    }
+
+    @Test
+    public void awaitPublished_shouldWakeUpOnceElementIsPublished() throws Exception {
+        MutationRing<Integer> ring = new MutationRing<>(2);
+        Thread producer = new Thread(() -> {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+            ring.offer(0, 0);
+        });
+        producer.start();
+
+        long started = System.nanoTime();
+        while (ring.backlog() == 0) {
+            ring.awaitPublished(TimeUnit.SECONDS.toNanos(10));
+        }
+
+        assertTrue(System.nanoTime() - started < TimeUnit.SECONDS.toNanos(5));
+        producer.join();
+    }
+
+    @Test
+    public void constructor_whenSizeNotPowerOfTwo_shouldFail() {
+        assertThrows(IllegalArgumentException.class, () -> new MutationRing<>(3));
+    }
+}
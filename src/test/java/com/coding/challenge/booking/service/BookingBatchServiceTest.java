@@ -0,0 +1,96 @@
+package com.coding.challenge.booking.service;
+
+import com.coding.challenge.booking.error.exception.BookingValidationException;
+import com.coding.challenge.booking.input.BookingInput;
+import com.coding.challenge.booking.metrics.BookingMetrics;
+import com.coding.challenge.booking.output.BookingBatchResultOutput;
+import com.coding.challenge.booking.output.BookingOutput;
+import com.coding.challenge.booking.persistance.BookingNightConstraint;
+import com.coding.challenge.booking.validation.BookingValidator;
+import com.coding.challenge.booking.validation.DailyClock;
+import com.coding.challenge.booking.validation.ValidationMode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class BookingBatchServiceTest {
+
+    @Mock
+    private BookingService bookingServiceMock;
+
+    @Spy
+    private BookingValidator bookingValidator = new BookingValidator(BookingMetrics.noop(), new DailyClock(Clock.systemDefaultZone()), ValidationMode.COLLECT_ALL, 1, 3, 1, 3660, 1);
+
+    @Spy
+    private ConflictRetryPolicy conflictRetryPolicy = new ConflictRetryPolicy(BookingMetrics.noop(), 3, 0, 0);
+
+    @InjectMocks
+    private BookingBatchService bookingBatchService = new BookingBatchService();
+
+    @Test
+    public void createBookings_whenItemInvalid_shouldOnlyRejectThatItem() throws Exception {
+        BookingInput valid = getBookingInput();
+        BookingInput invalid = getBookingInput();
+        invalid.setFirstName(null);
+        when(bookingServiceMock.createBookings(Map.of(0, valid))).thenReturn(List.of(new BookingBatchResultOutput(0, 201, new BookingOutput(), null)));
+
+        List<BookingBatchResultOutput> results = bookingBatchService.createBookings(List.of(valid, invalid));
+
+        assertEquals(201, results.get(0).getStatus());
+        assertEquals(400, results.get(1).getStatus());
+        assertEquals("First name cannot be blank", results.get(1).getErrorMessages().get(0));
+    }
+
+    @Test
+    public void createBookings_whenItemNull_shouldOnlyRejectThatItem() throws Exception {
+        BookingInput valid = getBookingInput();
+        when(bookingServiceMock.createBookings(Map.of(1, valid))).thenReturn(List.of(new BookingBatchResultOutput(1, 201, new BookingOutput(), null)));
+
+        List<BookingBatchResultOutput> results = bookingBatchService.createBookings(Arrays.asList(null, valid));
+
+        assertEquals(400, results.get(0).getStatus());
+        assertEquals("Booking cannot be empty", results.get(0).getErrorMessages().get(0));
+        assertEquals(201, results.get(1).getStatus());
+    }
+
+    @Test
+    public void createBookings_whenBatchInsertConflicts_shouldSettleEachBookingSeparately() throws Exception {
+        BookingInput first = getBookingInput();
+        BookingInput second = getBookingInput();
+        second.setEmail("another@email.com");
+        when(bookingServiceMock.createBookings(anyMap())).thenThrow(new DataIntegrityViolationException(BookingNightConstraint.NAME));
+        when(bookingServiceMock.createBooking(first)).thenReturn(new BookingOutput());
+        when(bookingServiceMock.createBooking(second)).thenThrow(new BookingValidationException(List.of("Booking dates not available")));
+
+        List<BookingBatchResultOutput> results = bookingBatchService.createBookings(List.of(first, second));
+
+        assertEquals(201, results.get(0).getStatus());
+        assertEquals(400, results.get(1).getStatus());
+        assertEquals("Booking dates not available", results.get(1).getErrorMessages().get(0));
+    }
+
+    private BookingInput getBookingInput() {
+        BookingInput input = new BookingInput();
+        input.setFirstName("Test");
+        input.setLastName("User");
+        input.setEmail("test@email.com");
+        input.setArrivalDate(LocalDate.now().plusDays(1));
+        input.setDepartureDate(LocalDate.now().plusDays(3));
+        return input;
+    }
+}
@@ -0,0 +1,88 @@
+package com.coding.challenge.booking.service;
+
+import com.coding.challenge.booking.error.exception.BookingConflictException;
+import com.coding.challenge.booking.input.BookingInput;
+import com.coding.challenge.booking.occupancy.DateRange;
+import com.coding.challenge.booking.occupancy.OccupancyIndex;
+import com.coding.challenge.booking.persistance.BookingRepository;
+import com.coding.challenge.booking.persistance.VersionedBookedDates;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mockingDetails;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:deleteracedb;DB_CLOSE_DELAY=-1")
+public class BookingDeleteRaceTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    @Autowired
+    private BookingService bookingService;
+
+    @SpyBean(proxyTargetAware = false)
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private OccupancyIndex occupancyIndex;
+
+    @AfterEach
+    public void cleanUp() {
+        bookingRepository.deleteAll();
+        occupancyIndex.load();
+    }
+
+    @Test
+    public void deleteBooking_whenUpdateCommitsAfterRead_shouldConflictAndKeepMovedNightsOccupied() throws Exception {
+        long id = Long.parseLong(bookingService.createBooking(getBookingInput(1, 3)).getBookingId());
+        // a spied repository proxy delegates to the real repository through its default answer
+        Answer<?> delegate = mockingDetails(bookingRepository).getMockCreationSettings().getDefaultAnswer();
+        AtomicBoolean raced = new AtomicBoolean();
+        doAnswer(invocation -> {
+            Object current = delegate.answer(invocation);
+            if (raced.compareAndSet(false, true)) {
+                // the delete has read nights 1-3; another request moves the booking to nights 5-7 before it writes
+                CompletableFuture.runAsync(() -> {
+                    try {
+                        bookingService.updateBooking(id, getBookingInput(5, 7));
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }).join();
+            }
+            return current;
+        }).when(bookingRepository).findBookedDatesById(anyLong());
+
+        assertThrows(BookingConflictException.class, () -> bookingService.deleteBooking(id));
+
+        VersionedBookedDates moved = bookingRepository.findBookedDatesById(id).orElseThrow();
+        assertEquals(TODAY.plusDays(5), moved.getArrivalDate());
+        assertTrue(occupancyIndex.isAvailable(DateRange.of(TODAY.plusDays(1), TODAY.plusDays(3))));
+        assertFalse(occupancyIndex.isAvailable(DateRange.of(TODAY.plusDays(5), TODAY.plusDays(7))));
+
+        bookingService.deleteBooking(id);
+
+        assertFalse(bookingRepository.existsById(id));
+        assertTrue(occupancyIndex.isAvailable(DateRange.of(TODAY.plusDays(5), TODAY.plusDays(7))));
+    }
+
+    private BookingInput getBookingInput(int arrivalDay, int departureDay) {
+        BookingInput input = new BookingInput();
+        input.setFirstName("Test");
+        input.setLastName("User");
+        input.setEmail("test@email.com");
+        input.setArrivalDate(TODAY.plusDays(arrivalDay));
+        input.setDepartureDate(TODAY.plusDays(departureDay));
+        return input;
+    }
+}
@@ -1,28 +1,57 @@
 package com.coding.challenge.booking.service;
 
 import com.coding.challenge.booking.entity.BookingEntity;
+import com.coding.challenge.booking.entity.BookingNightEntity;
+import com.coding.challenge.booking.error.exception.BookingConflictException;
 import com.coding.challenge.booking.error.exception.BookingNotFoundException;
-import com.coding.challenge.booking.error.exception.BookingSavingException;
 import com.coding.challenge.booking.error.exception.BookingValidationException;
 import com.coding.challenge.booking.input.BookingInput;
+import com.coding.challenge.booking.lock.ReservationLock;
 import com.coding.challenge.booking.mapper.BookingMapper;
+import com.coding.challenge.booking.metrics.BookingMetrics;
+import com.coding.challenge.booking.occupancy.AvailabilityCache;
+import com.coding.challenge.booking.occupancy.DateRange;
+import com.coding.challenge.booking.occupancy.OccupancyChangedEvent;
+import com.coding.challenge.booking.occupancy.OccupancyIndex;
+import com.coding.challenge.booking.output.BookingBatchResultOutput;
 import com.coding.challenge.booking.output.BookingOutput;
+import com.coding.challenge.booking.output.BookingPageOutput;
+import com.coding.challenge.booking.persistance.BookingNightConstraint;
+import com.coding.challenge.booking.persistance.BookingNightRepository;
 import com.coding.challenge.booking.persistance.BookingRepository;
+import com.coding.challenge.booking.persistance.BookingWriter;
+import com.coding.challenge.booking.persistance.VersionedBookedDates;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
-import javax.persistence.OptimisticLockException;
 import java.time.LocalDate;
-import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,14 +60,36 @@ public class BookingServiceTest {
     @Mock
     private BookingRepository bookingRepositoryMock;
 
+    @Mock
+    private BookingNightRepository bookingNightRepositoryMock;
+
+    @Mock
+    private BookingWriter bookingWriterMock;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisherMock;
+
+    @Mock
+    private ReservationLock reservationLockMock;
+
+    @Spy
+    private OccupancyIndex occupancyIndex = new OccupancyIndex();
+
+    @Spy
+    private AvailabilityCache availabilityCache = new AvailabilityCache(new SimpleMeterRegistry(), 100, 60);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private BookingMetrics bookingMetrics = new BookingMetrics(meterRegistry);
+
     @InjectMocks
     private BookingService bookingService = new BookingService();
 
     @Test
     public void createBooking_whenValidBookingInput_shouldReturnBookingOutput() throws Exception {
         BookingInput input = getBookingInput();
-        when(bookingRepositoryMock.getAllBookedDatesBetween(any(LocalDate.class), any(LocalDate.class))).thenReturn(new ArrayList<>());
-        when(bookingRepositoryMock.save(any(BookingEntity.class))).thenReturn(getBookingEntity());
+        when(bookingRepositoryMock.saveAndFlush(any(BookingEntity.class))).thenReturn(getBookingEntity());
 
         BookingOutput output = bookingService.createBooking(input);
 
@@ -52,30 +103,89 @@ public class BookingServiceTest {
     @Test
     public void createBooking_whenBookingDatesNotAvailable_shouldThrowBookingValidationException() {
         BookingInput input = getBookingInput();
-        when(bookingRepositoryMock.getAllBookedDatesBetween(any(LocalDate.class), any(LocalDate.class))).thenReturn(getBookingEntities());
+        occupy(getBookingEntities());
 
         assertThrows(BookingValidationException.class, () -> bookingService.createBooking(input));
     }
 
     @Test
-    public void createBooking_whenUnableToSave_shouldThrowBookingSavingException() {
+    public void createBooking_whenVersionConflict_shouldLeaveRetryToCaller() {
+        BookingInput input = getBookingInput();
+        when(bookingRepositoryMock.saveAndFlush(any(BookingEntity.class))).thenThrow(ObjectOptimisticLockingFailureException.class);
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> bookingService.createBooking(input));
+    }
+
+    @Test
+    public void createBooking_shouldLockRequestedNightsBeforeCheckingAvailability() throws Exception {
+        BookingInput input = getBookingInput();
+        when(bookingRepositoryMock.saveAndFlush(any(BookingEntity.class))).thenReturn(getBookingEntity());
+
+        bookingService.createBooking(input);
+
+        InOrder inOrder = inOrder(reservationLockMock, occupancyIndex);
+        inOrder.verify(reservationLockMock).lockUntilTransactionCompletes(DateRange.of(input.getArrivalDate(), input.getDepartureDate()));
+        inOrder.verify(occupancyIndex).isAvailable(DateRange.of(input.getArrivalDate(), input.getDepartureDate()));
+    }
+
+    @Test
+    public void createBooking_whenNightAlreadyReserved_shouldThrowBookingValidationException() {
+        BookingInput input = getBookingInput();
+        when(bookingRepositoryMock.saveAndFlush(any(BookingEntity.class))).thenThrow(new DataIntegrityViolationException(BookingNightConstraint.NAME));
+
+        BookingValidationException expectedException = assertThrows(BookingValidationException.class, () -> bookingService.createBooking(input));
+        assertEquals("Booking dates not available", expectedException.getErrors().get(0));
+        assertEquals(1, meterRegistry.counter("booking.conflicts", "operation", "create", "reason", "dates_unavailable").count());
+    }
+
+    @Test
+    public void createBooking_whenOtherIntegrityViolation_shouldNotReportDatesUnavailable() {
         BookingInput input = getBookingInput();
-        when(bookingRepositoryMock.getAllBookedDatesBetween(any(LocalDate.class), any(LocalDate.class))).thenReturn(new ArrayList<>());
-        when(bookingRepositoryMock.save(any(BookingEntity.class))).thenThrow(OptimisticLockException.class);
+        when(bookingRepositoryMock.saveAndFlush(any(BookingEntity.class))).thenThrow(new DataIntegrityViolationException("NULL not allowed for column \"EMAIL\""));
 
-        Throwable expectedException = assertThrows(BookingSavingException.class, () -> bookingService.createBooking(input));
-        assertEquals("Unable to complete booking transaction. Please try again.", expectedException.getMessage());
+        assertThrows(DataIntegrityViolationException.class, () -> bookingService.createBooking(input));
+        assertEquals(0, meterRegistry.counter("booking.conflicts", "operation", "create", "reason", "dates_unavailable").count());
+    }
+
+    @Test
+    public void createBooking_shouldReserveOneNightPerBookedDate() throws Exception {
+        BookingInput input = getBookingInput();
+        when(bookingRepositoryMock.saveAndFlush(any(BookingEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        bookingService.createBooking(input);
+
+        ArgumentCaptor<BookingEntity> captor = ArgumentCaptor.forClass(BookingEntity.class);
+        verify(bookingRepositoryMock).saveAndFlush(captor.capture());
+        assertEquals(Set.of(input.getArrivalDate(), input.getArrivalDate().plusDays(1)), captor.getValue().getNights().stream().map(BookingNightEntity::getNight).collect(Collectors.toSet()));
+    }
+
+    @Test
+    public void createBookings_whenBookingsOverlapEachOther_shouldRejectLaterBooking() throws Exception {
+        BookingInput first = getBookingInput();
+        BookingInput overlapping = getBookingInput();
+        overlapping.setArrivalDate(first.getArrivalDate().plusDays(1));
+        overlapping.setDepartureDate(first.getDepartureDate().plusDays(1));
+
+        Map<Integer, BookingInput> inputs = new LinkedHashMap<>();
+        inputs.put(0, first);
+        inputs.put(1, overlapping);
+
+        List<BookingBatchResultOutput> results = bookingService.createBookings(inputs);
+
+        Map<Integer, Integer> statuses = results.stream().collect(Collectors.toMap(BookingBatchResultOutput::getIndex, BookingBatchResultOutput::getStatus));
+        assertEquals(Map.of(0, 201, 1, 400), statuses);
+        verify(bookingRepositoryMock).saveAll(argThat(entities -> ((Collection<BookingEntity>) entities).size() == 1));
     }
 
     @Test
     public void updateBooking_whenValidBookingInput_shouldReturnBookingOutput() throws Exception {
         BookingInput input = getBookingInput();
-        when(bookingRepositoryMock.findById(anyLong())).thenReturn(Optional.ofNullable(getBookingEntity()));
-        when(bookingRepositoryMock.getAllBookedDatesBetween(any(LocalDate.class), any(LocalDate.class))).thenReturn(new ArrayList<>());
-        when(bookingRepositoryMock.save(any(BookingEntity.class))).thenReturn(getBookingEntity());
+        when(bookingRepositoryMock.findBookedDatesById(anyLong())).thenReturn(Optional.of(getVersionedBookedDates(getBookingEntity())));
+        when(bookingWriterMock.updateIfVersionMatches(1L, DateRange.DEFAULT_RESOURCE_ID, input.getEmail(), input.getFirstName(), input.getLastName(), input.getArrivalDate(), input.getDepartureDate(), 0L)).thenReturn(1);
 
         BookingOutput output = bookingService.updateBooking(1, input);
 
+        assertEquals("1", output.getBookingId());
         assertEquals(input.getFirstName(), output.getFirstName());
         assertEquals(input.getLastName(), output.getLastName());
         assertEquals(input.getEmail(), output.getEmail());
@@ -86,7 +196,7 @@ public class BookingServiceTest {
     @Test
     public void updateBooking_whenInvalidBookingId_shouldThrowBookingNotFoundException() {
         BookingInput input = getBookingInput();
-        when(bookingRepositoryMock.findById(anyLong())).thenReturn(Optional.empty());
+        when(bookingRepositoryMock.findBookedDatesById(anyLong())).thenReturn(Optional.empty());
 
         Throwable expectedException = assertThrows(BookingNotFoundException.class, () -> bookingService.updateBooking(1, input));
         assertEquals("Booking not found", expectedException.getMessage());
@@ -99,21 +209,47 @@ public class BookingServiceTest {
         BookingEntity entity = getBookingEntity();
         entity.setArrivalDate(entity.getArrivalDate().plusDays(1));
         entity.setDepartureDate(entity.getDepartureDate().plusDays(1));
-        when(bookingRepositoryMock.findById(anyLong())).thenReturn(Optional.of(entity));
-        when(bookingRepositoryMock.getAllBookedDatesBetween(any(LocalDate.class), any(LocalDate.class))).thenReturn(getBookingEntities());
+        when(bookingRepositoryMock.findBookedDatesById(anyLong())).thenReturn(Optional.of(getVersionedBookedDates(entity)));
+        occupy(getBookingEntities());
 
         assertThrows(BookingValidationException.class, () -> bookingService.updateBooking(1, input));
+        verify(bookingWriterMock, never()).updateIfVersionMatches(anyLong(), anyLong(), any(), any(), any(), any(), any(), anyLong());
     }
 
     @Test
-    public void updateBooking_whenUnableToSave_shouldThrowBookingSavingException() {
+    public void updateBooking_whenVersionChanged_shouldThrowBookingConflictException() {
         BookingInput input = getBookingInput();
-        when(bookingRepositoryMock.findById(anyLong())).thenReturn(Optional.ofNullable(getBookingEntity()));
-        when(bookingRepositoryMock.getAllBookedDatesBetween(any(LocalDate.class), any(LocalDate.class))).thenReturn(new ArrayList<>());
-        when(bookingRepositoryMock.save(any(BookingEntity.class))).thenThrow(OptimisticLockException.class);
+        when(bookingRepositoryMock.findBookedDatesById(anyLong())).thenReturn(Optional.of(getVersionedBookedDates(getBookingEntity())));
+        when(bookingRepositoryMock.existsById(1L)).thenReturn(true);
+
+        Throwable expectedException = assertThrows(BookingConflictException.class, () -> bookingService.updateBooking(1, input));
+        assertEquals("Booking was modified by another request. Please try again.", expectedException.getMessage());
+    }
+
+    @Test
+    public void updateBooking_whenDeletedConcurrently_shouldThrowBookingNotFoundException() {
+        BookingInput input = getBookingInput();
+        when(bookingRepositoryMock.findBookedDatesById(anyLong())).thenReturn(Optional.of(getVersionedBookedDates(getBookingEntity())));
+        when(bookingRepositoryMock.existsById(1L)).thenReturn(false);
+
+        assertThrows(BookingNotFoundException.class, () -> bookingService.updateBooking(1, input));
+    }
+
+    @Test
+    public void updateBooking_whenDatesMoved_shouldOnlyReplaceChangedNights() throws Exception {
+        BookingInput input = getBookingInput();
+        BookingEntity entity = getBookingEntity();
+        entity.setArrivalDate(input.getArrivalDate().plusDays(1));
+        entity.setDepartureDate(input.getDepartureDate().plusDays(1));
+        when(bookingRepositoryMock.findBookedDatesById(anyLong())).thenReturn(Optional.of(getVersionedBookedDates(entity)));
+        when(bookingWriterMock.updateIfVersionMatches(anyLong(), anyLong(), any(), any(), any(), any(), any(), anyLong())).thenReturn(1);
+
+        bookingService.updateBooking(1, input);
 
-        Throwable expectedException = assertThrows(BookingSavingException.class, () -> bookingService.updateBooking(1, input));
-        assertEquals("Unable to complete booking transaction. Please try again.", expectedException.getMessage());
+        verify(bookingNightRepositoryMock).deleteNightsOutside(1L, input.getArrivalDate(), input.getDepartureDate());
+        verify(bookingNightRepositoryMock).saveAllAndFlush(argThat(nights -> ((Collection<BookingNightEntity>) nights).stream()
+                .map(BookingNightEntity::getNight).collect(Collectors.toList()).equals(List.of(input.getArrivalDate()))));
+        verify(eventPublisherMock).publishEvent(OccupancyChangedEvent.moved(DateRange.of(entity.getArrivalDate(), entity.getDepartureDate()), DateRange.of(input.getArrivalDate(), input.getDepartureDate())));
     }
 
     @Test
@@ -136,19 +272,99 @@ public class BookingServiceTest {
         assertEquals("Booking not found", expectedException.getMessage());
     }
 
+    @Test
+    public void createBooking_whenSaved_shouldPublishOccupiedDates() throws Exception {
+        BookingInput input = getBookingInput();
+        when(bookingRepositoryMock.saveAndFlush(any(BookingEntity.class))).thenReturn(getBookingEntity());
+
+        bookingService.createBooking(input);
+
+        verify(eventPublisherMock).publishEvent(OccupancyChangedEvent.occupied(DateRange.of(input.getArrivalDate(), input.getDepartureDate())));
+    }
+
+    @Test
+    public void createBooking_whenBookingDatesNotAvailable_shouldNotSave() {
+        BookingInput input = getBookingInput();
+        occupy(getBookingEntities());
+
+        assertThrows(BookingValidationException.class, () -> bookingService.createBooking(input));
+        verify(bookingRepositoryMock, never()).saveAndFlush(any(BookingEntity.class));
+    }
+
+    @Test
+    public void updateBooking_whenOnlyOwnDatesOccupied_shouldReturnBookingOutput() throws Exception {
+        BookingInput input = getBookingInput();
+        BookingEntity entity = getBookingEntity();
+        occupy(List.of(entity));
+        when(bookingRepositoryMock.findBookedDatesById(anyLong())).thenReturn(Optional.of(getVersionedBookedDates(entity)));
+        when(bookingWriterMock.updateIfVersionMatches(anyLong(), anyLong(), any(), any(), any(), any(), any(), anyLong())).thenReturn(1);
+
+        BookingOutput output = bookingService.updateBooking(1, input);
+
+        assertEquals(input.getArrivalDate(), output.getArrivalDate());
+        assertEquals(input.getDepartureDate(), output.getDepartureDate());
+    }
+
+    @Test
+    public void getAvailableDates_whenDatesOccupied_shouldExcludeOccupiedNights() {
+        LocalDate startDate = LocalDate.now().plusDays(1);
+        occupy(getBookingEntities());
+
+        List<LocalDate> availableDates = bookingService.getAvailableDates(DateRange.DEFAULT_RESOURCE_ID, startDate, startDate.plusDays(5));
+
+        assertEquals(List.of(startDate.plusDays(2), startDate.plusDays(3), startDate.plusDays(4)), availableDates);
+    }
+
+    @Test
+    public void getBookingsPage_whenMoreBookingsExist_shouldReturnNextCursor() throws Exception {
+        when(bookingRepositoryMock.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 3))).thenReturn(getBookingEntities(1L, 2L, 3L));
+
+        BookingPageOutput page = bookingService.getBookingsPage(null, 2);
+
+        assertEquals(2, page.getBookings().size());
+        assertEquals(BookingCursor.encode(2L), page.getNextCursor());
+    }
+
+    @Test
+    public void getBookingsPage_whenCursorGiven_shouldSeekAfterCursorId() throws Exception {
+        when(bookingRepositoryMock.findByIdGreaterThanOrderByIdAsc(2L, PageRequest.of(0, 3))).thenReturn(getBookingEntities(3L));
+
+        BookingPageOutput page = bookingService.getBookingsPage(BookingCursor.encode(2L), 2);
+
+        assertEquals("3", page.getBookings().get(0).getBookingId());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    public void getBookingsPage_whenCursorInvalid_shouldThrowBookingValidationException() {
+        BookingValidationException expectedException = assertThrows(BookingValidationException.class, () -> bookingService.getBookingsPage("bm90LWFuLWlk", 2));
+        assertEquals("Cursor is not valid", expectedException.getErrors().get(0));
+    }
+
     @Test
     public void deleteBooking_whenValidBookingInput_shouldNotThrowException() {
-        when(bookingRepositoryMock.existsById(anyLong())).thenReturn(true);
+        when(bookingRepositoryMock.findBookedDatesById(anyLong())).thenReturn(Optional.of(getVersionedBookedDates(getBookingEntity())));
+        when(bookingWriterMock.deleteIfVersionMatches(anyLong(), anyLong())).thenReturn(1);
         try {
             bookingService.deleteBooking(1);
         } catch(Exception e) {
             fail();
         }
+        verify(eventPublisherMock).publishEvent(OccupancyChangedEvent.released(DateRange.of(getBookingInput().getArrivalDate(), getBookingInput().getDepartureDate())));
+    }
+
+    @Test
+    public void deleteBooking_whenVersionChanged_shouldThrowBookingConflictException() {
+        when(bookingRepositoryMock.findBookedDatesById(anyLong())).thenReturn(Optional.of(getVersionedBookedDates(getBookingEntity())));
+        when(bookingWriterMock.deleteIfVersionMatches(anyLong(), anyLong())).thenReturn(0);
+        when(bookingRepositoryMock.existsById(anyLong())).thenReturn(true);
+        assertThrows(BookingConflictException.class, () -> bookingService.deleteBooking(1));
+        verify(eventPublisherMock, never()).publishEvent(any());
     }
 
     @Test
     public void deleteBooking_whenInvalidBookingId_shouldThrowBookingNotFoundException() {
-        when(bookingRepositoryMock.existsById(anyLong())).thenReturn(false);
+        when(bookingRepositoryMock.findBookedDatesById(anyLong())).thenReturn(Optional.empty());
         Throwable expectedException = assertThrows(BookingNotFoundException.class, () -> bookingService.deleteBooking(1));
         assertEquals("Booking not found", expectedException.getMessage());
     }
@@ -170,4 +386,40 @@ public class BookingServiceTest {
     private List<BookingEntity> getBookingEntities() {
         return List.of(getBookingEntity());
     }
+
+    private List<BookingEntity> getBookingEntities(Long... ids) {
+        return Stream.of(ids).map(id -> {
+            BookingEntity entity = getBookingEntity();
+            entity.setId(id);
+            return entity;
+        }).collect(Collectors.toList());
+    }
+
+    private VersionedBookedDates getVersionedBookedDates(BookingEntity entity) {
+        return new VersionedBookedDates() {
+            @Override
+            public Long getVersion() {
+                return 0L;
+            }
+
+            @Override
+            public Long getResourceId() {
+                return entity.getResourceId();
+            }
+
+            @Override
+            public LocalDate getArrivalDate() {
+                return entity.getArrivalDate();
+            }
+
+            @Override
+            public LocalDate getDepartureDate() {
+                return entity.getDepartureDate();
+            }
+        };
+    }
+
+    private void occupy(List<BookingEntity> entities) {
+        entities.forEach(entity -> occupancyIndex.onOccupancyChanged(OccupancyChangedEvent.occupied(DateRange.of(entity.getArrivalDate(), entity.getDepartureDate()))));
+    }
 }
@@ -0,0 +1,69 @@
+package com.coding.challenge.booking.service;
+
+import com.coding.challenge.booking.error.exception.BookingConflictException;
+import com.coding.challenge.booking.error.exception.BookingValidationException;
+import com.coding.challenge.booking.metrics.BookingMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConflictRetryPolicyTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ConflictRetryPolicy conflictRetryPolicy = new ConflictRetryPolicy(new BookingMetrics(meterRegistry), 3, 0, 0);
+
+    @Test
+    public void execute_whenSecondAttemptSucceeds_shouldReturnResult() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = conflictRetryPolicy.execute("update", () -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new ObjectOptimisticLockingFailureException("booking", 1L);
+            }
+            return "updated";
+        });
+
+        assertEquals("updated", result);
+        assertEquals(2, attempts.get());
+        assertEquals(1, meterRegistry.counter("booking.retries", "operation", "update").count());
+    }
+
+    @Test
+    public void execute_whenEveryAttemptConflicts_shouldThrowBookingConflictException() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(BookingConflictException.class, () -> conflictRetryPolicy.execute("update", () -> {
+            attempts.incrementAndGet();
+            throw new BookingConflictException();
+        }));
+        assertEquals(3, attempts.get());
+        assertEquals(1, meterRegistry.counter("booking.retries.exhausted", "operation", "update").count());
+    }
+
+    @Test
+    public void execute_whenNotAConflict_shouldNotRetry() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(BookingValidationException.class, () -> conflictRetryPolicy.execute("create", () -> {
+            attempts.incrementAndGet();
+            throw new BookingValidationException(List.of("Booking dates not available"));
+        }));
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    public void backoffMillis_shouldStayWithinCappedExponentialBound() {
+        ConflictRetryPolicy policy = new ConflictRetryPolicy(BookingMetrics.noop(), 10, 10, 50);
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(policy.backoffMillis(1) <= 10);
+            assertTrue(policy.backoffMillis(3) <= 40);
+            assertTrue(policy.backoffMillis(8) <= 50);
+        }
+    }
+}
@@ -2,18 +2,22 @@ package com.coding.challenge.booking.validation;
 
 import com.coding.challenge.booking.error.exception.BookingValidationException;
 import com.coding.challenge.booking.input.BookingInput;
+import com.coding.challenge.booking.metrics.BookingMetrics;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Clock;
 import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 @ExtendWith(MockitoExtension.class)
 public class BookingValidatorTest {
 
-    private BookingValidator bookingValidator = new BookingValidator();
+    private BookingValidator bookingValidator = new BookingValidator(BookingMetrics.noop(), new DailyClock(Clock.systemDefaultZone()), ValidationMode.COLLECT_ALL, 1, 3, 1, 3660, 1);
 
     @Test
     public void validateInput_whenValidInput_shouldNotThrowException() {
@@ -24,6 +28,12 @@ public class BookingValidatorTest {
         }
     }
 
+    @Test
+    public void validateInput_whenInputMissing_shouldThrowBookingValidationException() {
+        BookingValidationException expectedException = assertThrows(BookingValidationException.class, () -> bookingValidator.validateInput(null));
+        assertEquals("Booking cannot be empty", expectedException.getErrors().get(0));
+    }
+
     @Test
     public void validateInput_whenEmptyFirstName_shouldThrowBookingValidationException() {
         BookingInput input = getBookingInput();
@@ -106,6 +116,72 @@ public class BookingValidatorTest {
         assertEquals("Departure date can be reserved up to 1 month in advance", expectedException.getErrors().get(0));
     }
 
+    @Test
+    public void validateAvailabilitiesDate_whenWindowTooWide_shouldThrowBookingValidationException() {
+        LocalDate startDate = LocalDate.now();
+        assertDoesNotThrow(() -> bookingValidator.validateAvailabilitiesDate(startDate, startDate.plusDays(3660)));
+        BookingValidationException expectedException = assertThrows(BookingValidationException.class,
+                () -> bookingValidator.validateAvailabilitiesDate(startDate, startDate.plusYears(50)));
+        assertEquals("Availability window cannot exceed 3660 days", expectedException.getErrors().get(0));
+    }
+
+    @Test
+    public void validatePageRequest_whenLimitTooLarge_shouldThrowBookingValidationException() {
+        BookingValidationException expectedException = assertThrows(BookingValidationException.class, () -> bookingValidator.validatePageRequest(501));
+        assertEquals("Limit must be between 1 and 500", expectedException.getErrors().get(0));
+    }
+
+    @Test
+    public void validateInput_whenSeveralFieldsInvalid_shouldCollectAllErrors() {
+        BookingInput input = getBookingInput();
+        input.setFirstName(null);
+        input.setEmail("invalid");
+        BookingValidationException expectedException = assertThrows(BookingValidationException.class, () -> bookingValidator.validateInput(input));
+        assertEquals(List.of("First name cannot be blank", "Email is not valid"), expectedException.getErrors());
+    }
+
+    @Test
+    public void validateInput_whenResourceUnknown_shouldThrowValidationException() {
+        BookingInput input = getBookingInput();
+        input.setResourceId(2L);
+        BookingValidationException expectedException = assertThrows(BookingValidationException.class, () -> bookingValidator.validateInput(input));
+        assertEquals(List.of("Resource does not exist"), expectedException.getErrors());
+
+        input.setResourceId(1L);
+        assertDoesNotThrow(() -> bookingValidator.validateInput(input));
+    }
+
+    @Test
+    public void validateInput_whenFailFast_shouldStopAtFirstError() {
+        BookingValidator failFastValidator = new BookingValidator(BookingMetrics.noop(), new DailyClock(Clock.systemDefaultZone()), ValidationMode.FAIL_FAST, 1, 3, 1, 3660, 1);
+        BookingInput input = getBookingInput();
+        input.setFirstName(null);
+        input.setEmail("invalid");
+        BookingValidationException expectedException = assertThrows(BookingValidationException.class, () -> failFastValidator.validateInput(input));
+        assertEquals(List.of("First name cannot be blank"), expectedException.getErrors());
+    }
+
+    @Test
+    public void validateInput_whenRulesConfigured_shouldUseConfiguredLimits() {
+        LocalDate today = LocalDate.of(2030, 1, 31);
+        Clock clock = Clock.fixed(today.atStartOfDay(ZoneOffset.UTC).toInstant(), ZoneOffset.UTC);
+        BookingValidator configuredValidator = new BookingValidator(BookingMetrics.noop(), new DailyClock(clock), ValidationMode.COLLECT_ALL, 2, 7, 2, 3660, 1);
+        BookingInput input = getBookingInput();
+        input.setArrivalDate(today.plusDays(2));
+        input.setDepartureDate(today.plusDays(9));
+
+        assertDoesNotThrow(() -> configuredValidator.validateInput(input));
+
+        input.setArrivalDate(today.plusDays(1));
+        BookingValidationException expectedException = assertThrows(BookingValidationException.class, () -> configuredValidator.validateInput(input));
+        assertEquals("Arrival date must be reserved minimum 2 day(s) ahead of arrival", expectedException.getErrors().get(0));
+
+        input.setArrivalDate(LocalDate.of(2030, 3, 30));
+        input.setDepartureDate(LocalDate.of(2030, 4, 1));
+        expectedException = assertThrows(BookingValidationException.class, () -> configuredValidator.validateInput(input));
+        assertEquals("Departure date can be reserved up to 2 months in advance", expectedException.getErrors().get(0));
+    }
+
     private BookingInput getBookingInput() {
         BookingInput input = new BookingInput();
         input.setFirstName("Test");
@@ -0,0 +1,60 @@
+package com.coding.challenge.booking.validation;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class DailyClockTest {
+
+    @Test
+    public void today_shouldReuseDateUntilMidnight() {
+        MutableClock clock = new MutableClock(LocalDate.of(2030, 1, 1).atTime(23, 59).toInstant(ZoneOffset.UTC));
+        DailyClock dailyClock = new DailyClock(clock);
+
+        LocalDate today = dailyClock.today();
+        clock.advance(Duration.ofSeconds(59));
+
+        assertSame(today, dailyClock.today());
+        assertEquals(LocalDate.of(2030, 1, 1), today);
+
+        clock.advance(Duration.ofSeconds(1));
+
+        assertEquals(LocalDate.of(2030, 1, 2), dailyClock.today());
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant instant;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        private void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.coding.challenge.booking.writebehind;
+
+import com.coding.challenge.booking.entity.BookingEntity;
+import com.coding.challenge.booking.error.exception.BookingValidationException;
+import com.coding.challenge.booking.input.BookingInput;
+import com.coding.challenge.booking.lock.DateLockManager;
+import com.coding.challenge.booking.lock.ReservationLock;
+import com.coding.challenge.booking.metrics.BookingMetrics;
+import com.coding.challenge.booking.occupancy.AvailabilityCache;
+import com.coding.challenge.booking.occupancy.DateRange;
+import com.coding.challenge.booking.occupancy.OccupancyIndex;
+import com.coding.challenge.booking.output.BookingHandleOutput;
+import com.coding.challenge.booking.output.BookingHandleStatus;
+import com.coding.challenge.booking.output.BookingOutput;
+import com.coding.challenge.booking.persistance.BookingNightConstraint;
+import com.coding.challenge.booking.persistance.BookingRepository;
+import com.coding.challenge.booking.service.BookingService;
+import com.coding.challenge.booking.validation.BookingValidator;
+import com.coding.challenge.booking.validation.DailyClock;
+import com.coding.challenge.booking.validation.ValidationMode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class WriteBehindBookingPipelineTest {
+
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper().findAndRegisterModules().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private final Path journalPath = createJournalPath();
+
+    @Mock
+    private BookingService bookingServiceMock;
+
+    @Mock
+    private BookingRepository bookingRepositoryMock;
+
+    @Spy
+    private BookingValidator bookingValidator = new BookingValidator(BookingMetrics.noop(), new DailyClock(Clock.systemDefaultZone()), ValidationMode.COLLECT_ALL, 1, 3, 1, 3660, 1);
+
+    @Spy
+    private OccupancyIndex occupancyIndex = new OccupancyIndex();
+
+    @Spy
+    private AvailabilityCache availabilityCache = new AvailabilityCache(new SimpleMeterRegistry(), 10, 60);
+
+    @Spy
+    private ReservationLock reservationLock = new DateLockManager(new SimpleMeterRegistry(), 16, 1000);
+
+    @Spy
+    private BookingMetrics bookingMetrics = BookingMetrics.noop();
+
+    @InjectMocks
+    private WriteBehindBookingPipeline pipeline = new WriteBehindBookingPipeline(new SimpleMeterRegistry(), JSON_MAPPER, 10, 50, journalPath.toString(), false, 100, 0, 3, 3600);
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        pipeline.stop();
+    }
+
+    @Test
+    public void submit_shouldReserveNightsAndConfirmOnceSaved() throws Exception {
+        when(bookingServiceMock.saveReservedBookings(anyList())).thenReturn(List.of(getBookingOutput()));
+        pipeline.start();
+
+        BookingHandleOutput accepted = pipeline.submit(getBookingInput());
+
+        assertEquals(BookingHandleStatus.PENDING, accepted.getStatus());
+        BookingHandleOutput outcome = awaitOutcome(accepted.getHandle());
+        assertEquals(BookingHandleStatus.CONFIRMED, outcome.getStatus());
+        assertEquals("1", outcome.getBooking().getBookingId());
+    }
+
+    @Test
+    public void submit_whenNightsReserved_shouldRejectSynchronously() throws Exception {
+        pipeline.start();
+        occupancyIndex.tryReserve(DateRange.of(LocalDate.now().plusDays(2), LocalDate.now().plusDays(3)));
+
+        BookingValidationException e = assertThrows(BookingValidationException.class, () -> pipeline.submit(getBookingInput()));
+
+        assertEquals(List.of("Booking dates not available"), e.getErrors());
+    }
+
+    @Test
+    public void write_whenNightsTakenOutsideReservation_shouldRejectAndReleaseNights() throws Exception {
+        when(bookingServiceMock.saveReservedBookings(anyList())).thenThrow(new DataIntegrityViolationException(BookingNightConstraint.NAME));
+        pipeline.start();
+
+        BookingHandleOutput outcome = awaitOutcome(pipeline.submit(getBookingInput()).getHandle());
+
+        assertEquals(BookingHandleStatus.REJECTED, outcome.getStatus());
+        assertTrue(occupancyIndex.isAvailable(DateRange.of(getBookingInput().getArrivalDate(), getBookingInput().getDepartureDate())));
+    }
+
+    @Test
+    public void write_whenOneBookingKeepsFailing_shouldRejectOnlyItAndReleaseItsNights() throws Exception {
+        BookingInput failing = getBookingInput();
+        failing.setArrivalDate(LocalDate.now().plusDays(5));
+        failing.setDepartureDate(LocalDate.now().plusDays(6));
+        when(bookingServiceMock.saveReservedBookings(anyList())).thenAnswer(invocation -> {
+            List<BookingEntity> entities = invocation.getArgument(0);
+            if (entities.stream().anyMatch(entity -> failing.getArrivalDate().equals(entity.getArrivalDate()))) {
+                throw new IllegalStateException("Data too long");
+            }
+            return Collections.nCopies(entities.size(), getBookingOutput());
+        });
+        pipeline.start();
+
+        String failingHandle = pipeline.submit(failing).getHandle();
+        String savedHandle = pipeline.submit(getBookingInput()).getHandle();
+
+        BookingHandleOutput outcome = awaitOutcome(failingHandle);
+        assertEquals(BookingHandleStatus.REJECTED, outcome.getStatus());
+        assertEquals(List.of("Unable to process booking request"), outcome.getErrorMessages());
+        assertTrue(occupancyIndex.isAvailable(DateRange.of(failing.getArrivalDate(), failing.getDepartureDate())));
+        assertEquals(BookingHandleStatus.CONFIRMED, awaitOutcome(savedHandle).getStatus());
+    }
+
+    @Test
+    public void start_shouldSettleBookingsAcceptedBeforeRestart() throws Exception {
+        try (WriteBehindJournal journal = new WriteBehindJournal(journalPath, false, JSON_MAPPER, 100)) {
+            journal.open();
+            journal.append(JournalRecord.accepted("saved", getBookingInput()));
+            BookingInput unsaved = getBookingInput();
+            unsaved.setArrivalDate(LocalDate.now().plusDays(5));
+            unsaved.setDepartureDate(LocalDate.now().plusDays(6));
+            journal.append(JournalRecord.accepted("unsaved", unsaved));
+        }
+        BookingEntity saved = new BookingEntity();
+        saved.setId(1L);
+        when(bookingRepositoryMock.findByHandle(anyString())).thenAnswer(invocation -> "saved".equals(invocation.getArgument(0)) ? Optional.of(saved) : Optional.empty());
+        when(bookingServiceMock.saveReservedBookings(anyList())).thenReturn(List.of(getBookingOutput()));
+
+        pipeline.start();
+
+        assertEquals(BookingHandleStatus.CONFIRMED, pipeline.getStatus("saved").getStatus());
+        assertEquals(BookingHandleStatus.CONFIRMED, awaitOutcome("unsaved").getStatus());
+    }
+
+    private BookingHandleOutput awaitOutcome(String handle) throws Exception {
+        for (int i = 0; i < 500; i++) {
+            BookingHandleOutput status = pipeline.getStatus(handle);
+            if (status.getStatus() != BookingHandleStatus.PENDING) {
+                return status;
+            }
+            Thread.sleep(10);
+        }
+        return fail("Booking " + handle + " is still pending");
+    }
+
+    private static Path createJournalPath() {
+        try {
+            return Files.createTempDirectory("write-behind").resolve("journal");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private BookingOutput getBookingOutput() {
+        BookingOutput output = new BookingOutput();
+        output.setBookingId("1");
+        return output;
+    }
+
+    private BookingInput getBookingInput() {
+        BookingInput input = new BookingInput();
+        input.setFirstName("Test");
+        input.setLastName("User");
+        input.setEmail("test@email.com");
+        input.setArrivalDate(LocalDate.now().plusDays(1));
+        input.setDepartureDate(LocalDate.now().plusDays(3));
+        return input;
+    }
+}
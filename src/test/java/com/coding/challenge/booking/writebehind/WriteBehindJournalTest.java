@@ -0,0 +1,127 @@
+package com.coding.challenge.booking.writebehind;
+
+import com.coding.challenge.booking.input.BookingInput;
+import com.coding.challenge.booking.output.BookingHandleOutput;
+import com.coding.challenge.booking.output.BookingHandleStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WriteBehindJournalTest {
+
+    private final ObjectMapper jsonMapper = new ObjectMapper().findAndRegisterModules().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void open_shouldReadRecordsAppendedBeforeRestart() throws Exception {
+        Path path = directory.resolve("journal");
+        try (WriteBehindJournal journal = new WriteBehindJournal(path, true, jsonMapper, 2)) {
+            assertTrue(journal.open().isEmpty());
+            journal.append(JournalRecord.accepted("a", getBookingInput()));
+            journal.append(JournalRecord.resolved(new BookingHandleOutput("a", BookingHandleStatus.REJECTED, null, List.of("Booking dates not available"))));
+        }
+
+        try (WriteBehindJournal journal = new WriteBehindJournal(path, true, jsonMapper, 2)) {
+            List<JournalRecord> records = journal.open();
+
+            assertEquals(2, records.size());
+            assertEquals(getBookingInput(), records.get(0).getInput());
+            assertEquals(BookingHandleStatus.REJECTED, records.get(1).getStatus());
+        }
+    }
+
+    @Test
+    public void open_shouldSkipTornLastLine() throws Exception {
+        Path path = directory.resolve("journal");
+        try (WriteBehindJournal journal = new WriteBehindJournal(path, false, jsonMapper, 2)) {
+            journal.open();
+            journal.append(JournalRecord.accepted("a", getBookingInput()));
+        }
+        Files.write(path, "{\"handle\":\"b\",\"sta".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        try (WriteBehindJournal journal = new WriteBehindJournal(path, false, jsonMapper, 2)) {
+            List<JournalRecord> records = journal.open();
+
+            assertEquals(1, records.size());
+            assertEquals("a", records.get(0).getHandle());
+        }
+    }
+
+    @Test
+    public void rewrite_shouldReplaceRecords() throws Exception {
+        Path path = directory.resolve("journal");
+        try (WriteBehindJournal journal = new WriteBehindJournal(path, false, jsonMapper, 2)) {
+            journal.open();
+            journal.append(JournalRecord.accepted("a", getBookingInput()));
+
+            journal.rewrite(List.of());
+            journal.append(JournalRecord.accepted("b", getBookingInput()));
+        }
+
+        try (WriteBehindJournal journal = new WriteBehindJournal(path, false, jsonMapper, 2)) {
+            List<JournalRecord> records = journal.open();
+
+            assertEquals(1, records.size());
+            assertEquals("b", records.get(0).getHandle());
+        }
+    }
+
+    @Test
+    public void compact_shouldKeepOnlyOutstandingBookingsOnceEnoughAreSettled() throws Exception {
+        Path path = directory.resolve("journal");
+        try (WriteBehindJournal journal = new WriteBehindJournal(path, false, jsonMapper, 2)) {
+            journal.open();
+            journal.append(JournalRecord.accepted("a", getBookingInput()));
+            journal.append(JournalRecord.accepted("b", getBookingInput()));
+            assertFalse(journal.compact());
+
+            journal.append(JournalRecord.resolved(new BookingHandleOutput("a", BookingHandleStatus.REJECTED, null, List.of("Booking dates not available"))));
+            assertTrue(journal.compact());
+            assertFalse(journal.compact());
+        }
+
+        try (WriteBehindJournal journal = new WriteBehindJournal(path, false, jsonMapper, 2)) {
+            List<JournalRecord> records = journal.open();
+
+            assertEquals(1, records.size());
+            assertEquals("b", records.get(0).getHandle());
+            assertEquals(BookingHandleStatus.PENDING, records.get(0).getStatus());
+        }
+    }
+
+    @Test
+    public void compact_whenNothingOutstanding_shouldEmptyJournal() throws Exception {
+        Path path = directory.resolve("journal");
+        try (WriteBehindJournal journal = new WriteBehindJournal(path, false, jsonMapper, 100)) {
+            journal.open();
+            journal.append(JournalRecord.accepted("a", getBookingInput()));
+            journal.append(JournalRecord.resolved(new BookingHandleOutput("a", BookingHandleStatus.REJECTED, null, List.of("Booking dates not available"))));
+
+            assertTrue(journal.compact());
+        }
+
+        assertEquals(0, Files.size(path));
+    }
+
+    private BookingInput getBookingInput() {
+        BookingInput input = new BookingInput();
+        input.setFirstName("Test");
+        input.setLastName("User");
+        input.setEmail("test@email.com");
+        input.setArrivalDate(LocalDate.of(2030, 1, 2));
+        input.setDepartureDate(LocalDate.of(2030, 1, 4));
+        return input;
+    }
+}